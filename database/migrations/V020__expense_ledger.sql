@@ -0,0 +1,51 @@
+-- =====================================================
+-- Ledger incrementale dei bilanci di gruppo
+-- =====================================================
+-- Sostituisce le aggregazioni complete su activity_expense_splits eseguite
+-- ad ogni GET /api/groups/{id}/expenses/settlement.
+-- Le righe vengono aggiornate a delta da ActivityService.addExpense,
+-- deleteExpense, deleteActivity e ExpenseSettlementService.recordSettlement.
+
+CREATE TABLE IF NOT EXISTS group_expense_ledgers (
+    group_id        BIGINT PRIMARY KEY REFERENCES groups(id) ON DELETE CASCADE,
+    total_expenses  NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    expense_count   BIGINT NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS group_member_balances (
+    group_member_id BIGINT PRIMARY KEY REFERENCES group_members(id) ON DELETE CASCADE,
+    group_id        BIGINT NOT NULL REFERENCES groups(id) ON DELETE CASCADE,
+    total_paid      NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    total_owed      NUMERIC(12, 2) NOT NULL DEFAULT 0,
+    split_count     BIGINT NOT NULL DEFAULT 0,
+    updated_at      TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_group_member_balances_group_id
+    ON group_member_balances (group_id);
+
+-- Backfill dai dati esistenti (stessa aggregazione di ActivityExpenseSplitRepository)
+INSERT INTO group_member_balances (group_member_id, group_id, total_paid, total_owed, split_count, updated_at)
+SELECT aes.group_member_id,
+       a.group_id,
+       COALESCE(SUM(aes.paid_amount), 0),
+       COALESCE(SUM(aes.amount), 0),
+       COUNT(*),
+       NOW()
+FROM activity_expense_splits aes
+JOIN activity_expenses ae ON ae.id = aes.expense_id
+JOIN activities a ON a.id = ae.activity_id
+GROUP BY aes.group_member_id, a.group_id
+ON CONFLICT (group_member_id) DO NOTHING;
+
+INSERT INTO group_expense_ledgers (group_id, total_expenses, expense_count, updated_at)
+SELECT a.group_id,
+       COALESCE(SUM(aes.amount), 0),
+       COUNT(DISTINCT ae.id),
+       NOW()
+FROM activity_expense_splits aes
+JOIN activity_expenses ae ON ae.id = aes.expense_id
+JOIN activities a ON a.id = ae.activity_id
+GROUP BY a.group_id
+ON CONFLICT (group_id) DO NOTHING;
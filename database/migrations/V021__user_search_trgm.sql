@@ -0,0 +1,19 @@
+-- =====================================================
+-- Indici trigram per la ricerca utenti
+-- =====================================================
+-- UserRepository.search filtra con LOWER(name|email) LIKE '%q%':
+-- gli indici GIN gin_trgm_ops permettono a PostgreSQL di usare un
+-- bitmap index scan invece del seq scan sull'intera tabella users
+-- (efficace da 3 caratteri in su).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm
+    ON users USING GIN (LOWER(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm
+    ON users USING GIN (LOWER(email) gin_trgm_ops);
+
+-- Esclusione dei membri (NOT EXISTS su group_members per gruppo)
+CREATE INDEX IF NOT EXISTS idx_group_members_group_user
+    ON group_members (group_id, user_id);
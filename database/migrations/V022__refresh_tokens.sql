@@ -0,0 +1,23 @@
+-- =====================================================
+-- Refresh token con rotazione e rilevamento del riuso
+-- =====================================================
+-- Ogni refresh token emesso ha una riga (token_id = claim jti del JWT).
+-- Un login apre una "famiglia"; ogni POST /api/auth/refresh marca la riga
+-- come ruotata e ne inserisce una nuova nella stessa famiglia.
+-- Un token già ruotato presentato di nuovo revoca l'intera famiglia.
+-- Le righe scadute vengono eliminate da RefreshTokenCompactionJob.
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGSERIAL PRIMARY KEY,
+    token_id    VARCHAR(36) NOT NULL UNIQUE,
+    family_id   VARCHAR(36) NOT NULL,
+    user_id     BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    issued_at   TIMESTAMP NOT NULL,
+    expires_at  TIMESTAMP NOT NULL,
+    rotated_at  TIMESTAMP,
+    revoked_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
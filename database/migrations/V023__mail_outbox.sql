@@ -0,0 +1,25 @@
+-- =====================================================
+-- Outbox transazionale delle email
+-- =====================================================
+-- Le email vengono inserite nella stessa transazione della modifica che le
+-- genera (es. token di reset password) e spedite da MailOutboxDispatcher.
+-- next_attempt_at fa anche da lease: un messaggio preso in carico viene
+-- spostato avanti nel tempo, così un'altra istanza non lo riprende finché
+-- l'invio non è terminato (o il nodo è caduto).
+
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id               BIGSERIAL PRIMARY KEY,
+    recipient        VARCHAR(255) NOT NULL,
+    subject          VARCHAR(255) NOT NULL,
+    body             TEXT NOT NULL,
+    status           VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts         INT NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP NOT NULL,
+    last_error       TEXT,
+    created_at       TIMESTAMP NOT NULL DEFAULT NOW(),
+    sent_at          TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_pending
+    ON mail_outbox (next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,83 @@
+-- =====================================================
+-- Proiezione materializzata del calendario attività
+-- =====================================================
+-- Sostituisce la lettura della view activity_calendar + JOIN su
+-- activity_participants/group_members + SELECT DISTINCT.
+-- Una riga per (attività, utente partecipante) con conteggi, creatore e
+-- numero membri già calcolati: una richiesta mese/settimana diventa un
+-- singolo range scan sulla primary key (group_id, user_id, activity_date, ...).
+-- Le righe vengono ricostruite nella stessa transazione da
+-- ActivityCalendarRepository.refreshActivity / refreshGroup / updateCreator.
+
+CREATE TABLE IF NOT EXISTS activity_calendar_entries (
+    group_id         BIGINT NOT NULL REFERENCES groups(id) ON DELETE CASCADE,
+    user_id          BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    activity_date    DATE NOT NULL,
+    start_time       TIME NOT NULL,
+    activity_id      BIGINT NOT NULL REFERENCES activities(id) ON DELETE CASCADE,
+    end_time         TIME,
+    end_date         DATE,
+    day_of_week      SMALLINT NOT NULL,
+    title            VARCHAR(255) NOT NULL,
+    description      TEXT,
+    location_name    VARCHAR(255),
+    location_lat     NUMERIC(10, 7),
+    location_lng     NUMERIC(10, 7),
+    is_completed     BOOLEAN NOT NULL DEFAULT FALSE,
+    calendar_status  VARCHAR(20) NOT NULL,
+    confirmed_count  INTEGER NOT NULL DEFAULT 0,
+    maybe_count      INTEGER NOT NULL DEFAULT 0,
+    declined_count   INTEGER NOT NULL DEFAULT 0,
+    total_members    INTEGER NOT NULL DEFAULT 0,
+    created_by       BIGINT,
+    creator_name     VARCHAR(255),
+    creator_avatar   VARCHAR(1000),
+    PRIMARY KEY (group_id, user_id, activity_date, start_time, activity_id)
+);
+
+-- Refresh per attività (delete + insert) e aggiornamento profilo creatore
+CREATE INDEX IF NOT EXISTS idx_activity_calendar_entries_activity
+    ON activity_calendar_entries (activity_id);
+
+CREATE INDEX IF NOT EXISTS idx_activity_calendar_entries_created_by
+    ON activity_calendar_entries (created_by);
+
+-- Backfill dai dati esistenti (stessa SELECT di ActivityCalendarRepository.refresh*)
+INSERT INTO activity_calendar_entries (
+    group_id, user_id, activity_date, start_time, activity_id,
+    end_time, end_date, day_of_week, title, description,
+    location_name, location_lat, location_lng,
+    is_completed, calendar_status,
+    confirmed_count, maybe_count, declined_count, total_members,
+    created_by, creator_name, creator_avatar)
+SELECT a.group_id, gm.user_id, a.start_date, a.start_time, a.id,
+       a.end_time,
+       CASE WHEN a.end_date <> a.start_date THEN a.end_date END,
+       EXTRACT(ISODOW FROM a.start_date),
+       a.name, a.description,
+       COALESCE(a.event_location_name, a.trip_destination_name),
+       COALESCE(a.event_location_latitude, a.trip_destination_latitude),
+       COALESCE(a.event_location_longitude, a.trip_destination_longitude),
+       COALESCE(a.is_completed, FALSE),
+       CASE
+           WHEN COALESCE(a.is_completed, FALSE) THEN 'completed'
+           WHEN c.confirmed > 0 THEN 'confirmed'
+           WHEN c.declined = c.total THEN 'declined'
+           ELSE 'pending'
+       END,
+       c.confirmed, c.maybe, c.declined,
+       (SELECT COUNT(*) FROM group_members m WHERE m.group_id = a.group_id),
+       a.created_by, u.name, u.avatar_url
+FROM activities a
+JOIN activity_participants ap ON ap.activity_id = a.id
+JOIN group_members gm ON gm.id = ap.group_member_id
+CROSS JOIN LATERAL (
+    SELECT COUNT(*) FILTER (WHERE p.status = 'CONFIRMED') AS confirmed,
+           COUNT(*) FILTER (WHERE p.status = 'MAYBE')     AS maybe,
+           COUNT(*) FILTER (WHERE p.status = 'DECLINED')  AS declined,
+           COUNT(*)                                       AS total
+    FROM activity_participants p
+    WHERE p.activity_id = a.id
+) c
+LEFT JOIN users u ON u.id = a.created_by
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,68 @@
+-- =====================================================
+-- Calendario: un'occorrenza per giorno delle attività multi-day
+-- =====================================================
+-- Prima ogni attività aveva una sola riga su activity_date (= start_date):
+-- un hotel dal 28/01 al 03/02 non compariva nella vista di febbraio.
+-- Ora activity_calendar_entries contiene una riga per ogni giorno tra
+-- start_date ed end_date (occurrence_date), quindi il filtro per
+-- sovrapposizione con la finestra richiesta resta un range scan sulla
+-- primary key (group_id, user_id, occurrence_date, ...).
+-- Le timezone servono a calcolare gli Instant reali di inizio/fine.
+
+TRUNCATE activity_calendar_entries;
+
+ALTER TABLE activity_calendar_entries DROP CONSTRAINT IF EXISTS activity_calendar_entries_pkey;
+
+ALTER TABLE activity_calendar_entries
+    ADD COLUMN IF NOT EXISTS occurrence_date DATE NOT NULL,
+    ADD COLUMN IF NOT EXISTS start_timezone VARCHAR(50) NOT NULL DEFAULT 'Europe/Rome',
+    ADD COLUMN IF NOT EXISTS end_timezone VARCHAR(50) NOT NULL DEFAULT 'Europe/Rome';
+
+ALTER TABLE activity_calendar_entries
+    ADD PRIMARY KEY (group_id, user_id, occurrence_date, start_time, activity_id);
+
+-- Backfill (stessa SELECT di ActivityCalendarRepository.refresh*)
+INSERT INTO activity_calendar_entries (
+    group_id, user_id, occurrence_date, activity_date, start_time, activity_id,
+    end_time, end_date, day_of_week, start_timezone, end_timezone,
+    title, description,
+    location_name, location_lat, location_lng,
+    is_completed, calendar_status,
+    confirmed_count, maybe_count, declined_count, total_members,
+    created_by, creator_name, creator_avatar)
+SELECT a.group_id, gm.user_id, d.occurrence_date, a.start_date, a.start_time, a.id,
+       a.end_time,
+       CASE WHEN a.end_date <> a.start_date THEN a.end_date END,
+       EXTRACT(ISODOW FROM d.occurrence_date),
+       a.start_timezone, a.end_timezone,
+       a.name, a.description,
+       COALESCE(a.event_location_name, a.trip_destination_name),
+       COALESCE(a.event_location_latitude, a.trip_destination_latitude),
+       COALESCE(a.event_location_longitude, a.trip_destination_longitude),
+       COALESCE(a.is_completed, FALSE),
+       CASE
+           WHEN COALESCE(a.is_completed, FALSE) THEN 'completed'
+           WHEN c.confirmed > 0 THEN 'confirmed'
+           WHEN c.declined = c.total THEN 'declined'
+           ELSE 'pending'
+       END,
+       c.confirmed, c.maybe, c.declined,
+       (SELECT COUNT(*) FROM group_members m WHERE m.group_id = a.group_id),
+       a.created_by, u.name, u.avatar_url
+FROM activities a
+JOIN activity_participants ap ON ap.activity_id = a.id
+JOIN group_members gm ON gm.id = ap.group_member_id
+CROSS JOIN LATERAL (
+    SELECT COUNT(*) FILTER (WHERE p.status = 'CONFIRMED') AS confirmed,
+           COUNT(*) FILTER (WHERE p.status = 'MAYBE')     AS maybe,
+           COUNT(*) FILTER (WHERE p.status = 'DECLINED')  AS declined,
+           COUNT(*)                                       AS total
+    FROM activity_participants p
+    WHERE p.activity_id = a.id
+) c
+CROSS JOIN LATERAL (
+    SELECT generate_series(a.start_date, GREATEST(a.end_date, a.start_date), INTERVAL '1 day')::date
+        AS occurrence_date
+) d
+LEFT JOIN users u ON u.id = a.created_by
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,11 @@
+-- =====================================================
+-- Versione dei dati di gruppo per ETag / GET condizionali
+-- =====================================================
+-- data_version viene incrementato (GroupVersionService.bump) da ogni metodo
+-- che modifica gruppo, membri, attività, partecipanti o spese.
+-- Il polling del frontend invia If-None-Match: se la versione non è cambiata
+-- la risposta è 304 senza eseguire le query pesanti.
+-- Non mappato sull'entità Group: viene letto/scritto solo con query native,
+-- così un update dell'entità non sovrascrive mai un incremento concorrente.
+
+ALTER TABLE groups ADD COLUMN IF NOT EXISTS data_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,26 @@
+-- =====================================================
+-- Sequence con allocazione a blocchi per activity_expense_splits
+-- =====================================================
+-- Con IDENTITY Hibernate deve eseguire ogni INSERT subito per leggere l'id generato,
+-- quindi una spesa divisa tra 50 membri costava 50 round trip.
+-- Con una sequence INCREMENT BY 50 (allocationSize = 50, optimizer pooled) Hibernate
+-- assegna gli id in memoria e invia le INSERT in un unico batch JDBC.
+--
+-- Optimizer pooled: il valore letto dalla sequence è l'estremo superiore del blocco
+-- (valore - 49 .. valore), quindi la sequence parte da MAX(id) + 50: gli id esistenti
+-- restano invariati e il primo blocco inizia da MAX(id) + 1.
+-- Anche il default della colonna usa la nuova sequence, così eventuali INSERT SQL
+-- dirette non collidono con i blocchi riservati da Hibernate.
+
+DO $$
+DECLARE
+    next_start BIGINT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) + 50 INTO next_start FROM activity_expense_splits;
+    EXECUTE format('CREATE SEQUENCE IF NOT EXISTS activity_expense_splits_seq START WITH %s INCREMENT BY 50', next_start);
+END $$;
+
+-- Funziona sia con colonne SERIAL sia con GENERATED ... AS IDENTITY
+ALTER TABLE activity_expense_splits ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE activity_expense_splits ALTER COLUMN id SET DEFAULT nextval('activity_expense_splits_seq');
+ALTER SEQUENCE activity_expense_splits_seq OWNED BY activity_expense_splits.id;
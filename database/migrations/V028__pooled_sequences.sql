@@ -0,0 +1,29 @@
+-- =====================================================
+-- Sequence con allocazione a blocchi per le entità principali
+-- =====================================================
+-- Come V027 per activity_expense_splits: con IDENTITY ogni INSERT parte da sola
+-- (Hibernate deve leggere subito l'id generato) e il batch JDBC è disattivato.
+-- Creare un gruppo con 50 membri o un'attività con 30 partecipanti costava
+-- 30-50 INSERT sequenziali; con le sequence gli id vengono assegnati in memoria
+-- e le INSERT partono in batch ordinati per tabella.
+--
+-- Per ogni tabella: sequence <tabella>_seq INCREMENT BY 50 (allocationSize delle entità),
+-- che parte da MAX(id) + 50 perché l'optimizer pooled usa il valore letto come estremo
+-- superiore del blocco. Gli id esistenti non cambiano. Il default della colonna passa
+-- alla nuova sequence, così le INSERT SQL dirette non collidono con i blocchi di Hibernate.
+
+DO $$
+DECLARE
+    tbl TEXT;
+    next_start BIGINT;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['users', 'groups', 'group_members', 'activities', 'activity_participants', 'activity_expenses']
+    LOOP
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) + 50 FROM %I', tbl) INTO next_start;
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH %s INCREMENT BY 50', tbl || '_seq', next_start);
+        -- Funziona sia con colonne SERIAL sia con GENERATED ... AS IDENTITY
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tbl);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tbl, tbl || '_seq');
+        EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', tbl || '_seq', tbl);
+    END LOOP;
+END $$;
@@ -0,0 +1,23 @@
+-- =====================================================
+-- Outbox email: corpo generato all'invio per i messaggi con credenziali
+-- =====================================================
+-- Le email di reset password contenevano il link con il token in chiaro
+-- (in users resta solo l'hash SHA-256), quindi chi leggeva mail_outbox o un
+-- backup poteva prendere possesso dell'account. Ora questi messaggi salvano
+-- solo template e riferimento (id utente): il token viene generato dal
+-- dispatcher al momento dell'invio e non viene mai scritto nell'outbox.
+
+ALTER TABLE mail_outbox ADD COLUMN IF NOT EXISTS template VARCHAR(64);
+ALTER TABLE mail_outbox ADD COLUMN IF NOT EXISTS reference_id BIGINT;
+ALTER TABLE mail_outbox ALTER COLUMN body DROP NOT NULL;
+
+-- Un messaggio ha il corpo già pronto oppure un template
+ALTER TABLE mail_outbox DROP CONSTRAINT IF EXISTS chk_mail_outbox_content;
+ALTER TABLE mail_outbox ADD CONSTRAINT chk_mail_outbox_content
+    CHECK (body IS NOT NULL OR template IS NOT NULL);
+
+-- Elimina i link di reset già salvati in chiaro (in coda, inviati o falliti)
+-- e invalida i relativi token: chi non ha ancora usato il link ne richiede uno nuovo.
+UPDATE users SET password_reset_token_hash = NULL, password_reset_token_expires_at = NULL
+WHERE password_reset_token_hash IS NOT NULL;
+DELETE FROM mail_outbox WHERE body LIKE '%/reset-password?token=%';
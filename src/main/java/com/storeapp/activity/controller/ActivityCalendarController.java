@@ -1,21 +1,23 @@
 package com.storeapp.activity.controller;
 
-import com.storeapp.activity.dto.ActivityCalendarDto;
 import com.storeapp.activity.service.ActivityCalendarService;
+import com.storeapp.group.service.GroupVersionService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * REST Controller for Activity Calendar views
  * Base path: /api/groups/{groupId}/calendar
+ * All reads support If-None-Match against the group's data version (304 when unchanged).
  */
 @Path("/api/groups/{groupId}/calendar")
 @Produces(MediaType.APPLICATION_JSON)
@@ -26,6 +28,9 @@ public class ActivityCalendarController {
     @Inject
     ActivityCalendarService calendarService;
 
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     JsonWebToken jwt;
 
@@ -38,11 +43,10 @@ public class ActivityCalendarController {
      * GET /api/groups/{groupId}/calendar
      */
     @GET
-    public Response getAllActivities(@PathParam("groupId") Long groupId) {
+    public Response getAllActivities(@PathParam("groupId") Long groupId, @Context Request request) {
         Long userId = getCurrentUserId();
-        List<ActivityCalendarDto> activities = calendarService.getAllActivitiesCalendar(groupId, userId);
-        
-        return Response.ok(activities).build();
+        return groupVersions.conditionalGet(request, groupId, userId,
+                () -> calendarService.getAllActivitiesCalendar(groupId, userId));
     }
 
     /**
@@ -54,7 +58,8 @@ public class ActivityCalendarController {
     public Response getCalendarByRange(
             @PathParam("groupId") Long groupId,
             @QueryParam("start") String startDate,
-            @QueryParam("end") String endDate) {
+            @QueryParam("end") String endDate,
+            @Context Request request) {
         
         Long userId = getCurrentUserId();
         
@@ -62,10 +67,8 @@ public class ActivityCalendarController {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         
-        List<ActivityCalendarDto> activities = calendarService.getCalendarView(
-                groupId, start, end, userId);
-        
-        return Response.ok(activities).build();
+        return groupVersions.conditionalGet(request, groupId, userId,
+                () -> calendarService.getCalendarView(groupId, start, end, userId));
     }
 
     /**
@@ -77,13 +80,12 @@ public class ActivityCalendarController {
     public Response getCalendarByMonth(
             @PathParam("groupId") Long groupId,
             @PathParam("year") int year,
-            @PathParam("month") int month) {
+            @PathParam("month") int month,
+            @Context Request request) {
         
         Long userId = getCurrentUserId();
-        List<ActivityCalendarDto> activities = calendarService.getCalendarByMonth(
-                groupId, year, month, userId);
-        
-        return Response.ok(activities).build();
+        return groupVersions.conditionalGet(request, groupId, userId,
+                () -> calendarService.getCalendarByMonth(groupId, year, month, userId));
     }
 
     /**
@@ -94,7 +96,8 @@ public class ActivityCalendarController {
     @Path("/week")
     public Response getCalendarByWeek(
             @PathParam("groupId") Long groupId,
-            @QueryParam("start") String weekStart) {
+            @QueryParam("start") String weekStart,
+            @Context Request request) {
         
         Long userId = getCurrentUserId();
         
@@ -106,9 +109,8 @@ public class ActivityCalendarController {
             start = start.with(DayOfWeek.MONDAY);
         }
         
-        List<ActivityCalendarDto> activities = calendarService.getCalendarByWeek(
-                groupId, start, userId);
-        
-        return Response.ok(activities).build();
+        LocalDate monday = start;
+        return groupVersions.conditionalGet(request, groupId, userId,
+                () -> calendarService.getCalendarByWeek(groupId, monday, userId));
     }
 }
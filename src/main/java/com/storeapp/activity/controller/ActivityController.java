@@ -2,15 +2,20 @@ package com.storeapp.activity.controller;
 
 import com.storeapp.activity.dto.*;
 import com.storeapp.activity.entity.ParticipantStatus;
+import com.storeapp.activity.service.ActivityImportService;
 import com.storeapp.activity.service.ActivityService;
+import com.storeapp.group.service.GroupVersionService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -23,9 +28,17 @@ import java.util.List;
 @RolesAllowed("USER")
 public class ActivityController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
 		@Inject
 		ActivityService activityService;
 
+    @Inject
+    ActivityImportService activityImportService;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     JsonWebToken jwt;
 
@@ -111,6 +124,29 @@ public class ActivityController {
         return Response.ok(trip).build();
     }
 
+    /**
+     * Bulk import of Event and Trip activities (all or nothing)
+     * POST /api/groups/{groupId}/activities/bulk
+     *
+     * Body: JSON array or NDJSON stream of { "type": "EVENT"|"TRIP", "event": {...} | "trip": {...} }
+     * 201 with the created ids, or 400 with the per-item errors if any item is invalid.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    public Response importActivities(
+            @PathParam("groupId") Long groupId,
+            InputStream body) {
+
+        Long userId = getCurrentUserId();
+        List<ActivityImportItem> items = activityImportService.read(body);
+        ActivityImportResponse result = activityImportService.importActivities(groupId, items, userId);
+
+        return Response.status(result.invalid > 0 ? Response.Status.BAD_REQUEST : Response.Status.CREATED)
+                .entity(result)
+                .build();
+    }
+
     // ─────────────────────────────────────────────────────
     // GENERIC ENDPOINTS (DEPRECATED - for backward compatibility)
     // ─────────────────────────────────────────────────────
@@ -139,11 +175,10 @@ public class ActivityController {
      * GET /api/groups/{groupId}/activities
      */
     @GET
-    public Response getActivities(@PathParam("groupId") Long groupId) {
+    public Response getActivities(@PathParam("groupId") Long groupId, @Context Request request) {
         Long userId = getCurrentUserId();
-        List<Object> activities = activityService.getActivitiesByGroup(groupId, userId);
-        
-        return Response.ok(activities).build();
+        return groupVersions.conditionalGet(request, groupId, userId,
+                () -> activityService.getActivitiesByGroup(groupId, userId));
     }
 
     /**
@@ -253,6 +288,24 @@ public class ActivityController {
         return Response.noContent().build();
     }
 
+    /**
+     * Move a single activity between two neighbours (updates only the moved activity)
+     * PUT /api/groups/{groupId}/activities/{activityId}/move
+     * Body: {"afterActivityId": 3, "beforeActivityId": 7}  (null = top/bottom of the list)
+     */
+    @PUT
+    @Path("/{activityId}/move")
+    public Response moveActivity(
+            @PathParam("groupId") Long groupId,
+            @PathParam("activityId") Long activityId,
+            MoveRequest request) {
+        
+        Long userId = getCurrentUserId();
+        activityService.moveActivity(groupId, activityId, request.afterActivityId, request.beforeActivityId, userId);
+        
+        return Response.noContent().build();
+    }
+
     // =====================================================
     // PARTICIPANT OPERATIONS
     // =====================================================
@@ -396,6 +449,11 @@ public class ActivityController {
         public List<Long> activityIds;
     }
 
+    public static class MoveRequest {
+        public Long afterActivityId;
+        public Long beforeActivityId;
+    }
+
     public static class UpdateParticipantStatusRequest {
         public ParticipantStatus status;
         public String notes;
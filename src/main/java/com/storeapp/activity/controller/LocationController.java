@@ -0,0 +1,49 @@
+package com.storeapp.activity.controller;
+
+import com.storeapp.activity.dto.LocationDto;
+import com.storeapp.activity.service.LocationService;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * REST Controller for location search, backed by the configured geocoding provider
+ * Base path: /api/locations
+ *
+ * Clients should call these endpoints instead of the provider directly: results are
+ * cached server-side and requests respect the provider's rate limit.
+ * The calls are asynchronous and do not block a worker thread while waiting for the provider.
+ */
+@Path("/api/locations")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("USER")
+public class LocationController {
+
+    @Inject
+    LocationService locationService;
+
+    /**
+     * Search places by free text
+     * GET /api/locations/search?q=colosseo&limit=5
+     */
+    @GET
+    @Path("/search")
+    public Uni<List<LocationDto>> search(@QueryParam("q") String query, @QueryParam("limit") Integer limit) {
+        return Uni.createFrom().completionStage(() -> locationService.search(query, limit));
+    }
+
+    /**
+     * Get a place by the placeId returned from search
+     * GET /api/locations/{placeId}
+     */
+    @GET
+    @Path("/{placeId}")
+    public Uni<LocationDto> lookup(@PathParam("placeId") String placeId) {
+        return Uni.createFrom().completionStage(() -> locationService.lookup(placeId))
+                .map(place -> place.orElseThrow(() -> new NotFoundException("Luogo " + placeId + " non trovato")));
+    }
+}
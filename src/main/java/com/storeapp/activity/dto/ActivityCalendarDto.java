@@ -1,24 +1,31 @@
 package com.storeapp.activity.dto;
 
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 /**
  * DTO per il calendario delle attività
- * Mappato dalla view activity_calendar
+ * Mappato dalla proiezione activity_calendar_entries
  */
 public class ActivityCalendarDto {
 
     public Long id;
     public Long groupId;
     public String title;
-    public LocalDateTime start;
+    public LocalDateTime start; // slot dell'occorrenza nel giorno occurrenceDate
     public LocalDateTime end;
+    public Instant startInstant; // inizio reale dell'attività (startTimezone)
+    public Instant endInstant; // fine reale dell'attività (endTimezone)
+    public String startTimezone;
+    public String endTimezone;
     public DayOfWeek dayOfWeek;
     public LocalDate activityDate;
     public LocalDate endDate; // null se attività single-day
+    public LocalDate occurrenceDate; // giorno dell'occorrenza (multi-day: un'occorrenza per giorno)
+    public Boolean multiDay;
     public String calendarStatus; // completed, confirmed, declined, pending
     public String description;
     public String locationName;
@@ -0,0 +1,20 @@
+package com.storeapp.activity.dto;
+
+/**
+ * Elemento di un import massivo di attività (POST /api/groups/{groupId}/activities/bulk).
+ * In base a type deve essere valorizzato event oppure trip, con lo stesso formato
+ * delle POST /events e /trips.
+ */
+public class ActivityImportItem {
+
+    public enum Type {
+        EVENT,
+        TRIP
+    }
+
+    public Type type;
+
+    public EventRequest event;
+
+    public TripRequest trip;
+}
@@ -0,0 +1,21 @@
+package com.storeapp.activity.dto;
+
+import java.util.List;
+
+/**
+ * Risposta dell'import massivo. L'import è tutto o niente: se anche un solo elemento
+ * non è valido nessuna attività viene creata e items riporta gli errori di ciascuno.
+ */
+public class ActivityImportResponse {
+    public int created;
+    public int invalid;
+    public List<ActivityImportResultDto> items;
+
+    public ActivityImportResponse() {}
+
+    public ActivityImportResponse(int created, int invalid, List<ActivityImportResultDto> items) {
+        this.created = created;
+        this.invalid = invalid;
+        this.items = items;
+    }
+}
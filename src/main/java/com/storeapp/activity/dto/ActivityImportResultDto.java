@@ -0,0 +1,15 @@
+package com.storeapp.activity.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Esito di un singolo elemento dell'import, nello stesso ordine della richiesta
+ */
+public class ActivityImportResultDto {
+    public int index;
+    public ActivityImportItem.Type type;
+    public String name;
+    public Long activityId;                          // valorizzato solo se l'import è andato a buon fine
+    public List<String> errors = new ArrayList<>();  // vuota se l'elemento è valido
+}
@@ -69,7 +69,8 @@ public class EventRequest {
     // Common fields
     public Boolean isCompleted = false;
 
-    public Integer displayOrder = 0;
+    /** null = in fondo alla lista in creazione, invariato in modifica */
+    public Integer displayOrder;
 
     public BigDecimal totalCost;
 
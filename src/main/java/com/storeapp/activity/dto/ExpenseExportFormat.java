@@ -0,0 +1,30 @@
+package com.storeapp.activity.dto;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Formato dell'export delle spese (query param {@code format})
+ */
+public enum ExpenseExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    public final String mediaType;
+    public final String extension;
+
+    ExpenseExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public static ExpenseExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid export format: " + value + " (expected csv or ndjson)");
+        }
+    }
+}
@@ -13,4 +13,6 @@ public class GroupExpenseSettlementDto {
     public List<MemberBalanceDto> balances;          // bilancio per ogni membro
     public List<SettlementTransactionDto> settlements; // transazioni ottimizzate
     public int transactionCount;       // = settlements.size()
+    public String solver;              // greedy | optimal | greedy-fallback (budget esaurito) | greedy-unbalanced (saldi a somma non nulla)
+    public double solverTimeMs;        // tempo reale (wall clock) speso dal solver, non tempo CPU
 }
@@ -83,7 +83,8 @@ public class TripRequest {
     // Common fields
     public Boolean isCompleted = false;
 
-    public Integer displayOrder = 0;
+    /** null = in fondo alla lista in creazione, invariato in modifica */
+    public Integer displayOrder;
 
     public BigDecimal totalCost;
 
@@ -36,7 +36,8 @@ import java.util.Set;
 public abstract class Activity extends PanacheEntityBase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @SequenceGenerator(name = "activities_seq", sequenceName = "activities_seq", allocationSize = 50)
     public Long id;
 
     @NotNull
@@ -93,7 +94,12 @@ public abstract class Activity extends PanacheEntityBase {
     @Column(name = "display_order")
     public Integer displayOrder = 0;
 
-    @Column(name = "total_cost", precision = 10, scale = 2)
+    /**
+     * Totale delle spese. Impostato all'inserimento, poi modificato solo con
+     * ActivityRepository.addToTotalCost (UPDATE atomico): non è aggiornabile dall'entità,
+     * così il flush di un'attività letta prima di una spesa concorrente non sovrascrive il totale.
+     */
+    @Column(name = "total_cost", precision = 10, scale = 2, updatable = false)
     public BigDecimal totalCost = BigDecimal.ZERO;
 
     // Audit fields
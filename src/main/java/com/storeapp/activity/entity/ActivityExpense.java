@@ -20,7 +20,8 @@ import java.util.Set;
 public class ActivityExpense extends PanacheEntityBase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_expenses_seq")
+    @SequenceGenerator(name = "activity_expenses_seq", sequenceName = "activity_expenses_seq", allocationSize = 50)
     public Long id;
 
     @NotNull
@@ -18,8 +18,13 @@ import java.time.LocalDateTime;
 )
 public class ActivityExpenseSplit extends PanacheEntityBase {
 
+    /**
+     * Id da sequence con allocazione a blocchi (V027): a differenza di IDENTITY permette
+     * a Hibernate di inserire le split di una spesa in un unico batch JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_expense_splits_seq")
+    @SequenceGenerator(name = "activity_expense_splits_seq", sequenceName = "activity_expense_splits_seq", allocationSize = 50)
     public Long id;
 
     @NotNull
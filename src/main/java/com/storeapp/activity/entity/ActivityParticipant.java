@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class ActivityParticipant extends PanacheEntityBase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_participants_seq")
+    @SequenceGenerator(name = "activity_participants_seq", sequenceName = "activity_participants_seq", allocationSize = 50)
     public Long id;
 
     @NotNull
@@ -1,9 +1,13 @@
 package com.storeapp.activity.entity;
 
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.Type;
 
 import java.time.LocalTime;
+import java.util.Map;
 
 /**
  * Event - Activity at a single location
@@ -30,11 +34,20 @@ public class Event extends Activity {
         @AttributeOverride(name = "address", column = @Column(name = "event_location_address")),
         @AttributeOverride(name = "latitude", column = @Column(name = "event_location_latitude")),
         @AttributeOverride(name = "longitude", column = @Column(name = "event_location_longitude")),
-        @AttributeOverride(name = "placeId", column = @Column(name = "event_location_place_id")),
-        @AttributeOverride(name = "metadata", column = @Column(name = "event_location_metadata"))
+        @AttributeOverride(name = "placeId", column = @Column(name = "event_location_place_id"))
     })
     public Location location;
 
+    /**
+     * Provider metadata of the location (JSONB).
+     * Lazy: not selected nor parsed by list queries, loaded on first access (detail endpoints).
+     */
+    @Type(JsonBinaryType.class)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("locationMetadata")
+    @Column(name = "event_location_metadata", columnDefinition = "jsonb")
+    public Map<String, Object> locationMetadata;
+
     // Event-specific fields with event_ prefix for SINGLE_TABLE
     @Enumerated(EnumType.STRING)
     @Column(name = "event_category", nullable = false, length = 50)
@@ -0,0 +1,28 @@
+package com.storeapp.activity.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totali di gruppo del ledger spese (somma delle split e numero di spese con almeno una split).
+ */
+@Entity
+@Table(name = "group_expense_ledgers")
+public class GroupExpenseLedger extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "group_id")
+    public Long groupId;
+
+    @Column(name = "total_expenses", nullable = false, precision = 12, scale = 2)
+    public BigDecimal totalExpenses = BigDecimal.ZERO;
+
+    @Column(name = "expense_count", nullable = false)
+    public long expenseCount;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
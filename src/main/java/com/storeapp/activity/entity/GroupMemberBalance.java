@@ -0,0 +1,42 @@
+package com.storeapp.activity.entity;
+
+import com.storeapp.group.entity.GroupMember;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Riga del ledger dei bilanci: totali pagati/dovuti di un membro su tutte le spese del gruppo.
+ * Mantenuta a delta dalle scritture sulle spese, non dalle letture.
+ */
+@Entity
+@Table(name = "group_member_balances")
+public class GroupMemberBalance extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "group_member_id")
+    public Long groupMemberId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_member_id")
+    public GroupMember groupMember;
+
+    @Column(name = "group_id", nullable = false)
+    public Long groupId;
+
+    @Column(name = "total_paid", nullable = false, precision = 12, scale = 2)
+    public BigDecimal totalPaid = BigDecimal.ZERO;
+
+    @Column(name = "total_owed", nullable = false, precision = 12, scale = 2)
+    public BigDecimal totalOwed = BigDecimal.ZERO;
+
+    /** Numero di split che concorrono al bilancio (0 = membro senza spese) */
+    @Column(name = "split_count", nullable = false)
+    public long splitCount;
+
+    @Column(name = "updated_at", nullable = false)
+    public LocalDateTime updatedAt;
+}
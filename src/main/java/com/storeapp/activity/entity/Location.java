@@ -1,20 +1,22 @@
 package com.storeapp.activity.entity;
 
-import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Size;
-import org.hibernate.annotations.Type;
 
 import java.math.BigDecimal;
-import java.util.Map;
 
 /**
  * Location embedded class (value object)
  * Used by Event (single location) and Trip (origin/destination)
  * Provider is configured globally in application.properties, not stored per location
+ *
+ * The provider metadata (JSONB) is not part of the embeddable: Hibernate cannot lazy-load
+ * attributes of an embeddable, so it lives on the owning entity as a lazy attribute
+ * (Event.locationMetadata, Trip.originMetadata/destinationMetadata) and is only read by
+ * the detail endpoints.
  */
 @Embeddable
 public class Location {
@@ -41,10 +43,6 @@ public class Location {
     @Column(name = "location_place_id", length = 500)
     public String placeId;
 
-    @Type(JsonBinaryType.class)
-    @Column(name = "location_metadata", columnDefinition = "jsonb")
-    public Map<String, Object> metadata;
-
     // Constructors
     public Location() {
     }
@@ -1,7 +1,12 @@
 package com.storeapp.activity.entity;
 
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.Type;
+
+import java.util.Map;
 
 /**
  * Trip - Travel activity with origin and destination
@@ -27,8 +32,7 @@ public class Trip extends Activity {
         @AttributeOverride(name = "address", column = @Column(name = "trip_origin_address")),
         @AttributeOverride(name = "latitude", column = @Column(name = "trip_origin_latitude")),
         @AttributeOverride(name = "longitude", column = @Column(name = "trip_origin_longitude")),
-        @AttributeOverride(name = "placeId", column = @Column(name = "trip_origin_place_id")),
-        @AttributeOverride(name = "metadata", column = @Column(name = "trip_origin_metadata"))
+        @AttributeOverride(name = "placeId", column = @Column(name = "trip_origin_place_id"))
     })
     public Location origin;
 
@@ -39,11 +43,27 @@ public class Trip extends Activity {
         @AttributeOverride(name = "address", column = @Column(name = "trip_destination_address")),
         @AttributeOverride(name = "latitude", column = @Column(name = "trip_destination_latitude")),
         @AttributeOverride(name = "longitude", column = @Column(name = "trip_destination_longitude")),
-        @AttributeOverride(name = "placeId", column = @Column(name = "trip_destination_place_id")),
-        @AttributeOverride(name = "metadata", column = @Column(name = "trip_destination_metadata"))
+        @AttributeOverride(name = "placeId", column = @Column(name = "trip_destination_place_id"))
     })
     public Location destination;
 
+    /**
+     * Provider metadata of origin and destination (JSONB).
+     * Lazy and in the same fetch group: both documents are loaded together by one
+     * SELECT on first access (detail endpoints), never by list queries.
+     */
+    @Type(JsonBinaryType.class)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("locationMetadata")
+    @Column(name = "trip_origin_metadata", columnDefinition = "jsonb")
+    public Map<String, Object> originMetadata;
+
+    @Type(JsonBinaryType.class)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("locationMetadata")
+    @Column(name = "trip_destination_metadata", columnDefinition = "jsonb")
+    public Map<String, Object> destinationMetadata;
+
     // Trip-specific fields with trip_ prefix for SINGLE_TABLE
     @Enumerated(EnumType.STRING)
     @Column(name = "trip_transport_mode", nullable = false, length = 50)
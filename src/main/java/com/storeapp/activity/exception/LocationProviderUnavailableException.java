@@ -0,0 +1,18 @@
+package com.storeapp.activity.exception;
+
+import com.storeapp.shared.exception.BusinessException;
+
+/**
+ * Il servizio di geolocalizzazione non ha risposto, ha risposto con un errore
+ * oppure ha già troppe richieste in coda (limite di frequenza del provider)
+ */
+public class LocationProviderUnavailableException extends BusinessException {
+
+    public LocationProviderUnavailableException(String message) {
+        super(message, "LOCATION_PROVIDER_UNAVAILABLE", 503);
+    }
+
+    public LocationProviderUnavailableException(String message, Throwable cause) {
+        super(message, "LOCATION_PROVIDER_UNAVAILABLE", 503, cause);
+    }
+}
@@ -18,12 +18,26 @@ public class EventMapper {
     LocationMapper locationMapper;
 
     /**
-     * Convert Event entity to EventDto
+     * Convert Event entity to EventDto (detail views: includes the lazy location metadata)
      */
     public EventDto toDto(Event entity) {
         if (entity == null) {
             return null;
         }
+        EventDto dto = toDto(entity, entity.getConfirmedCount());
+        dto.location = locationMapper.toDto(entity.location, entity.locationMetadata);
+        return dto;
+    }
+
+    /**
+     * Convert Event entity to EventDto with a precomputed confirmed participant count
+     * (list views: avoids initializing the lazy participants set of each activity
+     * and does not touch the lazy location metadata)
+     */
+    public EventDto toDto(Event entity, long confirmedCount) {
+        if (entity == null) {
+            return null;
+        }
 
         EventDto dto = new EventDto();
         dto.id = entity.id;
@@ -55,7 +69,7 @@ public class EventMapper {
         dto.createdBy = entity.createdBy != null ? entity.createdBy.getId() : null;
 
         // Participant statistics
-        dto.confirmedCount = entity.getConfirmedCount();
+        dto.confirmedCount = confirmedCount;
 
         return dto;
     }
@@ -102,7 +116,7 @@ public class EventMapper {
         entity.location.latitude = request.locationLatitude;
         entity.location.longitude = request.locationLongitude;
         entity.location.placeId = request.locationPlaceId;
-        entity.location.metadata = request.locationMetadata;
+        entity.locationMetadata = request.locationMetadata;
 
         // Event-specific fields
         entity.category = request.category;
@@ -112,7 +126,9 @@ public class EventMapper {
 
         // Common fields
         entity.isCompleted = request.isCompleted;
-        entity.displayOrder = request.displayOrder;
+        if (request.displayOrder != null) {
+            entity.displayOrder = request.displayOrder;
+        }
         entity.totalCost = request.totalCost != null ? request.totalCost : java.math.BigDecimal.ZERO;
     }
 }
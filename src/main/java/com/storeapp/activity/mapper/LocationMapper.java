@@ -12,9 +12,17 @@ import jakarta.enterprise.context.ApplicationScoped;
 public class LocationMapper {
 
     /**
-     * Convert Location entity to LocationDto
+     * Convert Location entity to LocationDto (without provider metadata, as in list views)
      */
     public LocationDto toDto(Location entity) {
+        return toDto(entity, null);
+    }
+
+    /**
+     * Convert Location entity to LocationDto with the provider metadata
+     * stored on the owning activity (detail views)
+     */
+    public LocationDto toDto(Location entity, java.util.Map<String, Object> metadata) {
         if (entity == null) {
             return null;
         }
@@ -25,7 +33,7 @@ public class LocationMapper {
         dto.latitude = entity.latitude;
         dto.longitude = entity.longitude;
         dto.placeId = entity.placeId;
-        dto.metadata = entity.metadata;
+        dto.metadata = metadata;
         return dto;
     }
 
@@ -43,7 +51,6 @@ public class LocationMapper {
         entity.latitude = dto.latitude;
         entity.longitude = dto.longitude;
         entity.placeId = dto.placeId;
-        entity.metadata = dto.metadata;
         return entity;
     }
 
@@ -60,6 +67,5 @@ public class LocationMapper {
         entity.latitude = dto.latitude;
         entity.longitude = dto.longitude;
         entity.placeId = dto.placeId;
-        entity.metadata = dto.metadata;
     }
 }
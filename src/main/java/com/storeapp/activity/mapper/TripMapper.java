@@ -18,12 +18,27 @@ public class TripMapper {
     LocationMapper locationMapper;
 
     /**
-     * Convert Trip entity to TripDto
+     * Convert Trip entity to TripDto (detail views: includes the lazy location metadata)
      */
     public TripDto toDto(Trip entity) {
         if (entity == null) {
             return null;
         }
+        TripDto dto = toDto(entity, entity.getConfirmedCount());
+        dto.origin = locationMapper.toDto(entity.origin, entity.originMetadata);
+        dto.destination = locationMapper.toDto(entity.destination, entity.destinationMetadata);
+        return dto;
+    }
+
+    /**
+     * Convert Trip entity to TripDto with a precomputed confirmed participant count
+     * (list views: avoids initializing the lazy participants set of each activity
+     * and does not touch the lazy location metadata)
+     */
+    public TripDto toDto(Trip entity, long confirmedCount) {
+        if (entity == null) {
+            return null;
+        }
 
         TripDto dto = new TripDto();
         dto.id = entity.id;
@@ -55,7 +70,7 @@ public class TripMapper {
         dto.createdBy = entity.createdBy != null ? entity.createdBy.getId() : null;
 
         // Participant statistics
-        dto.confirmedCount = entity.getConfirmedCount();
+        dto.confirmedCount = confirmedCount;
 
         return dto;
     }
@@ -99,7 +114,7 @@ public class TripMapper {
         entity.origin.latitude = request.originLatitude;
         entity.origin.longitude = request.originLongitude;
         entity.origin.placeId = request.originPlaceId;
-        entity.origin.metadata = request.originMetadata;
+        entity.originMetadata = request.originMetadata;
 
         // Destination location
         if (entity.destination == null) {
@@ -110,7 +125,7 @@ public class TripMapper {
         entity.destination.latitude = request.destinationLatitude;
         entity.destination.longitude = request.destinationLongitude;
         entity.destination.placeId = request.destinationPlaceId;
-        entity.destination.metadata = request.destinationMetadata;
+        entity.destinationMetadata = request.destinationMetadata;
 
         // Trip-specific fields
         entity.transportMode = request.transportMode;
@@ -118,7 +133,9 @@ public class TripMapper {
 
         // Common fields
         entity.isCompleted = request.isCompleted;
-        entity.displayOrder = request.displayOrder;
+        if (request.displayOrder != null) {
+            entity.displayOrder = request.displayOrder;
+        }
         entity.totalCost = request.totalCost != null ? request.totalCost : java.math.BigDecimal.ZERO;
     }
 }
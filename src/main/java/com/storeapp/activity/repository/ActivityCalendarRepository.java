@@ -6,41 +6,106 @@ import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
- * Repository for querying activity_calendar view
+ * Repository per la proiezione materializzata activity_calendar_entries.
+ * Una riga per (attività, utente partecipante, giorno) con conteggi e creatore già calcolati:
+ * le attività multi-day hanno un'occorrenza per ogni giorno tra start_date ed end_date.
+ * Le letture sono un range scan sulla primary key (group_id, user_id, occurrence_date, ...),
+ * senza DISTINCT né aggregazioni per riga.
  */
 @ApplicationScoped
 public class ActivityCalendarRepository {
 
+    /** Default di Activity.startTimezone/endTimezone, usato se la timezone salvata non è valida */
+    private static final ZoneId DEFAULT_ZONE = ZoneId.of("Europe/Rome");
+
+    private static final String SELECT_COLUMNS = """
+            SELECT
+                ce.activity_id, ce.group_id, ce.title, ce.description,
+                ce.start_time, ce.end_time,
+                ce.day_of_week, ce.activity_date, ce.end_date,
+                ce.occurrence_date, ce.start_timezone, ce.end_timezone,
+                ce.location_name, ce.location_lat, ce.location_lng,
+                ce.is_completed, ce.calendar_status,
+                ce.confirmed_count, ce.maybe_count, ce.declined_count, ce.total_members,
+                ce.creator_name, ce.creator_avatar
+            FROM activity_calendar_entries ce
+        """;
+
+    /**
+     * Ricostruzione delle righe: stessa SELECT del backfill in V025.
+     * Il filtro (per attività o per gruppo) viene aggiunto in coda.
+     */
+    private static final String INSERT_ENTRIES = """
+            INSERT INTO activity_calendar_entries (
+                group_id, user_id, occurrence_date, activity_date, start_time, activity_id,
+                end_time, end_date, day_of_week, start_timezone, end_timezone,
+                title, description,
+                location_name, location_lat, location_lng,
+                is_completed, calendar_status,
+                confirmed_count, maybe_count, declined_count, total_members,
+                created_by, creator_name, creator_avatar)
+            SELECT a.group_id, gm.user_id, d.occurrence_date, a.start_date, a.start_time, a.id,
+                   a.end_time,
+                   CASE WHEN a.end_date <> a.start_date THEN a.end_date END,
+                   EXTRACT(ISODOW FROM d.occurrence_date),
+                   a.start_timezone, a.end_timezone,
+                   a.name, a.description,
+                   COALESCE(a.event_location_name, a.trip_destination_name),
+                   COALESCE(a.event_location_latitude, a.trip_destination_latitude),
+                   COALESCE(a.event_location_longitude, a.trip_destination_longitude),
+                   COALESCE(a.is_completed, FALSE),
+                   CASE
+                       WHEN COALESCE(a.is_completed, FALSE) THEN 'completed'
+                       WHEN c.confirmed > 0 THEN 'confirmed'
+                       WHEN c.declined = c.total THEN 'declined'
+                       ELSE 'pending'
+                   END,
+                   c.confirmed, c.maybe, c.declined,
+                   (SELECT COUNT(*) FROM group_members m WHERE m.group_id = a.group_id),
+                   a.created_by, u.name, u.avatar_url
+            FROM activities a
+            JOIN activity_participants ap ON ap.activity_id = a.id
+            JOIN group_members gm ON gm.id = ap.group_member_id
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) FILTER (WHERE p.status = 'CONFIRMED') AS confirmed,
+                       COUNT(*) FILTER (WHERE p.status = 'MAYBE')     AS maybe,
+                       COUNT(*) FILTER (WHERE p.status = 'DECLINED')  AS declined,
+                       COUNT(*)                                       AS total
+                FROM activity_participants p
+                WHERE p.activity_id = a.id
+            ) c
+            CROSS JOIN LATERAL (
+                SELECT generate_series(a.start_date, GREATEST(a.end_date, a.start_date), INTERVAL '1 day')::date
+                    AS occurrence_date
+            ) d
+            LEFT JOIN users u ON u.id = a.created_by
+        """;
+
     @Inject
     EntityManager entityManager;
 
     /**
-     * Get calendar view for a date range (filtered by user participation)
+     * Get calendar view for a date range (filtered by user participation).
+     * Returns one entry per day of overlap: a multi-day activity started before
+     * the window appears on every day of the window it covers.
      */
     @SuppressWarnings("unchecked")
     public List<ActivityCalendarDto> findByGroupAndDateRange(Long groupId, LocalDate startDate, LocalDate endDate, Long userId) {
-        String sql = """
-            SELECT DISTINCT
-                ac.id, ac.group_id, ac.title, ac.description,
-                ac.start_time, ac.end_time,
-                ac.day_of_week, ac.activity_date, ac.end_date,
-                ac.location_name, ac.location_lat, ac.location_lng,
-                ac.is_completed, ac.calendar_status,
-                ac.confirmed_count, ac.maybe_count, ac.declined_count, ac.total_members,
-                ac.creator_name, ac.creator_avatar
-            FROM activity_calendar ac
-            INNER JOIN activity_participants ap ON ac.id = ap.activity_id
-            INNER JOIN group_members gm ON ap.group_member_id = gm.id
-            WHERE ac.group_id = :groupId
-            AND ac.activity_date BETWEEN :startDate AND :endDate
-            AND gm.user_id = :userId
-            ORDER BY ac.activity_date, ac.start_time
+        String sql = SELECT_COLUMNS + """
+            WHERE ce.group_id = :groupId
+            AND ce.user_id = :userId
+            AND ce.occurrence_date BETWEEN :startDate AND :endDate
+            ORDER BY ce.occurrence_date, ce.start_time
         """;
 
         Query query = entityManager.createNativeQuery(sql);
@@ -57,25 +122,16 @@ public class ActivityCalendarRepository {
     }
 
     /**
-     * Get all activities for a group (no date filtering, filtered by user participation)
+     * Get all activities for a group (no date filtering, filtered by user participation).
+     * One entry per activity: only the first-day occurrence is returned.
      */
     @SuppressWarnings("unchecked")
     public List<ActivityCalendarDto> findByGroup(Long groupId, Long userId) {
-        String sql = """
-            SELECT DISTINCT
-                ac.id, ac.group_id, ac.title, ac.description,
-                ac.start_time, ac.end_time,
-                ac.day_of_week, ac.activity_date, ac.end_date,
-                ac.location_name, ac.location_lat, ac.location_lng,
-                ac.is_completed, ac.calendar_status,
-                ac.confirmed_count, ac.maybe_count, ac.declined_count, ac.total_members,
-                ac.creator_name, ac.creator_avatar
-            FROM activity_calendar ac
-            INNER JOIN activity_participants ap ON ac.id = ap.activity_id
-            INNER JOIN group_members gm ON ap.group_member_id = gm.id
-            WHERE ac.group_id = :groupId
-            AND gm.user_id = :userId
-            ORDER BY ac.activity_date, ac.start_time
+        String sql = SELECT_COLUMNS + """
+            WHERE ce.group_id = :groupId
+            AND ce.user_id = :userId
+            AND ce.occurrence_date = ce.activity_date
+            ORDER BY ce.occurrence_date, ce.start_time
         """;
 
         Query query = entityManager.createNativeQuery(sql);
@@ -89,6 +145,66 @@ public class ActivityCalendarRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Ricostruisce le righe di una singola attività (dati, partecipanti, conteggi).
+     * Da chiamare nella transazione che modifica l'attività o i suoi partecipanti.
+     * Se l'attività è stata eliminata le righe spariscono per ON DELETE CASCADE.
+     */
+    public void refreshActivity(Long activityId) {
+        entityManager.flush();
+        entityManager.createNativeQuery("DELETE FROM activity_calendar_entries WHERE activity_id = :activityId")
+                .setParameter("activityId", activityId)
+                .executeUpdate();
+        entityManager.createNativeQuery(INSERT_ENTRIES + " WHERE a.id = :activityId")
+                .setParameter("activityId", activityId)
+                .executeUpdate();
+    }
+
+    /**
+     * Ricostruisce tutte le righe di un gruppo.
+     * Usato sui cambi di membership (total_members, partecipazioni rimosse a cascata):
+     * operazione rara e limitata a MAX_MEMBERS_PER_GROUP membri.
+     */
+    public void refreshGroup(Long groupId) {
+        entityManager.flush();
+        entityManager.createNativeQuery("DELETE FROM activity_calendar_entries WHERE group_id = :groupId")
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+        entityManager.createNativeQuery(INSERT_ENTRIES + " WHERE a.group_id = :groupId")
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+    }
+
+    /**
+     * Aggiorna solo total_members dopo l'aggiunta o la rimozione di membri
+     * che non partecipano ad attività (le altre colonne restano valide).
+     */
+    public int updateTotalMembers(Long groupId) {
+        entityManager.flush();
+        return entityManager.createNativeQuery("""
+                UPDATE activity_calendar_entries
+                SET total_members = (SELECT COUNT(*) FROM group_members m WHERE m.group_id = :groupId)
+                WHERE group_id = :groupId
+                """)
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+    }
+
+    /**
+     * Propaga nome e avatar aggiornati dell'utente alle attività da lui create.
+     */
+    public int updateCreator(Long userId, String name, String avatarUrl) {
+        return entityManager.createNativeQuery("""
+                UPDATE activity_calendar_entries
+                SET creator_name = :name, creator_avatar = :avatarUrl
+                WHERE created_by = :userId
+                """)
+                .setParameter("name", name)
+                .setParameter("avatarUrl", avatarUrl)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
     /**
      * Map database result to ActivityCalendarDto
      */
@@ -101,19 +217,22 @@ public class ActivityCalendarRepository {
         dto.title = (String) row[i++];
         dto.description = (String) row[i++];
         
-        // start and end are LocalDateTime in DTO
-        dto.start = row[i++] != null ? ((java.sql.Time) row[i-1]).toLocalTime().atDate(LocalDate.now()) : null;
-        dto.end = row[i++] != null ? ((java.sql.Time) row[i-1]).toLocalTime().atDate(LocalDate.now()) : null;
+        LocalTime startTime = toLocalTime(row[i++]);
+        LocalTime endTime = toLocalTime(row[i++]);
         
-        // day_of_week is a number (1-7) from EXTRACT(ISODOW)
+        // day_of_week is a number (1-7) from EXTRACT(ISODOW) of the occurrence day
         Object dayOfWeekObj = row[i++];
         if (dayOfWeekObj != null) {
             int dayOfWeekNum = ((Number) dayOfWeekObj).intValue();
             dto.dayOfWeek = DayOfWeek.of(dayOfWeekNum);
         }
         
-        dto.activityDate = row[i++] != null ? ((java.sql.Date) row[i-1]).toLocalDate() : null;
-        dto.endDate = row[i++] != null ? ((java.sql.Date) row[i-1]).toLocalDate() : null;
+        dto.activityDate = toLocalDate(row[i++]);
+        dto.endDate = toLocalDate(row[i++]);
+        dto.occurrenceDate = toLocalDate(row[i++]);
+        dto.startTimezone = (String) row[i++];
+        dto.endTimezone = (String) row[i++];
+        applyOccurrence(dto, startTime, endTime);
         
         dto.locationName = (String) row[i++];
         dto.locationLat = row[i++] != null ? ((Number) row[i-1]).doubleValue() : null;
@@ -132,4 +251,54 @@ public class ActivityCalendarRepository {
         
         return dto;
     }
+
+    /**
+     * Calcola lo slot dell'occorrenza e gli istanti reali dell'attività.
+     * start/end: il primo giorno parte da startTime, quelli successivi da mezzanotte;
+     * l'ultimo giorno termina a endTime, quelli precedenti alla mezzanotte successiva.
+     * startInstant/endInstant: inizio e fine dell'intera attività nelle rispettive timezone
+     * (come Activity.getStartInstant/getEndInstant).
+     * Richiede activityDate, occurrenceDate e le timezone già valorizzati sul DTO.
+     */
+    static void applyOccurrence(ActivityCalendarDto dto, LocalTime startTime, LocalTime endTime) {
+        LocalDate firstDay = dto.activityDate;
+        LocalDate lastDay = dto.endDate != null ? dto.endDate : firstDay;
+        LocalDate day = dto.occurrenceDate != null ? dto.occurrenceDate : firstDay;
+
+        dto.multiDay = lastDay.isAfter(firstDay);
+        dto.start = day.equals(firstDay) && startTime != null ? day.atTime(startTime) : day.atStartOfDay();
+        dto.end = day.equals(lastDay) && endTime != null ? day.atTime(endTime) : day.plusDays(1).atStartOfDay();
+
+        if (startTime != null) {
+            dto.startInstant = ZonedDateTime.of(firstDay, startTime, zone(dto.startTimezone)).toInstant();
+        }
+        if (endTime != null) {
+            dto.endInstant = ZonedDateTime.of(lastDay, endTime, zone(dto.endTimezone)).toInstant();
+        }
+    }
+
+    private static ZoneId zone(String timezone) {
+        if (timezone == null) {
+            return DEFAULT_ZONE;
+        }
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            return DEFAULT_ZONE;
+        }
+    }
+
+    private static LocalTime toLocalTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof LocalTime time ? time : ((java.sql.Time) value).toLocalTime();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof LocalDate date ? date : ((java.sql.Date) value).toLocalDate();
+    }
 }
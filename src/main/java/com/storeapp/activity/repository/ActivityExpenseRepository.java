@@ -20,6 +20,24 @@ public class ActivityExpenseRepository implements PanacheRepository<ActivityExpe
         return list("activity.id = ?1 ORDER BY createdAt DESC", activityId);
     }
 
+    /**
+     * Trova tutte le spese di un'attività con split, membri, utenti e pagatore
+     * già caricati in un'unica query: il mapper non genera query aggiuntive (niente N+1).
+     */
+    public List<ActivityExpense> findByActivityIdWithSplits(Long activityId) {
+        return getEntityManager().createQuery(
+            "SELECT e FROM ActivityExpense e " +
+            "LEFT JOIN FETCH e.splits s " +
+            "LEFT JOIN FETCH s.groupMember gm " +
+            "LEFT JOIN FETCH gm.user " +
+            "LEFT JOIN FETCH e.paidBy pb " +
+            "LEFT JOIN FETCH pb.user " +
+            "WHERE e.activity.id = :activityId " +
+            "ORDER BY e.createdAt DESC", ActivityExpense.class)
+        .setParameter("activityId", activityId)
+        .getResultList();
+    }
+
     /**
      * Trova spese pagate da un membro specifico
      */
@@ -3,9 +3,11 @@ package com.storeapp.activity.repository;
 import com.storeapp.activity.entity.ActivityExpenseSplit;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository per le suddivisioni delle spese
@@ -39,6 +41,34 @@ public class ActivityExpenseSplitRepository implements PanacheRepository<Activit
         return total != null ? total : BigDecimal.ZERO;
     }
 
+    /**
+     * Tutte le split del gruppo per l'export, ordinate per spesa, lette a blocchi di
+     * {@code fetchSize} righe tramite cursore JDBC forward-only (il driver PostgreSQL
+     * lo usa solo dentro una transazione). Le righe sono proiezioni: il persistence
+     * context resta vuoto. Lo stream va chiuso.
+     */
+    public Stream<ExpenseExportRow> streamForExport(Long groupId, int fetchSize) {
+        return getEntityManager().createQuery(
+            "SELECT new com.storeapp.activity.repository.ExpenseExportRow(" +
+            "  e.id, e.createdAt, a.id, CASE WHEN TYPE(a) = Trip THEN 'TRIP' ELSE 'EVENT' END, a.name," +
+            "  e.description, e.amount, e.currency, pm.id, pu.name," +
+            "  gm.id, u.name, s.amount, s.isPayer, s.paidAmount" +
+            ") " +
+            "FROM ActivityExpenseSplit s " +
+            "JOIN s.expense e " +
+            "JOIN e.activity a " +
+            "JOIN e.paidBy pm " +
+            "JOIN pm.user pu " +
+            "JOIN s.groupMember gm " +
+            "JOIN gm.user u " +
+            "WHERE a.group.id = :groupId " +
+            "ORDER BY e.id, s.id", ExpenseExportRow.class)
+            .setParameter("groupId", groupId)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
     /**
      * Elimina tutte le split di una spesa
      */
@@ -35,6 +35,22 @@ public class ActivityParticipantRepository implements PanacheRepository<Activity
         return count("activity.id = ?1 AND status = ?2", activityId, status);
     }
 
+    /**
+     * Conta i partecipanti per attività e status di tutte le attività di un gruppo,
+     * con un'unica query aggregata (evita di inizializzare participants attività per attività)
+     */
+    public List<ParticipantStatusCountProjection> countByStatusForGroup(Long groupId) {
+        return getEntityManager().createQuery(
+            "SELECT new com.storeapp.activity.repository.ParticipantStatusCountProjection(" +
+            "  p.activity.id, p.status, COUNT(p)" +
+            ") " +
+            "FROM ActivityParticipant p " +
+            "WHERE p.activity.group.id = :groupId " +
+            "GROUP BY p.activity.id, p.status", ParticipantStatusCountProjection.class)
+        .setParameter("groupId", groupId)
+        .getResultList();
+    }
+
     /**
      * Elimina tutti i partecipanti di un'attività
      */
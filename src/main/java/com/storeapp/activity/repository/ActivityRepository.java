@@ -4,8 +4,17 @@ import com.storeapp.activity.entity.Activity;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Repository per le attività
@@ -17,7 +26,7 @@ public class ActivityRepository implements PanacheRepository<Activity> {
      * Trova tutte le attività di un gruppo ordinate per display_order
      */
     public List<Activity> findByGroupId(Long groupId) {
-        return list("group.id = ?1 ORDER BY displayOrder, startDate, startTime", groupId);
+        return list("group.id = ?1 ORDER BY COALESCE(displayOrder, 0), startDate, startTime, id", groupId);
     }
 
     /**
@@ -57,12 +66,139 @@ public class ActivityRepository implements PanacheRepository<Activity> {
     }
 
     /**
-     * Trova il prossimo display_order disponibile per un gruppo
+     * Somma delta a total_cost con un UPDATE atomico sulla riga: spese inserite o eliminate
+     * in parallelo sulla stessa attività non si sovrascrivono il totale a vicenda.
+     * Il valore già caricato in un'entità Activity gestita non viene aggiornato.
+     * Sincronizzata su Activity: un'attività appena persistita (id da sequence) viene
+     * inserita prima dell'UPDATE.
+     */
+    public void addToTotalCost(Long activityId, BigDecimal delta) {
+        getEntityManager()
+            .createNativeQuery("UPDATE activities SET total_cost = COALESCE(total_cost, 0) + :delta WHERE id = :activityId")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(Activity.class)
+            .setParameter("delta", delta)
+            .setParameter("activityId", activityId)
+            .executeUpdate();
+    }
+
+    /**
+     * Prossimo display_order per accodare un'attività al gruppo, distanziato di {@code gap}
+     * dall'ultima così che gli spostamenti successivi trovino spazio libero.
+     * L'attività dei rimborsi (Integer.MAX_VALUE) resta sempre in fondo: è esclusa dal massimo
+     * e il risultato non la raggiunge mai.
+     */
+    public Integer getNextDisplayOrder(Long groupId, int gap) {
+        Integer max = getEntityManager().createQuery(
+                "SELECT MAX(COALESCE(a.displayOrder, 0)) FROM Activity a " +
+                "WHERE a.group.id = :groupId AND COALESCE(a.displayOrder, 0) < :settlementOrder", Integer.class)
+            .setParameter("groupId", groupId)
+            .setParameter("settlementOrder", Integer.MAX_VALUE)
+            .getSingleResult();
+        return (max == null) ? gap : (int) Math.min((long) max + gap, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * display_order dell'attività che segue ({@code next = true}) o precede l'attività
+     * {@code anchorId} nell'ordinamento del gruppo (display_order, data, ora, id),
+     * ignorando {@code excludedId} (l'attività che si sta spostando).
+     * Vuoto se l'ancora è l'ultima (o la prima).
+     */
+    public Optional<Integer> findNeighbourDisplayOrder(Long groupId, Long anchorId, Long excludedId, boolean next) {
+        String comparison = next ? ">" : "<";
+        String direction = next ? "ASC" : "DESC";
+        List<?> rows = getEntityManager().createNativeQuery(
+            "SELECT COALESCE(a.display_order, 0) FROM activities a, activities anchor " +
+            "WHERE anchor.id = :anchorId AND a.group_id = :groupId AND a.id <> :excludedId " +
+            "AND (COALESCE(a.display_order, 0), a.start_date, a.start_time, a.id) " + comparison +
+            " (COALESCE(anchor.display_order, 0), anchor.start_date, anchor.start_time, anchor.id) " +
+            "ORDER BY COALESCE(a.display_order, 0) " + direction + ", a.start_date " + direction +
+            ", a.start_time " + direction + ", a.id " + direction + " LIMIT 1")
+        .setParameter("anchorId", anchorId)
+        .setParameter("groupId", groupId)
+        .setParameter("excludedId", excludedId)
+        .getResultList();
+        return rows.stream().findFirst().map(row -> ((Number) row).intValue());
+    }
+
+    /**
+     * Gruppo di appartenenza di ogni attività trovata (activityId → groupId),
+     * per validare in un'unica query una lista di ID
+     */
+    public Map<Long, Long> findGroupIdsByIds(Collection<Long> activityIds) {
+        Map<Long, Long> groupIds = new HashMap<>();
+        getEntityManager().createQuery(
+            "SELECT a.id, a.group.id FROM Activity a WHERE a.id IN :ids", Object[].class)
+        .setParameter("ids", activityIds)
+        .getResultStream()
+        .forEach(row -> groupIds.put((Long) row[0], (Long) row[1]));
+        return groupIds;
+    }
+
+    /**
+     * display_order delle attività indicate, solo se appartengono al gruppo
+     */
+    public Map<Long, Integer> findDisplayOrders(Long groupId, Collection<Long> activityIds) {
+        Map<Long, Integer> orders = new HashMap<>();
+        getEntityManager().createQuery(
+            "SELECT a.id, a.displayOrder FROM Activity a WHERE a.group.id = :groupId AND a.id IN :ids", Object[].class)
+        .setParameter("groupId", groupId)
+        .setParameter("ids", activityIds)
+        .getResultStream()
+        .forEach(row -> orders.put((Long) row[0], row[1] != null ? (Integer) row[1] : 0));
+        return orders;
+    }
+
+    /**
+     * Aggiorna il display_order di più attività con un unico statement
+     * (UPDATE ... FROM (VALUES ...)).
+     */
+    public int updateDisplayOrders(Long groupId, Map<Long, Integer> ordersById) {
+        if (ordersById.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < ordersById.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(:id").append(i).append(", :pos").append(i).append(")");
+        }
+
+        Query query = getEntityManager().createNativeQuery(
+            "UPDATE activities a SET display_order = v.pos, updated_at = NOW() " +
+            "FROM (VALUES " + values + ") AS v(id, pos) " +
+            "WHERE a.id = v.id AND a.group_id = :groupId")
+        .setParameter("groupId", groupId);
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : ordersById.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("pos" + i, entry.getValue());
+            i++;
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * Aggiorna il display_order di una sola attività
+     */
+    public int updateDisplayOrder(Long activityId, int displayOrder) {
+        return update("displayOrder = ?1, updatedAt = ?2 WHERE id = ?3",
+            displayOrder, LocalDateTime.now(), activityId);
+    }
+
+    /**
+     * Riassegna a tutto il gruppo posizioni distanziate di {@code gap}, mantenendo
+     * l'ordine corrente (display_order, data, ora, id). Un unico statement.
      */
-    public Integer getNextDisplayOrder(Long groupId) {
-        Integer max = find("SELECT MAX(a.displayOrder) FROM Activity a WHERE a.group.id = ?1", groupId)
-            .project(Integer.class)
-            .firstResult();
-        return (max == null) ? 0 : max + 1;
+    public int rebalanceDisplayOrder(Long groupId, int gap) {
+        return getEntityManager().createNativeQuery(
+            "UPDATE activities a SET display_order = r.rn * :gap, updated_at = NOW() " +
+            "FROM (SELECT id, ROW_NUMBER() OVER (" +
+            "        ORDER BY COALESCE(display_order, 0), start_date, start_time, id) AS rn " +
+            "      FROM activities WHERE group_id = :groupId) r " +
+            "WHERE a.id = r.id")
+        .setParameter("gap", gap)
+        .setParameter("groupId", groupId)
+        .executeUpdate();
     }
 }
@@ -0,0 +1,49 @@
+package com.storeapp.activity.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Riga dell'export delle spese di un gruppo: una split con i dati della spesa e dell'attività.
+ * Costruita via JPQL constructor expression (nessuna entity nel persistence context).
+ */
+public class ExpenseExportRow {
+    public final Long expenseId;
+    public final LocalDateTime createdAt;
+    public final Long activityId;
+    public final String activityType;
+    public final String activityName;
+    public final String description;
+    public final BigDecimal expenseAmount;
+    public final String currency;
+    public final Long paidByMemberId;
+    public final String paidByName;
+    public final Long groupMemberId;
+    public final String memberName;
+    public final BigDecimal amount;
+    public final Boolean isPayer;
+    public final BigDecimal paidAmount;
+
+    public ExpenseExportRow(Long expenseId, LocalDateTime createdAt,
+                            Long activityId, String activityType, String activityName,
+                            String description, BigDecimal expenseAmount, String currency,
+                            Long paidByMemberId, String paidByName,
+                            Long groupMemberId, String memberName,
+                            BigDecimal amount, Boolean isPayer, BigDecimal paidAmount) {
+        this.expenseId = expenseId;
+        this.createdAt = createdAt;
+        this.activityId = activityId;
+        this.activityType = activityType;
+        this.activityName = activityName;
+        this.description = description;
+        this.expenseAmount = expenseAmount;
+        this.currency = currency;
+        this.paidByMemberId = paidByMemberId;
+        this.paidByName = paidByName;
+        this.groupMemberId = groupMemberId;
+        this.memberName = memberName;
+        this.amount = amount;
+        this.isPayer = isPayer;
+        this.paidAmount = paidAmount;
+    }
+}
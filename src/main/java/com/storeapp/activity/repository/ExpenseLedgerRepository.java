@@ -0,0 +1,181 @@
+package com.storeapp.activity.repository;
+
+import com.storeapp.activity.entity.GroupExpenseLedger;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository per il ledger incrementale dei bilanci di gruppo
+ * (tabelle group_expense_ledgers e group_member_balances).
+ *
+ * Le scritture sono upsert a delta (INSERT ... ON CONFLICT DO UPDATE), atomiche
+ * anche con più transazioni concorrenti sullo stesso gruppo.
+ */
+@ApplicationScoped
+public class ExpenseLedgerRepository implements PanacheRepositoryBase<GroupExpenseLedger, Long> {
+
+    /**
+     * Bilanci di tutti i membri del gruppo che hanno almeno una split:
+     * lettura per chiave di N righe, nessuna aggregazione sulle spese.
+     */
+    public List<MemberBalanceProjection> findBalancesByGroupId(Long groupId) {
+        return getEntityManager().createQuery(
+            "SELECT new com.storeapp.activity.repository.MemberBalanceProjection(" +
+            "  b.groupMemberId, u.name, u.avatarUrl, b.totalPaid, b.totalOwed" +
+            ") " +
+            "FROM GroupMemberBalance b " +
+            "JOIN b.groupMember gm " +
+            "JOIN gm.user u " +
+            "WHERE b.groupId = :groupId AND b.splitCount > 0", MemberBalanceProjection.class)
+        .setParameter("groupId", groupId)
+        .getResultList();
+    }
+
+    /**
+     * Totali di gruppo (vuoto se il gruppo non ha mai registrato spese)
+     */
+    public Optional<GroupExpenseLedger> findTotalsByGroupId(Long groupId) {
+        return findByIdOptional(groupId);
+    }
+
+    /**
+     * Applica le variazioni di più membri con un unico statement multi-riga.
+     * Le righe vengono scritte (e bloccate) in ordine di group_member_id: due spese
+     * concorrenti sugli stessi membri prendono i lock nello stesso ordine e non
+     * possono andare in deadlock, qualunque sia l'ordine delle split nella richiesta.
+     */
+    public void applyMemberDeltas(Long groupId, Collection<MemberBalanceDelta> unordered) {
+        if (unordered.isEmpty()) {
+            return;
+        }
+        List<MemberBalanceDelta> deltas = unordered.stream()
+            .sorted(Comparator.comparing(MemberBalanceDelta::groupMemberId))
+            .toList();
+
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO group_member_balances " +
+            "(group_member_id, group_id, total_paid, total_owed, split_count, updated_at) VALUES ");
+        int i = 0;
+        for (MemberBalanceDelta ignored : deltas) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:m").append(i).append(", :groupId, :p").append(i)
+               .append(", :o").append(i).append(", :c").append(i).append(", NOW())");
+            i++;
+        }
+        sql.append(
+            " ON CONFLICT (group_member_id) DO UPDATE SET " +
+            "total_paid = group_member_balances.total_paid + EXCLUDED.total_paid, " +
+            "total_owed = group_member_balances.total_owed + EXCLUDED.total_owed, " +
+            "split_count = group_member_balances.split_count + EXCLUDED.split_count, " +
+            "updated_at = NOW()");
+
+        Query query = getEntityManager().createNativeQuery(sql.toString())
+            .setParameter("groupId", groupId);
+        i = 0;
+        for (MemberBalanceDelta delta : deltas) {
+            query.setParameter("m" + i, delta.groupMemberId());
+            query.setParameter("p" + i, delta.paid());
+            query.setParameter("o" + i, delta.owed());
+            query.setParameter("c" + i, delta.splits());
+            i++;
+        }
+        query.executeUpdate();
+    }
+
+    /**
+     * Applica una variazione ai totali di gruppo.
+     */
+    public void applyGroupDelta(Long groupId, BigDecimal totalDelta, long expenseCountDelta) {
+        getEntityManager().createNativeQuery(
+            "INSERT INTO group_expense_ledgers (group_id, total_expenses, expense_count, updated_at) " +
+            "VALUES (:groupId, :total, :count, NOW()) " +
+            "ON CONFLICT (group_id) DO UPDATE SET " +
+            "total_expenses = group_expense_ledgers.total_expenses + EXCLUDED.total_expenses, " +
+            "expense_count = group_expense_ledgers.expense_count + EXCLUDED.expense_count, " +
+            "updated_at = NOW()")
+        .setParameter("groupId", groupId)
+        .setParameter("total", totalDelta)
+        .setParameter("count", expenseCountDelta)
+        .executeUpdate();
+    }
+
+    /**
+     * Somma per membro delle split di una singola attività
+     * (usata per stornare dal ledger un'attività che viene eliminata).
+     */
+    public List<MemberBalanceDelta> sumSplitsByActivityId(Long activityId) {
+        return getEntityManager().createQuery(
+            "SELECT new com.storeapp.activity.repository.MemberBalanceDelta(" +
+            "  aes.groupMember.id, COALESCE(SUM(aes.paidAmount), 0), COALESCE(SUM(aes.amount), 0), COUNT(aes)" +
+            ") " +
+            "FROM ActivityExpenseSplit aes " +
+            "WHERE aes.expense.activity.id = :activityId " +
+            "GROUP BY aes.groupMember.id", MemberBalanceDelta.class)
+        .setParameter("activityId", activityId)
+        .getResultList();
+    }
+
+    /**
+     * Conta le spese con almeno una split di una singola attività
+     */
+    public long countExpensesWithSplitsByActivityId(Long activityId) {
+        return getEntityManager().createQuery(
+            "SELECT COUNT(DISTINCT aes.expense.id) FROM ActivityExpenseSplit aes " +
+            "WHERE aes.expense.activity.id = :activityId", Long.class)
+        .setParameter("activityId", activityId)
+        .getSingleResult();
+    }
+
+    /**
+     * Ricostruisce da zero il ledger di un gruppo a partire dalle split.
+     */
+    public void rebuildByGroupId(Long groupId) {
+        getEntityManager().createNativeQuery(
+            "DELETE FROM group_member_balances WHERE group_id = :groupId")
+        .setParameter("groupId", groupId)
+        .executeUpdate();
+
+        getEntityManager().createNativeQuery(
+            "INSERT INTO group_member_balances " +
+            "(group_member_id, group_id, total_paid, total_owed, split_count, updated_at) " +
+            "SELECT aes.group_member_id, a.group_id, " +
+            "       COALESCE(SUM(aes.paid_amount), 0), COALESCE(SUM(aes.amount), 0), COUNT(*), NOW() " +
+            "FROM activity_expense_splits aes " +
+            "JOIN activity_expenses ae ON ae.id = aes.expense_id " +
+            "JOIN activities a ON a.id = ae.activity_id " +
+            "WHERE a.group_id = :groupId " +
+            "GROUP BY aes.group_member_id, a.group_id")
+        .setParameter("groupId", groupId)
+        .executeUpdate();
+
+        getEntityManager().createNativeQuery(
+            "INSERT INTO group_expense_ledgers (group_id, total_expenses, expense_count, updated_at) " +
+            "SELECT :groupId, COALESCE(SUM(aes.amount), 0), COUNT(DISTINCT ae.id), NOW() " +
+            "FROM activity_expense_splits aes " +
+            "JOIN activity_expenses ae ON ae.id = aes.expense_id " +
+            "JOIN activities a ON a.id = ae.activity_id " +
+            "WHERE a.group_id = :groupId " +
+            "ON CONFLICT (group_id) DO UPDATE SET " +
+            "total_expenses = EXCLUDED.total_expenses, " +
+            "expense_count = EXCLUDED.expense_count, " +
+            "updated_at = NOW()")
+        .setParameter("groupId", groupId)
+        .executeUpdate();
+    }
+
+    /**
+     * ID di tutti i gruppi, per il job di verifica
+     */
+    public List<Long> findAllGroupIds() {
+        return getEntityManager()
+            .createQuery("SELECT g.id FROM Group g ORDER BY g.id", Long.class)
+            .getResultList();
+    }
+}
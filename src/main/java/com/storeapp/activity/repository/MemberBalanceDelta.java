@@ -0,0 +1,10 @@
+package com.storeapp.activity.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Variazione del bilancio di un membro nel ledger di gruppo, dovuta a una o più split.
+ * Costruita in memoria dalle split oppure via JPQL constructor expression.
+ */
+public record MemberBalanceDelta(Long groupMemberId, BigDecimal paid, BigDecimal owed, Long splits) {
+}
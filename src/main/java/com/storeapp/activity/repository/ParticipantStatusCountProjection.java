@@ -0,0 +1,19 @@
+package com.storeapp.activity.repository;
+
+import com.storeapp.activity.entity.ParticipantStatus;
+
+/**
+ * Proiezione raw: numero di partecipanti di un'attività con un certo status.
+ * Costruita via JPQL constructor expression.
+ */
+public class ParticipantStatusCountProjection {
+    public final Long activityId;
+    public final ParticipantStatus status;
+    public final Long count;
+
+    public ParticipantStatusCountProjection(Long activityId, ParticipantStatus status, Long count) {
+        this.activityId = activityId;
+        this.status = status;
+        this.count = count;
+    }
+}
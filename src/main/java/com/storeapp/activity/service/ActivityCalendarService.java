@@ -1,7 +1,7 @@
 package com.storeapp.activity.service;
 
-import com.storeapp.group.entity.Group;
 import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
 import com.storeapp.activity.dto.ActivityCalendarDto;
 import com.storeapp.activity.repository.ActivityCalendarRepository;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -25,6 +25,9 @@ public class ActivityCalendarService {
     @Inject
     GroupRepository groupRepository;  // CHANGED: was ItineraryRepository
 
+    @Inject
+    GroupAccessService groupAccess;
+
     /**
      * Get calendar view for a date range
      */
@@ -71,10 +74,10 @@ public class ActivityCalendarService {
      * Verify user has access to group
      */
     private void verifyAccess(Long groupId, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
     }
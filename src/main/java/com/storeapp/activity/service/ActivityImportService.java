@@ -0,0 +1,251 @@
+package com.storeapp.activity.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.activity.dto.ActivityImportItem;
+import com.storeapp.activity.dto.ActivityImportResponse;
+import com.storeapp.activity.dto.ActivityImportResultDto;
+import com.storeapp.activity.entity.Activity;
+import com.storeapp.activity.entity.ActivityParticipant;
+import com.storeapp.activity.entity.ParticipantStatus;
+import com.storeapp.activity.mapper.EventMapper;
+import com.storeapp.activity.mapper.TripMapper;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
+import com.storeapp.activity.repository.ActivityRepository;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.entity.Group;
+import com.storeapp.group.entity.GroupMember;
+import com.storeapp.group.exception.GroupNotFoundException;
+import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupVersionService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.BadRequestException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Import massivo di eventi e viaggi in un gruppo (itinerari preparati fuori dall'app).
+ *
+ * Rispetto a N chiamate a POST /events o /trips:
+ * - gruppo e membri vengono caricati una volta sola
+ * - tutti gli elementi sono validati prima di scrivere: l'import è tutto o niente
+ * - attività e partecipanti ricevono gli id dalle sequence in memoria e vengono
+ *   scritti in batch JDBC nella stessa transazione (V028, order_inserts)
+ * - calendario e versione del gruppo vengono aggiornati una volta per l'intero import
+ */
+@ApplicationScoped
+public class ActivityImportService {
+
+    @Inject
+    ActivityRepository activityRepository;
+
+    @Inject
+    ActivityCalendarRepository calendarRepository;
+
+    @Inject
+    GroupRepository groupRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
+    @Inject
+    EventMapper eventMapper;
+
+    @Inject
+    TripMapper tripMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "storeapp.activities.import.max-items", defaultValue = "500")
+    int maxItems;
+
+    /**
+     * Legge gli elementi dal body: accetta sia un array JSON sia NDJSON (un oggetto per riga).
+     * La lettura è in streaming e si interrompe appena viene superato il limite.
+     */
+    public List<ActivityImportItem> read(InputStream body) {
+        List<ActivityImportItem> items = new ArrayList<>();
+        try (MappingIterator<ActivityImportItem> iterator =
+                     objectMapper.readerFor(ActivityImportItem.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (items.size() == maxItems) {
+                    throw new BadRequestException("Import limitato a " + maxItems + " elementi per richiesta");
+                }
+                items.add(iterator.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("JSON non valido all'elemento " + items.size() + ": " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new BadRequestException("Impossibile leggere il body della richiesta");
+        }
+        if (items.isEmpty()) {
+            throw new BadRequestException("Nessuna attività da importare");
+        }
+        return items;
+    }
+
+    /**
+     * Valida e inserisce tutte le attività. Se anche un solo elemento non è valido
+     * non viene scritto nulla e la risposta riporta gli errori per elemento (created = 0).
+     */
+    @Transactional
+    public ActivityImportResponse importActivities(Long groupId, List<ActivityImportItem> items, Long userId) {
+        Group group = groupRepository.findByIdWithMembers(groupId)
+                .orElseThrow(() -> new GroupNotFoundException(groupId));
+
+        Map<Long, GroupMember> members = group.members.stream()
+                .collect(Collectors.toMap(m -> m.id, Function.identity()));
+        GroupMember importer = members.values().stream()
+                .filter(m -> m.user.getId().equals(userId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("User is not a member of this group"));
+
+        // 1. Validazione completa, senza scritture: DTO, poi l'entity già mappata
+        //    (i vincoli NOT NULL di Activity come endDate/startTime/endTime non sono sul DTO)
+        List<ActivityImportResultDto> results = new ArrayList<>(items.size());
+        List<Activity> activities = new ArrayList<>(items.size());
+        int invalid = 0;
+        for (int i = 0; i < items.size(); i++) {
+            ActivityImportResultDto result = validate(i, items.get(i), members);
+            Activity activity = null;
+            if (result.errors.isEmpty()) {
+                activity = toEntity(items.get(i), group, importer);
+                validateEntity(activity, items.get(i).type, result);
+            }
+            if (!result.errors.isEmpty()) {
+                invalid++;
+            }
+            results.add(result);
+            activities.add(activity);
+        }
+        if (invalid > 0) {
+            return new ActivityImportResponse(0, invalid, results);
+        }
+
+        // 2. Inserimento: gli id arrivano dalle sequence, le INSERT partono al flush in batch
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < items.size(); i++) {
+            Activity activity = activities.get(i);
+            for (Long memberId : new LinkedHashSet<>(participantIds(items.get(i)))) {
+                ActivityParticipant participant = new ActivityParticipant();
+                participant.activity = activity;
+                participant.groupMember = members.get(memberId);
+                participant.status = ParticipantStatus.CONFIRMED;
+                participant.balance = BigDecimal.ZERO;
+                participant.createdAt = now;
+                participant.updatedAt = now;
+                activity.participants.add(participant);
+            }
+        }
+        // Senza displayOrder gli elementi vengono accodati nell'ordine della richiesta, distanziati
+        int next = activityRepository.getNextDisplayOrder(groupId, ActivityService.DISPLAY_ORDER_GAP);
+        for (int i = 0; i < items.size(); i++) {
+            if (displayOrder(items.get(i)) == null) {
+                activities.get(i).displayOrder = next;
+                next = (int) Math.min((long) next + ActivityService.DISPLAY_ORDER_GAP, Integer.MAX_VALUE - 1);
+            }
+        }
+        activityRepository.persist(activities);
+
+        // refreshGroup esegue il flush e ricostruisce il calendario del gruppo con due statement
+        calendarRepository.refreshGroup(groupId);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITIES_IMPORTED, null);
+
+        for (int i = 0; i < activities.size(); i++) {
+            results.get(i).activityId = activities.get(i).id;
+        }
+        return new ActivityImportResponse(activities.size(), 0, results);
+    }
+
+    private ActivityImportResultDto validate(int index, ActivityImportItem item, Map<Long, GroupMember> members) {
+        ActivityImportResultDto result = new ActivityImportResultDto();
+        result.index = index;
+        if (item == null || item.type == null) {
+            result.errors.add("type: obbligatorio (EVENT o TRIP)");
+            return result;
+        }
+        result.type = item.type;
+
+        Object payload = item.type == ActivityImportItem.Type.EVENT ? item.event : item.trip;
+        if (payload == null) {
+            result.errors.add(item.type.name().toLowerCase() + ": obbligatorio per type " + item.type);
+            return result;
+        }
+        result.name = item.type == ActivityImportItem.Type.EVENT ? item.event.name : item.trip.name;
+
+        for (ConstraintViolation<Object> violation : validator.validate(payload)) {
+            String path = violation.getPropertyPath().toString();
+            result.errors.add(path.isEmpty() ? violation.getMessage() : path + ": " + violation.getMessage());
+        }
+        for (Long memberId : participantIds(item)) {
+            if (memberId == null || !members.containsKey(memberId)) {
+                result.errors.add("participantIds: il membro " + memberId + " non appartiene al gruppo");
+            }
+        }
+        return result;
+    }
+
+    private Activity toEntity(ActivityImportItem item, Group group, GroupMember importer) {
+        Activity activity = item.type == ActivityImportItem.Type.EVENT
+                ? eventMapper.toEntity(item.event)
+                : tripMapper.toEntity(item.trip);
+        activity.group = group;
+        activity.createdBy = importer.user;
+        return activity;
+    }
+
+    /**
+     * Vincoli dell'entity non coperti dal DTO. Gli errori usano i nomi dei campi della
+     * richiesta (per i viaggi startDate → departureDate, ecc.) e non ripetono quelli già segnalati.
+     */
+    private void validateEntity(Activity activity, ActivityImportItem.Type type, ActivityImportResultDto result) {
+        for (ConstraintViolation<Activity> violation : validator.validate(activity)) {
+            String path = requestField(type, violation.getPropertyPath().toString());
+            String prefix = path + ": ";
+            if (result.errors.stream().noneMatch(error -> error.startsWith(prefix))) {
+                result.errors.add(prefix + violation.getMessage());
+            }
+        }
+    }
+
+    private static String requestField(ActivityImportItem.Type type, String entityField) {
+        if (type != ActivityImportItem.Type.TRIP) {
+            return entityField;
+        }
+        return switch (entityField) {
+            case "startDate" -> "departureDate";
+            case "endDate" -> "arrivalDate";
+            case "startTime" -> "departureTime";
+            case "endTime" -> "arrivalTime";
+            default -> entityField;
+        };
+    }
+
+    private static Integer displayOrder(ActivityImportItem item) {
+        return item.type == ActivityImportItem.Type.EVENT ? item.event.displayOrder : item.trip.displayOrder;
+    }
+
+    private static List<Long> participantIds(ActivityImportItem item) {
+        List<Long> ids = item.type == ActivityImportItem.Type.EVENT ? item.event.participantIds : item.trip.participantIds;
+        return ids != null ? ids : List.of();
+    }
+}
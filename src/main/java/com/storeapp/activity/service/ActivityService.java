@@ -3,6 +3,9 @@ package com.storeapp.activity.service;
 import com.storeapp.group.entity.Group;
 import com.storeapp.group.entity.GroupMember;
 import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.service.GroupVersionService;
 import com.storeapp.group.repository.GroupMemberRepository;
 import com.storeapp.activity.dto.*;
 import com.storeapp.activity.entity.*;
@@ -10,9 +13,11 @@ import com.storeapp.activity.exception.ActivityNotFoundException;
 import com.storeapp.activity.exception.InvalidExpenseSplitException;
 import com.storeapp.activity.mapper.*;
 import com.storeapp.activity.repository.ActivityRepository;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
 import com.storeapp.activity.repository.ActivityParticipantRepository;
 import com.storeapp.activity.repository.ActivityExpenseRepository;
 import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
+import com.storeapp.activity.repository.ParticipantStatusCountProjection;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -29,6 +34,9 @@ public class ActivityService {
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupAccessService groupAccess;
+
     @Inject
     ActivityParticipantRepository participantRepository;
 
@@ -59,26 +67,43 @@ public class ActivityService {
     @Inject
     TripMapper tripMapper;
 
+    @Inject
+    ExpenseLedgerService ledgerService;
+
+    @Inject
+    ActivityCalendarRepository calendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
+    /** Distance between consecutive display_order values after a reorder/rebalance */
+    static final int DISPLAY_ORDER_GAP = 1024;
+
     /**
      * Create an Event activity
      */
     @Transactional
     public EventDto createEvent(Long groupId, EventRequest request, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         Event event = eventMapper.toEntity(request);
         event.group = group;
+        if (request.displayOrder == null) {
+            event.displayOrder = activityRepository.getNextDisplayOrder(groupId, DISPLAY_ORDER_GAP);
+        }
         activityRepository.persist(event);
         
         // Add participants if provided
         if (request.participantIds != null && !request.participantIds.isEmpty()) {
             addParticipantsToActivity(event, request.participantIds, group);
         }
+        calendarRepository.refreshActivity(event.id);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITY_CREATED, event.id);
         
         return (EventDto) toTypedDto(event, true);
     }
@@ -88,21 +113,26 @@ public class ActivityService {
      */
     @Transactional
     public TripDto createTrip(Long groupId, TripRequest request, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         Trip trip = tripMapper.toEntity(request);
         trip.group = group;
+        if (request.displayOrder == null) {
+            trip.displayOrder = activityRepository.getNextDisplayOrder(groupId, DISPLAY_ORDER_GAP);
+        }
         activityRepository.persist(trip);
         
         // Add participants if provided
         if (request.participantIds != null && !request.participantIds.isEmpty()) {
             addParticipantsToActivity(trip, request.participantIds, group);
         }
+        calendarRepository.refreshActivity(trip.id);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITY_CREATED, trip.id);
         
         return (TripDto) toTypedDto(trip, true);
     }
@@ -123,7 +153,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -139,7 +169,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -150,11 +180,11 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
-        List<ActivityExpense> expenses = expenseRepository.findByActivityId(activityId);
+        List<ActivityExpense> expenses = expenseRepository.findByActivityIdWithSplits(activityId);
 
         if (activity instanceof Event event) {
             EventDto dto = (EventDto) toTypedDto(event, true);
@@ -171,15 +201,22 @@ public class ActivityService {
     }
 
     public List<Object> getActivitiesByGroup(Long groupId, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
+        // Conteggi dei partecipanti di tutte le attività in un'unica query aggregata
+        java.util.Map<Long, java.util.Map<ParticipantStatus, Long>> participantCounts = new java.util.HashMap<>();
+        for (ParticipantStatusCountProjection row : participantRepository.countByStatusForGroup(groupId)) {
+            participantCounts.computeIfAbsent(row.activityId, k -> new java.util.EnumMap<>(ParticipantStatus.class))
+                    .put(row.status, row.count);
+        }
+
         return activityRepository.findByGroupId(groupId).stream()
-                .map(a -> toTypedDto(a, false))
+                .map(a -> toListDto(a, participantCounts.getOrDefault(a.id, java.util.Map.of())))
                 .collect(java.util.stream.Collectors.toList());
     }
 
@@ -191,7 +228,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -210,6 +247,7 @@ public class ActivityService {
         event.startTime = updatedEvent.startTime;
         event.endTime = updatedEvent.endTime;
         event.location = updatedEvent.location;
+        event.locationMetadata = updatedEvent.locationMetadata;
         event.category = updatedEvent.category;
         event.bookingUrl = updatedEvent.bookingUrl;
         event.bookingReference = updatedEvent.bookingReference;
@@ -217,12 +255,16 @@ public class ActivityService {
         event.startTimezone = updatedEvent.startTimezone;
         event.endTimezone = updatedEvent.endTimezone;
         event.isCompleted = updatedEvent.isCompleted;
-        event.displayOrder = updatedEvent.displayOrder;
+        if (request.displayOrder != null) {
+            event.displayOrder = request.displayOrder;
+        }
 
         // Aggiorna i partecipanti se specificati nella richiesta
         if (request.participantIds != null) {
             updateActivityParticipants(event, request.participantIds, event.group);
         }
+        calendarRepository.refreshActivity(event.id);
+        groupVersions.bump(event.group.id, GroupChangeType.ACTIVITY_UPDATED, event.id);
 
         return (EventDto) toTypedDto(event, true);
     }
@@ -235,7 +277,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -255,17 +297,23 @@ public class ActivityService {
         trip.endTime = updatedTrip.endTime;
         trip.origin = updatedTrip.origin;
         trip.destination = updatedTrip.destination;
+        trip.originMetadata = updatedTrip.originMetadata;
+        trip.destinationMetadata = updatedTrip.destinationMetadata;
         trip.transportMode = updatedTrip.transportMode;
         trip.bookingReference = updatedTrip.bookingReference;
         trip.startTimezone = updatedTrip.startTimezone;
         trip.endTimezone = updatedTrip.endTimezone;
         trip.isCompleted = updatedTrip.isCompleted;
-        trip.displayOrder = updatedTrip.displayOrder;
+        if (request.displayOrder != null) {
+            trip.displayOrder = request.displayOrder;
+        }
 
         // Aggiorna i partecipanti se specificati nella richiesta
         if (request.participantIds != null) {
             updateActivityParticipants(trip, request.participantIds, trip.group);
         }
+        calendarRepository.refreshActivity(trip.id);
+        groupVersions.bump(trip.group.id, GroupChangeType.ACTIVITY_UPDATED, trip.id);
 
         return (TripDto) toTypedDto(trip, true);
     }
@@ -279,7 +327,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -288,6 +336,8 @@ public class ActivityService {
         activity.startDate = request.scheduledDate;
         activity.startTime = request.startTime;
         activity.endTime = request.endTime;
+        calendarRepository.refreshActivity(activity.id);
+        groupVersions.bump(activity.group.id, GroupChangeType.ACTIVITY_UPDATED, activity.id);
 
         return activityMapper.toDto(activity);
     }
@@ -297,11 +347,15 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(activity.group.id, userId)) {
             throw new RuntimeException("Only group admins can delete activities");
         }
 
+        // Le spese dell'attività spariscono con lei: stornale dal ledger dei bilanci
+        ledgerService.revertActivity(activity.group.id, activity.id);
+
         activityRepository.delete(activity);
+        groupVersions.bump(activity.group.id, GroupChangeType.ACTIVITY_DELETED, activity.id);
     }
 
     @Transactional
@@ -309,34 +363,138 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         activity.isCompleted = !activity.isCompleted;
+        calendarRepository.refreshActivity(activity.id);
+        groupVersions.bump(activity.group.id, GroupChangeType.ACTIVITY_UPDATED, activity.id);
         return toTypedDto(activity, false);
     }
 
+    /**
+     * Reorder the whole list (drag & drop).
+     * One ownership query for all IDs plus one UPDATE ... FROM (VALUES ...) statement.
+     * Positions are spaced by DISPLAY_ORDER_GAP so that later single moves
+     * ({@link #moveActivity}) only need to update the moved row.
+     */
     @Transactional
     public void reorderActivities(Long groupId, List<Long> activityIds, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
+        if (activityIds == null || activityIds.isEmpty()) {
+            return;
+        }
+
+        java.util.Map<Long, Long> groupIds = activityRepository.findGroupIdsByIds(activityIds);
+        java.util.Map<Long, Integer> positions = new java.util.LinkedHashMap<>();
         for (int i = 0; i < activityIds.size(); i++) {
             Long activityId = activityIds.get(i);
-            Activity activity = activityRepository.findByIdOptional(activityId)
-                    .orElseThrow(() -> new ActivityNotFoundException(activityId));
-
-            if (!activity.group.id.equals(groupId)) {
+            Long activityGroupId = groupIds.get(activityId);
+            if (activityGroupId == null) {
+                throw new ActivityNotFoundException(activityId);
+            }
+            if (!activityGroupId.equals(groupId)) {
                 throw new RuntimeException("Activity does not belong to this group");
             }
+            if (positions.put(activityId, (i + 1) * DISPLAY_ORDER_GAP) != null) {
+                throw new jakarta.ws.rs.BadRequestException("Duplicate activity in reorder list: " + activityId);
+            }
+        }
+
+        activityRepository.updateDisplayOrders(groupId, positions);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITIES_REORDERED, null);
+    }
+
+    /**
+     * Move a single activity between two neighbours (sparse ordering).
+     * Only the moved row is updated, with the midpoint of the neighbours' positions;
+     * when there is no gap left the group's positions are respaced first (one statement).
+     * With a single anchor the other neighbour is the anchor's current successor
+     * (or predecessor), so the moved activity always lands right next to the anchor.
+     *
+     * @param afterActivityId  activity that will precede the moved one (null = move to the top)
+     * @param beforeActivityId activity that will follow the moved one (null = move to the bottom)
+     */
+    @Transactional
+    public void moveActivity(Long groupId, Long activityId, Long afterActivityId, Long beforeActivityId, Long userId) {
+        groupRepository.findByIdOptional(groupId)
+                .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
+
+        if (!groupAccess.isMember(groupId, userId)) {
+            throw new RuntimeException("User is not a member of this group");
+        }
+
+        if (afterActivityId == null && beforeActivityId == null) {
+            throw new jakarta.ws.rs.BadRequestException("afterActivityId or beforeActivityId is required");
+        }
+        if (activityId.equals(afterActivityId) || activityId.equals(beforeActivityId)) {
+            throw new jakarta.ws.rs.BadRequestException("An activity cannot be moved relative to itself");
+        }
+
+        List<Long> ids = java.util.stream.Stream.of(activityId, afterActivityId, beforeActivityId)
+                .filter(java.util.Objects::nonNull)
+                .toList();
+        java.util.Map<Long, Integer> orders = activityRepository.findDisplayOrders(groupId, ids);
+        for (Long id : ids) {
+            if (!orders.containsKey(id)) {
+                throw new ActivityNotFoundException(id);
+            }
+        }
+        if (afterActivityId != null && beforeActivityId != null
+                && orders.get(afterActivityId) > orders.get(beforeActivityId)) {
+            throw new jakarta.ws.rs.BadRequestException("afterActivityId must precede beforeActivityId");
+        }
 
-            activity.displayOrder = i;
+        Long position = positionBetween(groupId, activityId, orders, afterActivityId, beforeActivityId);
+        if (position == null) {
+            // No gap left between the neighbours: respace the whole group and retry
+            activityRepository.rebalanceDisplayOrder(groupId, DISPLAY_ORDER_GAP);
+            orders = activityRepository.findDisplayOrders(groupId, ids);
+            position = positionBetween(groupId, activityId, orders, afterActivityId, beforeActivityId);
+            if (position == null) {
+                throw new jakarta.ws.rs.BadRequestException("afterActivityId must precede beforeActivityId");
+            }
         }
+
+        activityRepository.updateDisplayOrder(activityId, position.intValue());
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITIES_REORDERED, activityId);
+    }
+
+    /**
+     * Midpoint between the neighbours' positions, or null if there is no free position.
+     * A missing anchor is replaced by the other anchor's neighbour in the current order
+     * (ignoring the moved activity), or by a position DISPLAY_ORDER_GAP away at the ends.
+     */
+    private Long positionBetween(Long groupId, Long activityId, java.util.Map<Long, Integer> orders,
+                                 Long afterActivityId, Long beforeActivityId) {
+        long lower;
+        long upper;
+        if (afterActivityId != null && beforeActivityId != null) {
+            lower = orders.get(afterActivityId);
+            upper = orders.get(beforeActivityId);
+        } else if (afterActivityId != null) {
+            lower = orders.get(afterActivityId);
+            upper = activityRepository.findNeighbourDisplayOrder(groupId, afterActivityId, activityId, true)
+                    .map(Integer::longValue)
+                    .orElse(lower + 2L * DISPLAY_ORDER_GAP);
+        } else {
+            upper = orders.get(beforeActivityId);
+            lower = activityRepository.findNeighbourDisplayOrder(groupId, beforeActivityId, activityId, false)
+                    .map(Integer::longValue)
+                    .orElse(upper - 2L * DISPLAY_ORDER_GAP);
+        }
+
+        if (upper - lower < 2 || lower < Integer.MIN_VALUE || upper > Integer.MAX_VALUE) {
+            return null;
+        }
+        return Math.floorDiv(lower + upper, 2);
     }
 
     @Transactional
@@ -344,7 +502,7 @@ public class ActivityService {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -362,6 +520,8 @@ public class ActivityService {
         participant.notes = request.notes;
 
         participantRepository.persist(participant);
+        calendarRepository.refreshActivity(activity.id);
+        groupVersions.bump(activity.group.id, GroupChangeType.PARTICIPANTS_CHANGED, activity.id);
         return participantMapper.toDto(participant);
     }
 
@@ -370,7 +530,7 @@ public class ActivityService {
         ActivityParticipant participant = participantRepository.findByIdOptional(participantId)
                 .orElseThrow(() -> new RuntimeException("Participant not found"));
 
-        if (!participant.activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(participant.activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -378,6 +538,8 @@ public class ActivityService {
         if (notes != null) {
             participant.notes = notes;
         }
+        calendarRepository.refreshActivity(participant.activity.id);
+        groupVersions.bump(participant.activity.group.id, GroupChangeType.PARTICIPANTS_CHANGED, participant.activity.id);
 
         return participantMapper.toDto(participant);
     }
@@ -387,7 +549,7 @@ public class ActivityService {
         ActivityParticipant participant = participantRepository.findByIdOptional(participantId)
                 .orElseThrow(() -> new RuntimeException("Participant not found"));
 
-        if (!participant.activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(participant.activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -397,14 +559,18 @@ public class ActivityService {
                 "Cannot remove participant: activity has " + expenseCount + " expense(s). Remove all expenses first.");
         }
 
+        Long activityId = participant.activity.id;
+        Long groupId = participant.activity.group.id;
         participantRepository.delete(participant);
+        calendarRepository.refreshActivity(activityId);
+        groupVersions.bump(groupId, GroupChangeType.PARTICIPANTS_CHANGED, activityId);
     }
 
     public List<ActivityParticipantDto> getParticipantsByActivity(Long activityId, Long userId) {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -412,12 +578,17 @@ public class ActivityService {
         return participantMapper.toDtoList(participants);
     }
 
+    /**
+     * Aggiunge una spesa con i suoi split.
+     * Paganti e membri delle split vengono validati con una sola query sul gruppo dell'attività,
+     * le split sono inserite in un batch JDBC e il DTO è costruito dallo stato in memoria.
+     */
     @Transactional
     public ActivityExpenseDto addExpense(Long activityId, ActivityExpenseRequest request, Long userId) {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -430,12 +601,30 @@ public class ActivityService {
             throw new RuntimeException("Total amount must be positive");
         }
 
-        // Primo pagante come riferimento per paid_by (retrocompatibilità DB)
-        GroupMember primaryPayer = groupMemberRepository.findByIdOptional(request.payers.get(0).groupMemberId)
-                .orElseThrow(() -> new RuntimeException("Payer not found"));
+        boolean hasSplits = request.splits != null && !request.splits.isEmpty();
+        if (hasSplits) {
+            // Valida che la somma degli splits corrisponda al totale
+            BigDecimal totalSplits = request.splits.stream()
+                    .map(s -> s.amount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        if (!primaryPayer.group.id.equals(activity.group.id)) {
-            throw new RuntimeException("Payer is not a member of this group");
+            if (totalSplits.compareTo(totalAmount) != 0) {
+                throw new InvalidExpenseSplitException("Splits must sum to total expense amount");
+            }
+        }
+
+        // Tutti i membri citati (paganti e split) in una sola query, limitata al gruppo
+        java.util.Set<Long> memberIds = new java.util.HashSet<>();
+        request.payers.forEach(p -> memberIds.add(p.groupMemberId));
+        if (hasSplits) {
+            request.splits.forEach(s -> memberIds.add(s.groupMemberId));
+        }
+        java.util.Map<Long, GroupMember> members = groupMemberRepository.findByGroupAndIds(activity.group.id, memberIds);
+
+        for (ActivityExpenseRequest.PayerRequest payer : request.payers) {
+            if (!members.containsKey(payer.groupMemberId)) {
+                throw new RuntimeException("Payer is not a member of this group");
+            }
         }
 
         ActivityExpense expense = new ActivityExpense();
@@ -443,20 +632,12 @@ public class ActivityService {
         expense.description = request.description;
         expense.amount = totalAmount;
         expense.currency = request.currency != null ? request.currency : "EUR";
-        expense.paidBy = primaryPayer;
+        // Primo pagante come riferimento per paid_by (retrocompatibilità DB)
+        expense.paidBy = members.get(request.payers.get(0).groupMemberId);
 
         expenseRepository.persist(expense);
 
-        if (request.splits != null && !request.splits.isEmpty()) {
-            // Valida che la somma degli splits corrisponda al totale
-            BigDecimal totalSplits = request.splits.stream()
-                    .map(s -> s.amount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            if (totalSplits.compareTo(totalAmount) != 0) {
-                throw new InvalidExpenseSplitException("Splits must sum to total expense amount");
-            }
-
+        if (hasSplits) {
             // Mappa dei paganti per accesso rapido
             java.util.Map<Long, BigDecimal> payersMap = request.payers.stream()
                     .collect(java.util.stream.Collectors.toMap(
@@ -464,9 +645,12 @@ public class ActivityService {
                             p -> p.paidAmount
                     ));
 
+            List<ActivityExpenseSplit> splits = new java.util.ArrayList<>(request.splits.size());
             for (ActivityExpenseRequest.ExpenseSplitRequest splitRequest : request.splits) {
-                GroupMember member = groupMemberRepository.findByIdOptional(splitRequest.groupMemberId)
-                        .orElseThrow(() -> new RuntimeException("Member not found in split"));
+                GroupMember member = members.get(splitRequest.groupMemberId);
+                if (member == null) {
+                    throw new RuntimeException("Member not found in split");
+                }
 
                 ActivityExpenseSplit split = new ActivityExpenseSplit();
                 split.expense = expense;
@@ -476,33 +660,32 @@ public class ActivityService {
                 split.paidAmount = split.isPayer
                         ? payersMap.get(splitRequest.groupMemberId)
                         : BigDecimal.ZERO;
-
-                expenseSplitRepository.persist(split);
+                splits.add(split);
             }
-        }
 
-        // Aggiorna totalCost dell'attività
-        BigDecimal newTotal = expenseRepository.getTotalByActivityId(activityId);
-        activity.totalCost = newTotal != null ? newTotal : BigDecimal.ZERO;
-        activityRepository.persist(activity);
+            // Id da sequence: le INSERT partono insieme, in batch, al flush
+            expenseSplitRepository.persist(splits);
+            expense.splits.addAll(splits);
 
-        expenseRepository.getEntityManager().flush();
+            ledgerService.recordExpense(activity.group.id, splits);
+        }
 
-        ActivityExpense savedExpense = expenseRepository.findByIdOptional(expense.id)
-                .orElseThrow(() -> new RuntimeException("Failed to retrieve saved expense"));
+        // Aggiorna totalCost dell'attività per differenza, con un UPDATE atomico
+        activityRepository.addToTotalCost(activity.id, totalAmount);
+        groupVersions.bump(activity.group.id, GroupChangeType.EXPENSE_ADDED, expense.id);
 
-        return expenseMapper.toDto(savedExpense);
+        return expenseMapper.toDto(expense);
     }
 
     public List<ActivityExpenseDto> getExpensesByActivity(Long activityId, Long userId) {
         Activity activity = activityRepository.findByIdOptional(activityId)
                 .orElseThrow(() -> new ActivityNotFoundException(activityId));
 
-        if (!activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
-        List<ActivityExpense> expenses = expenseRepository.findByActivityId(activityId);
+        List<ActivityExpense> expenses = expenseRepository.findByActivityIdWithSplits(activityId);
         return expenseMapper.toDtoList(expenses);
     }
 
@@ -511,18 +694,17 @@ public class ActivityService {
         ActivityExpense expense = expenseRepository.findByIdOptional(expenseId)
                 .orElseThrow(() -> new RuntimeException("Expense not found"));
 
-        if (!expense.activity.group.isMember(userId)) {
+        if (!groupAccess.isMember(expense.activity.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         Activity activity = expense.activity;
+        ledgerService.revertExpense(activity.group.id, expense);
         expenseRepository.delete(expense);
-        expenseRepository.getEntityManager().flush();
 
-        // Ricalcola totalCost dopo la cancellazione
-        BigDecimal newTotal = expenseRepository.getTotalByActivityId(activity.id);
-        activity.totalCost = newTotal != null ? newTotal : BigDecimal.ZERO;
-        activityRepository.persist(activity);
+        // Sottrae la spesa da totalCost con un UPDATE atomico
+        activityRepository.addToTotalCost(activity.id, expense.amount.negate());
+        groupVersions.bump(activity.group.id, GroupChangeType.EXPENSE_DELETED, expense.id);
     }
 
     /**
@@ -629,4 +811,19 @@ public class ActivityService {
         // fallback — should never happen with current schema
         return activityMapper.toDto(activity);
     }
+
+    /**
+     * Same dispatch as {@link #toTypedDto} for list views, using participant counts
+     * loaded in bulk instead of the lazy participants set of each activity.
+     */
+    private Object toListDto(Activity activity, java.util.Map<ParticipantStatus, Long> participantCounts) {
+        long confirmedCount = participantCounts.getOrDefault(ParticipantStatus.CONFIRMED, 0L);
+        if (activity instanceof Event event) {
+            return eventMapper.toDto(event, confirmedCount);
+        } else if (activity instanceof Trip trip) {
+            return tripMapper.toDto(trip, confirmedCount);
+        }
+        // fallback — should never happen with current schema
+        return activityMapper.toDto(activity);
+    }
 }
\ No newline at end of file
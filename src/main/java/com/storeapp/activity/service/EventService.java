@@ -6,8 +6,12 @@ import com.storeapp.activity.entity.Event;
 import com.storeapp.activity.exception.ActivityNotFoundException;
 import com.storeapp.activity.mapper.EventMapper;
 import com.storeapp.activity.repository.ActivityRepository;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
 import com.storeapp.group.entity.Group;
 import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.service.GroupVersionService;
 import com.storeapp.user.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -27,9 +31,18 @@ public class EventService {
     @Inject
     ActivityRepository activityRepository;
 
+    @Inject
+    ActivityCalendarRepository calendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupAccessService groupAccess;
+
     @Inject
     UserRepository userRepository;
 
@@ -42,10 +55,10 @@ public class EventService {
     @Transactional
     public EventDto createEvent(Long groupId, EventRequest request, Long userId) {
         // Validate group exists and user is member
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -58,6 +71,7 @@ public class EventService {
 
         // Persist
         activityRepository.persist(event);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITY_CREATED, event.id);
 
         return eventMapper.toDto(event);
     }
@@ -70,7 +84,7 @@ public class EventService {
                 .filter(a -> a instanceof Event)
                 .orElseThrow(() -> new ActivityNotFoundException(eventId));
 
-        if (!event.group.isMember(userId)) {
+        if (!groupAccess.isMember(event.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -86,13 +100,15 @@ public class EventService {
                 .filter(a -> a instanceof Event)
                 .orElseThrow(() -> new ActivityNotFoundException(eventId));
 
-        if (!event.group.isMember(userId)) {
+        if (!groupAccess.isMember(event.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         // Update fields
         eventMapper.updateEntityFromRequest(request, event);
         event.updatedAt = LocalDateTime.now();
+        calendarRepository.refreshActivity(event.id);
+        groupVersions.bump(event.group.id, GroupChangeType.ACTIVITY_UPDATED, event.id);
 
         return eventMapper.toDto(event);
     }
@@ -106,11 +122,12 @@ public class EventService {
                 .filter(a -> a instanceof Event)
                 .orElseThrow(() -> new ActivityNotFoundException(eventId));
 
-        if (!event.group.isMember(userId)) {
+        if (!groupAccess.isMember(event.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         activityRepository.delete(event);
+        groupVersions.bump(event.group.id, GroupChangeType.ACTIVITY_DELETED, event.id);
     }
 
     /**
@@ -120,13 +137,14 @@ public class EventService {
         Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         return activityRepository.findByGroupId(groupId).stream()
                 .filter(a -> a instanceof Event)
-                .map(a -> eventMapper.toDto((Event) a))
+                .map(a -> (Event) a)
+                .map(e -> eventMapper.toDto(e, e.getConfirmedCount()))
                 .collect(Collectors.toList());
     }
 }
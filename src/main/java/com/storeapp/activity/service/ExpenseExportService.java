@@ -0,0 +1,178 @@
+package com.storeapp.activity.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.storeapp.activity.dto.ExpenseExportFormat;
+import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
+import com.storeapp.activity.repository.ExpenseExportRow;
+import com.storeapp.group.exception.GroupNotFoundException;
+import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
+import com.storeapp.shared.config.StreamingTransactions;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Export di tutte le spese e le split di un gruppo (CSV o NDJSON), una riga per split.
+ *
+ * Le righe vengono lette con un cursore JDBC e scritte subito sull'output della risposta:
+ * niente entity, niente mapper, memoria costante anche con centinaia di migliaia di split.
+ */
+@ApplicationScoped
+public class ExpenseExportService {
+
+    /** Righe lette per ogni round-trip del cursore JDBC */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    static final String CSV_HEADER = "expense_id,created_at,activity_id,activity_type,activity_name,"
+            + "description,expense_amount,currency,paid_by_member_id,paid_by_name,"
+            + "group_member_id,member_name,amount,is_payer,paid_amount";
+
+    @Inject
+    ActivityExpenseSplitRepository splitRepository;
+
+    @Inject
+    GroupRepository groupRepository;
+
+    @Inject
+    GroupAccessService groupAccess;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * Verifica gruppo e membership prima di iniziare la risposta:
+     * una volta partito lo stream lo status HTTP non può più cambiare.
+     */
+    public void checkAccess(Long groupId, Long userId) {
+        if (groupRepository.findByIdOptional(groupId).isEmpty()) {
+            throw new GroupNotFoundException(groupId);
+        }
+        if (!groupAccess.isMember(groupId, userId)) {
+            throw new RuntimeException("User is not a member of this group");
+        }
+    }
+
+    /**
+     * Scrive l'export su {@code out}. La transazione serve al driver PostgreSQL
+     * per usare il cursore invece di caricare l'intero result set, e resta aperta
+     * per tutto il download: il timeout (storeapp.streaming.transaction-timeout-seconds)
+     * sostituisce i 60s di default e limita quanto un client lento può tenerla occupata.
+     * Allo scadere il cursore viene chiuso e la risposta risulta troncata.
+     */
+    @Transactional
+    @TransactionConfiguration(timeout = StreamingTransactions.TIMEOUT_SECONDS,
+            timeoutFromConfigProperty = StreamingTransactions.TIMEOUT_PROPERTY)
+    public void export(Long groupId, ExpenseExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try (Stream<ExpenseExportRow> rows = splitRepository.streamForExport(groupId, EXPORT_FETCH_SIZE)) {
+            if (format == ExpenseExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                rows.forEach(row -> {
+                    try {
+                        writeCsv(writer, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } else {
+                SequenceWriter json = objectMapper.writer()
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .withRootValueSeparator("\n")
+                        .writeValues(writer);
+                rows.forEach(row -> {
+                    try {
+                        json.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.close();
+                writer.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            // Tipicamente il client ha chiuso la connessione
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    static void writeCsv(Writer writer, ExpenseExportRow row) throws IOException {
+        writer.write(String.valueOf(row.expenseId));
+        writer.write(',');
+        writer.write(String.valueOf(row.createdAt));
+        writer.write(',');
+        writer.write(String.valueOf(row.activityId));
+        writer.write(',');
+        writer.write(row.activityType);
+        writer.write(',');
+        writeCsvText(writer, row.activityName);
+        writer.write(',');
+        writeCsvText(writer, row.description);
+        writer.write(',');
+        writeCsvAmount(writer, row.expenseAmount);
+        writer.write(',');
+        writeCsvText(writer, row.currency);
+        writer.write(',');
+        writer.write(String.valueOf(row.paidByMemberId));
+        writer.write(',');
+        writeCsvText(writer, row.paidByName);
+        writer.write(',');
+        writer.write(String.valueOf(row.groupMemberId));
+        writer.write(',');
+        writeCsvText(writer, row.memberName);
+        writer.write(',');
+        writeCsvAmount(writer, row.amount);
+        writer.write(',');
+        writer.write(String.valueOf(Boolean.TRUE.equals(row.isPayer)));
+        writer.write(',');
+        writeCsvAmount(writer, row.paidAmount);
+        writer.write('\n');
+    }
+
+    /**
+     * Campo testo RFC 4180: tra virgolette solo se contiene separatori, virgolette o a capo.
+     * I valori che un foglio di calcolo interpreterebbe come formula (=, +, -, @, tab, CR iniziali)
+     * vengono preceduti da un apice, così nomi e descrizioni inseriti dagli utenti restano testo.
+     */
+    static void writeCsvText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeCsvAmount(Writer writer, BigDecimal value) throws IOException {
+        if (value != null) {
+            writer.write(value.toPlainString());
+        }
+    }
+}
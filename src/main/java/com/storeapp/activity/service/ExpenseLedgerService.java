@@ -0,0 +1,187 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.entity.ActivityExpense;
+import com.storeapp.activity.entity.ActivityExpenseSplit;
+import com.storeapp.activity.entity.GroupExpenseLedger;
+import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
+import com.storeapp.activity.repository.ExpenseLedgerRepository;
+import com.storeapp.activity.repository.MemberBalanceDelta;
+import com.storeapp.activity.repository.MemberBalanceProjection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene il ledger incrementale dei bilanci di gruppo.
+ *
+ * Ogni scrittura sulle spese applica un delta (paid, owed, #split) ai membri coinvolti
+ * e ai totali del gruppo, nella stessa transazione della spesa. Il calcolo del settlement
+ * legge quindi N righe per chiave invece di riaggregare tutte le split del gruppo.
+ *
+ * verify/rebuild confrontano il ledger con l'aggregazione completa e lo riallineano.
+ */
+@ApplicationScoped
+public class ExpenseLedgerService {
+
+    private static final Logger LOG = Logger.getLogger(ExpenseLedgerService.class);
+
+    @Inject
+    ExpenseLedgerRepository ledgerRepository;
+
+    @Inject
+    ActivityExpenseSplitRepository splitRepository;
+
+    /**
+     * Registra nel ledger una spesa appena creata con le sue split.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordExpense(Long groupId, Collection<ActivityExpenseSplit> splits) {
+        apply(groupId, splits, 1);
+    }
+
+    /**
+     * Storna dal ledger una spesa che sta per essere eliminata.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void revertExpense(Long groupId, ActivityExpense expense) {
+        apply(groupId, expense.splits, -1);
+    }
+
+    /**
+     * Storna dal ledger tutte le spese di un'attività che sta per essere eliminata.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void revertActivity(Long groupId, Long activityId) {
+        List<MemberBalanceDelta> sums = ledgerRepository.sumSplitsByActivityId(activityId);
+        if (sums.isEmpty()) {
+            return;
+        }
+
+        List<MemberBalanceDelta> negated = sums.stream()
+                .map(d -> new MemberBalanceDelta(d.groupMemberId(), d.paid().negate(), d.owed().negate(), -d.splits()))
+                .collect(Collectors.toList());
+        BigDecimal total = sums.stream().map(MemberBalanceDelta::owed).reduce(BigDecimal.ZERO, BigDecimal::add);
+        long expenseCount = ledgerRepository.countExpensesWithSplitsByActivityId(activityId);
+
+        ledgerRepository.applyMemberDeltas(groupId, negated);
+        ledgerRepository.applyGroupDelta(groupId, total.negate(), -expenseCount);
+    }
+
+    /**
+     * Bilanci dei membri letti dal ledger
+     */
+    public List<MemberBalanceProjection> getBalances(Long groupId) {
+        return ledgerRepository.findBalancesByGroupId(groupId);
+    }
+
+    /**
+     * Totali di gruppo letti dal ledger (zero se il gruppo non ha spese)
+     */
+    public GroupExpenseLedger getTotals(Long groupId) {
+        return ledgerRepository.findTotalsByGroupId(groupId).orElseGet(() -> {
+            GroupExpenseLedger empty = new GroupExpenseLedger();
+            empty.groupId = groupId;
+            return empty;
+        });
+    }
+
+    /**
+     * Ricostruisce il ledger del gruppo dall'aggregazione completa delle split.
+     */
+    @Transactional
+    public void rebuild(Long groupId) {
+        ledgerRepository.rebuildByGroupId(groupId);
+    }
+
+    /**
+     * Confronta il ledger con l'aggregazione completa delle split.
+     *
+     * @return true se ledger e aggregazione coincidono
+     */
+    @Transactional
+    public boolean verify(Long groupId) {
+        Map<Long, MemberBalanceProjection> expected = splitRepository.getBalancesByGroupId(groupId).stream()
+                .collect(Collectors.toMap(p -> p.groupMemberId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        Map<Long, MemberBalanceProjection> actual = ledgerRepository.findBalancesByGroupId(groupId).stream()
+                .collect(Collectors.toMap(p -> p.groupMemberId, Function.identity()));
+
+        boolean consistent = expected.size() == actual.size();
+        for (MemberBalanceProjection e : expected.values()) {
+            MemberBalanceProjection a = actual.get(e.groupMemberId);
+            if (a == null || !sameAmount(e.totalPaid, a.totalPaid) || !sameAmount(e.totalOwed, a.totalOwed)) {
+                LOG.warnf("Ledger gruppo %d: bilancio membro %d divergente (atteso paid=%s owed=%s, ledger %s)",
+                        groupId, e.groupMemberId, e.totalPaid, e.totalOwed,
+                        a == null ? "assente" : "paid=" + a.totalPaid + " owed=" + a.totalOwed);
+                consistent = false;
+            }
+        }
+
+        GroupExpenseLedger totals = getTotals(groupId);
+        BigDecimal expectedTotal = splitRepository.getTotalExpensesByGroupId(groupId);
+        long expectedCount = splitRepository.countExpensesByGroupId(groupId);
+        if (!sameAmount(expectedTotal, totals.totalExpenses) || expectedCount != totals.expenseCount) {
+            LOG.warnf("Ledger gruppo %d: totali divergenti (atteso %s/%d, ledger %s/%d)",
+                    groupId, expectedTotal, expectedCount, totals.totalExpenses, totals.expenseCount);
+            consistent = false;
+        }
+        return consistent;
+    }
+
+    /**
+     * Verifica il ledger del gruppo e, se diverge, lo ricostruisce.
+     *
+     * @return true se è stato necessario ricostruirlo
+     */
+    @Transactional
+    public boolean verifyAndRepair(Long groupId) {
+        if (verify(groupId)) {
+            return false;
+        }
+        ledgerRepository.rebuildByGroupId(groupId);
+        return true;
+    }
+
+    private void apply(Long groupId, Collection<ActivityExpenseSplit> splits, int sign) {
+        if (splits == null || splits.isEmpty()) {
+            // Spese senza split non concorrono ai bilanci (coerente con l'aggregazione)
+            return;
+        }
+
+        Map<Long, MemberBalanceDelta> byMember = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (ActivityExpenseSplit split : splits) {
+            BigDecimal paid = split.paidAmount != null ? split.paidAmount : BigDecimal.ZERO;
+            BigDecimal owed = split.amount != null ? split.amount : BigDecimal.ZERO;
+            total = total.add(owed);
+            byMember.merge(split.groupMember.id,
+                    new MemberBalanceDelta(split.groupMember.id, paid, owed, 1L),
+                    (a, b) -> new MemberBalanceDelta(a.groupMemberId(),
+                            a.paid().add(b.paid()), a.owed().add(b.owed()), a.splits() + b.splits()));
+        }
+
+        List<MemberBalanceDelta> deltas = byMember.values().stream()
+                .map(d -> sign > 0 ? d : new MemberBalanceDelta(
+                        d.groupMemberId(), d.paid().negate(), d.owed().negate(), -d.splits()))
+                .collect(Collectors.toList());
+
+        ledgerRepository.applyMemberDeltas(groupId, deltas);
+        ledgerRepository.applyGroupDelta(groupId, sign > 0 ? total : total.negate(), sign);
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return Objects.compare(
+                a != null ? a : BigDecimal.ZERO,
+                b != null ? b : BigDecimal.ZERO,
+                BigDecimal::compareTo) == 0;
+    }
+}
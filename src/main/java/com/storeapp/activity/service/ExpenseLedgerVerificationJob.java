@@ -0,0 +1,52 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.repository.ExpenseLedgerRepository;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/**
+ * Job periodico che verifica il ledger dei bilanci contro l'aggregazione completa delle split
+ * e ricostruisce i gruppi divergenti.
+ *
+ * Frequenza: storeapp.expense-ledger.verify.every ("off" per disabilitarlo).
+ */
+@ApplicationScoped
+public class ExpenseLedgerVerificationJob {
+
+    private static final Logger LOG = Logger.getLogger(ExpenseLedgerVerificationJob.class);
+
+    @Inject
+    ExpenseLedgerRepository ledgerRepository;
+
+    @Inject
+    ExpenseLedgerService ledgerService;
+
+    @Scheduled(every = "{storeapp.expense-ledger.verify.every}",
+               delay = 1, delayUnit = java.util.concurrent.TimeUnit.MINUTES,
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void verifyAllGroups() {
+        List<Long> groupIds = ledgerRepository.findAllGroupIds();
+        int repaired = 0;
+
+        // Una transazione per gruppo: un errore su un gruppo non blocca gli altri
+        for (Long groupId : groupIds) {
+            try {
+                if (ledgerService.verifyAndRepair(groupId)) {
+                    repaired++;
+                }
+            } catch (Exception e) {
+                LOG.errorf(e, "Verifica ledger fallita per il gruppo %d", groupId);
+            }
+        }
+
+        if (repaired > 0) {
+            LOG.warnf("Verifica ledger completata: %d/%d gruppi ricostruiti", repaired, groupIds.size());
+        } else {
+            LOG.debugf("Verifica ledger completata: %d gruppi allineati", groupIds.size());
+        }
+    }
+}
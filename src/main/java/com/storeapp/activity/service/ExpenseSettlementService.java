@@ -8,36 +8,48 @@ import com.storeapp.activity.entity.ActivityExpense;
 import com.storeapp.activity.entity.ActivityExpenseSplit;
 import com.storeapp.activity.entity.Event;
 import com.storeapp.activity.entity.EventCategory;
+import com.storeapp.activity.entity.GroupExpenseLedger;
 import com.storeapp.activity.repository.ActivityExpenseRepository;
 import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
 import com.storeapp.activity.repository.ActivityRepository;
 import com.storeapp.activity.repository.MemberBalanceProjection;
+import com.storeapp.activity.settlement.GreedySettlementEngine;
+import com.storeapp.activity.settlement.OptimalSettlementSolver;
+import com.storeapp.activity.settlement.SettlementMode;
+import com.storeapp.activity.settlement.SettlementTransfer;
 import com.storeapp.group.entity.GroupMember;
 import com.storeapp.group.repository.GroupMemberRepository;
 import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.service.GroupVersionService;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Servizio per il calcolo del settlement delle spese di gruppo.
  *
  * Algoritmo: Greedy Debt Simplification
- *   1. Calcola bilancio per ogni membro: paid - owed
+ *   1. Legge il bilancio di ogni membro dal ledger incrementale: paid - owed
  *   2. Separa creditori (balance > 0) e debitori (balance < 0)
  *   3. Abbina il debitore più grande col creditore più grande
  *      → genera una transazione, riduce i saldi, ripete
- *   Risultato: numero minimo di transazioni per saldare tutto
+ *   Risultato: poche transazioni, ma non necessariamente il minimo.
+ *
+ * Con mode=optimal si usa {@link OptimalSettlementSolver} (partizione in sottoinsiemi
+ * a somma zero), che garantisce il minimo entro storeapp.settlement.optimal.time-budget-ms.
  */
 @ApplicationScoped
 public class ExpenseSettlementService {
@@ -45,12 +57,28 @@ public class ExpenseSettlementService {
     /** Nome riservato dell'activity usata per i rimborsi di saldo */
     private static final String SETTLEMENT_ACTIVITY_NAME = " Rimborsi";
 
+    /** Valori di GroupExpenseSettlementDto.solver */
+    static final String SOLVER_GREEDY = "greedy";
+    static final String SOLVER_OPTIMAL = "optimal";
+    static final String SOLVER_GREEDY_FALLBACK = "greedy-fallback";
+    static final String SOLVER_GREEDY_UNBALANCED = "greedy-unbalanced";
+
+    /** Budget di tempo del solver esatto (mode=optimal) prima di ripiegare sul greedy */
+    @ConfigProperty(name = "storeapp.settlement.optimal.time-budget-ms", defaultValue = "200")
+    long optimalTimeBudgetMs;
+
     @Inject
     ActivityExpenseSplitRepository splitRepository;
 
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupAccessService groupAccess;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     GroupMemberRepository groupMemberRepository;
 
@@ -60,16 +88,29 @@ public class ExpenseSettlementService {
     @Inject
     ActivityExpenseRepository expenseRepository;
 
+    @Inject
+    ExpenseLedgerService ledgerService;
+
     public GroupExpenseSettlementDto calculateSettlement(Long groupId, Long userId) {
+        return calculateSettlement(groupId, userId, SettlementMode.GREEDY);
+    }
+
+    /**
+     * Calcola il settlement con la modalità richiesta.
+     * In modalità OPTIMAL, se il solver esatto supera il budget di tempo si usa il greedy
+     * (solver = "greedy-fallback"); se i saldi non sommano a zero oltre il residuo di
+     * arrotondamento il solver esatto non viene nemmeno avviato (solver = "greedy-unbalanced").
+     */
+    public GroupExpenseSettlementDto calculateSettlement(Long groupId, Long userId, SettlementMode mode) {
         // Verifica che il gruppo esista e l'utente ne faccia parte
         var group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
-        // 1. Bilanci aggregati per membro
-        List<MemberBalanceProjection> rawBalances = splitRepository.getBalancesByGroupId(groupId);
+        // 1. Bilanci per membro (letti dal ledger incrementale)
+        List<MemberBalanceProjection> rawBalances = ledgerService.getBalances(groupId);
 
         List<MemberBalanceDto> balanceDtos = rawBalances.stream().map(p -> {
             MemberBalanceDto dto = new MemberBalanceDto();
@@ -82,88 +123,71 @@ public class ExpenseSettlementService {
             return dto;
         }).collect(Collectors.toList());
 
-        // 2. Algoritmo greedy
-        List<SettlementTransactionDto> transactions = greedySettle(balanceDtos);
+        // 2. Transazioni (greedy oppure partizione ottima entro il budget)
+        long[] cents = toCents(balanceDtos);
+        long start = System.nanoTime();
+        List<SettlementTransfer> transfers = null;
+        String solver = SOLVER_GREEDY;
+        if (mode == SettlementMode.OPTIMAL && !OptimalSettlementSolver.isBalanced(cents)) {
+            solver = SOLVER_GREEDY_UNBALANCED;
+        } else if (mode == SettlementMode.OPTIMAL) {
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(optimalTimeBudgetMs);
+            transfers = OptimalSettlementSolver.solve(cents, deadline).orElse(null);
+            solver = transfers != null ? SOLVER_OPTIMAL : SOLVER_GREEDY_FALLBACK;
+        }
+        if (transfers == null) {
+            transfers = GreedySettlementEngine.settle(cents);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        List<SettlementTransactionDto> transactions = toTransactions(transfers, balanceDtos);
 
         // 3. Totali
-        BigDecimal totalExpenses = splitRepository.getTotalExpensesByGroupId(groupId);
-        long expenseCount = splitRepository.countExpensesByGroupId(groupId);
+        GroupExpenseLedger totals = ledgerService.getTotals(groupId);
 
         GroupExpenseSettlementDto result = new GroupExpenseSettlementDto();
         result.groupId = groupId;
-        result.totalExpenses = totalExpenses.setScale(2, RoundingMode.HALF_UP);
-        result.expenseCount = (int) expenseCount;
+        result.totalExpenses = totals.totalExpenses.setScale(2, RoundingMode.HALF_UP);
+        result.expenseCount = (int) totals.expenseCount;
         result.balances = balanceDtos;
         result.settlements = transactions;
         result.transactionCount = transactions.size();
+        result.solver = solver;
+        result.solverTimeMs = Math.round(elapsedNanos / 1_000.0) / 1_000.0;
         return result;
     }
 
     /**
-     * Greedy Debt Simplification.
-     *
-     * Lavora su copie mutabili dei bilanci per non alterare i DTO originali.
-     * Threshold: ignora differenze < 0.01€ (arrotondamenti floating point).
+     * Bilanci in centesimi, nello stesso ordine della lista (input dei motori di settlement)
      */
-    private List<SettlementTransactionDto> greedySettle(List<MemberBalanceDto> balances) {
-        final BigDecimal THRESHOLD = new BigDecimal("0.01");
-
-        // Copie mutabili: (memberId, nome, avatar, saldo corrente)
-        record Node(Long id, String name, String avatarUrl, BigDecimal[] balance) {}
-
-        List<Node> debtors = new ArrayList<>();
-        List<Node> creditors = new ArrayList<>();
-
-				// Suddivido i membri in debitori e creditori, ignorando quelli già in pari
-        for (MemberBalanceDto b : balances) {
-            BigDecimal bal = b.balance;
-            if (bal.compareTo(THRESHOLD.negate()) < 0) {
-                // debitore: balance negativo
-                debtors.add(new Node(b.groupMemberId, b.memberName, b.memberAvatarUrl,
-                        new BigDecimal[]{bal.abs()}));
-            } else if (bal.compareTo(THRESHOLD) > 0) {
-                // creditore: balance positivo
-                creditors.add(new Node(b.groupMemberId, b.memberName, b.memberAvatarUrl,
-                        new BigDecimal[]{bal}));
-            }
-            // balance ≈ 0 → già in pari, ignorato
+    private static long[] toCents(List<MemberBalanceDto> balances) {
+        long[] cents = new long[balances.size()];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = balances.get(i).balance.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
         }
+        return cents;
+    }
 
-        List<SettlementTransactionDto> transactions = new ArrayList<>();
-
-        // Ordina decrescente per importo assoluto (ottimizza le transazioni)
-        Comparator<Node> desc = Comparator.comparing(n -> n.balance()[0].negate());
-
-        while (!debtors.isEmpty() && !creditors.isEmpty()) {
-            debtors.sort(desc);
-            creditors.sort(desc);
-
-            Node debtor = debtors.get(0);
-            Node creditor = creditors.get(0);
-
-						// prendi il minimo tra il saldo del debitore e quello del creditore
-            BigDecimal amount = debtor.balance()[0].min(creditor.balance()[0])
-                    .setScale(2, RoundingMode.HALF_UP);
+    /**
+     * Converte i trasferimenti (indici nella lista dei bilanci) nei DTO di risposta.
+     * I DTO dei bilanci non vengono alterati.
+     */
+    private static List<SettlementTransactionDto> toTransactions(List<SettlementTransfer> transfers,
+                                                                 List<MemberBalanceDto> balances) {
+        List<SettlementTransactionDto> transactions = new ArrayList<>(transfers.size());
+        for (SettlementTransfer transfer : transfers) {
+            MemberBalanceDto debtor = balances.get(transfer.from());
+            MemberBalanceDto creditor = balances.get(transfer.to());
 
             SettlementTransactionDto tx = new SettlementTransactionDto();
-            tx.fromMemberId = debtor.id();
-            tx.fromMemberName = debtor.name();
-            tx.fromMemberAvatarUrl = debtor.avatarUrl();
-            tx.toMemberId = creditor.id();
-            tx.toMemberName = creditor.name();
-            tx.toMemberAvatarUrl = creditor.avatarUrl();
-            tx.amount = amount;
+            tx.fromMemberId = debtor.groupMemberId;
+            tx.fromMemberName = debtor.memberName;
+            tx.fromMemberAvatarUrl = debtor.memberAvatarUrl;
+            tx.toMemberId = creditor.groupMemberId;
+            tx.toMemberName = creditor.memberName;
+            tx.toMemberAvatarUrl = creditor.memberAvatarUrl;
+            tx.amount = BigDecimal.valueOf(transfer.amountCents(), 2);
             transactions.add(tx);
-
-            // Aggiorna saldi
-            debtor.balance()[0] = debtor.balance()[0].subtract(amount);
-            creditor.balance()[0] = creditor.balance()[0].subtract(amount);
-
-            // Rimuovi se saldato
-            if (debtor.balance()[0].compareTo(THRESHOLD) < 0) debtors.remove(0);
-            if (creditor.balance()[0].compareTo(THRESHOLD) < 0) creditors.remove(0);
         }
-
         return transactions;
     }
 
@@ -178,7 +202,7 @@ public class ExpenseSettlementService {
     public void recordSettlement(Long groupId, SettleDebtRequest request, Long userId) {
         var group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new NotFoundException("Gruppo non trovato"));
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("Non sei membro di questo gruppo");
         }
 
@@ -242,9 +266,11 @@ public class ExpenseSettlementService {
         receiverSplit.paidAmount = BigDecimal.ZERO;
         splitRepository.persist(receiverSplit);
 
-        // Aggiorna totalCost dell'activity di rimborsi
-        BigDecimal newTotal = expenseRepository.getTotalByActivityId(settlementActivity.id);
-        settlementActivity.totalCost = newTotal != null ? newTotal : BigDecimal.ZERO;
-        activityRepository.persist(settlementActivity);
+        // Aggiorna il ledger dei bilanci con le due split del rimborso
+        ledgerService.recordExpense(groupId, List.of(payerSplit, receiverSplit));
+
+        // Aggiorna totalCost dell'activity di rimborsi con un UPDATE atomico
+        activityRepository.addToTotalCost(settlementActivity.id, expense.amount);
+        groupVersions.bump(groupId, GroupChangeType.SETTLEMENT_RECORDED, expense.id);
     }
 }
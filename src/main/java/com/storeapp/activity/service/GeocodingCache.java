@@ -0,0 +1,60 @@
+package com.storeapp.activity.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache LRU con scadenza per i risultati di geolocalizzazione.
+ *
+ * - dimensione limitata: oltre maxSize si scarta la voce usata meno di recente
+ * - ogni voce scade ttlMillis dopo l'inserimento (i dati dei luoghi cambiano raramente)
+ *
+ * Gli accessi sono sincronizzati: le operazioni sono brevi e il volume è basso
+ * rispetto alle chiamate al provider che la cache evita.
+ */
+class GeocodingCache<V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+
+    GeocodingCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > GeocodingCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Valore in cache, null se assente o scaduto
+     */
+    synchronized V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= clock.getAsLong()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    synchronized void put(String key, V value) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.LocationDto;
+import com.storeapp.activity.entity.LocationProvider;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementazione di un servizio di geolocalizzazione esterno.
+ *
+ * Ogni implementazione è un bean CDI; {@link LocationService} usa quella che corrisponde a
+ * storeapp.location.provider. Le chiamate sono asincrone e non devono bloccare il thread chiamante.
+ * Cache e richieste duplicate sono gestite da LocationService, non dal provider.
+ */
+public interface GeocodingProvider {
+
+    /**
+     * Valore di storeapp.location.provider servito da questa implementazione
+     */
+    LocationProvider provider();
+
+    /**
+     * Ricerca testuale (indirizzo, nome del luogo)
+     *
+     * @param query testo già normalizzato
+     * @param limit numero massimo di risultati
+     */
+    CompletableFuture<List<LocationDto>> search(String query, int limit);
+
+    /**
+     * Dettaglio di un luogo dal suo placeId (quello restituito da {@link #search})
+     *
+     * @return vuoto se il provider non conosce il luogo
+     */
+    CompletableFuture<Optional<LocationDto>> lookup(String placeId);
+}
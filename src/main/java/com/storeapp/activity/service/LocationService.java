@@ -0,0 +1,176 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.LocationDto;
+import com.storeapp.activity.entity.LocationProvider;
+import com.storeapp.activity.exception.LocationProviderUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Geolocalizzazione lato server per Event e Trip, con il provider configurato in
+ * storeapp.location.provider (un {@link GeocodingProvider} per valore).
+ *
+ * - cache LRU con scadenza (storeapp.location.cache.*) per ricerca testuale e placeId;
+ *   i risultati di una ricerca popolano anche la cache dei placeId
+ * - richieste identiche contemporanee condividono un'unica chiamata al provider
+ * - i fallimenti non vengono messi in cache
+ *
+ * La chiave di ricerca è il testo normalizzato (Unicode NFKC, spazi compattati, minuscolo)
+ * più il numero di risultati richiesti.
+ */
+@ApplicationScoped
+public class LocationService {
+
+    private static final Logger LOG = Logger.getLogger(LocationService.class);
+
+    static final int MIN_QUERY_LENGTH = 3;
+    static final int DEFAULT_LIMIT = 5;
+    static final int MAX_LIMIT = 10;
+
+    @ConfigProperty(name = "storeapp.location.provider", defaultValue = "OPENSTREETMAP")
+    LocationProvider configuredProvider;
+
+    @ConfigProperty(name = "storeapp.location.cache.max-size", defaultValue = "5000")
+    int cacheMaxSize;
+
+    @ConfigProperty(name = "storeapp.location.cache.ttl", defaultValue = "PT24H")
+    Duration cacheTtl;
+
+    @Inject
+    @Any
+    Instance<GeocodingProvider> providers;
+
+    GeocodingProvider provider;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private GeocodingCache<List<LocationDto>> searchCache;
+    private GeocodingCache<Optional<LocationDto>> placeCache;
+
+    /** Chiamate in corso verso il provider, per chiave di cache */
+    private final ConcurrentMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (provider == null) {
+            provider = providers.stream()
+                    .filter(candidate -> candidate.provider() == configuredProvider)
+                    .findFirst()
+                    .orElse(null);
+        }
+        if (provider == null) {
+            LOG.warnf("Nessun servizio di geolocalizzazione disponibile per storeapp.location.provider=%s", configuredProvider);
+        }
+        searchCache = new GeocodingCache<>(cacheMaxSize, cacheTtl.toMillis(), clock);
+        placeCache = new GeocodingCache<>(cacheMaxSize, cacheTtl.toMillis(), clock);
+    }
+
+    /**
+     * Ricerca di luoghi per testo
+     *
+     * @param query testo libero, almeno {@value #MIN_QUERY_LENGTH} caratteri
+     * @param limit numero di risultati (default {@value #DEFAULT_LIMIT}, massimo {@value #MAX_LIMIT})
+     */
+    public CompletableFuture<List<LocationDto>> search(String query, Integer limit) {
+        String normalized = normalizeQuery(query);
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            throw new BadRequestException("La ricerca richiede almeno " + MIN_QUERY_LENGTH + " caratteri");
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, limit));
+
+        return cached(searchCache, "search:" + size + ":" + normalized, () -> provider().search(normalized, size)
+                .thenApply(results -> {
+                    results.forEach(result -> placeCache.put("place:" + result.placeId, Optional.of(result)));
+                    return results;
+                }));
+    }
+
+    /**
+     * Dettaglio di un luogo dal placeId restituito dalla ricerca
+     *
+     * @return vuoto se il provider non conosce il luogo
+     */
+    public CompletableFuture<Optional<LocationDto>> lookup(String placeId) {
+        if (placeId == null || placeId.isBlank()) {
+            throw new BadRequestException("placeId obbligatorio");
+        }
+        String id = placeId.trim();
+        return cached(placeCache, "place:" + id, () -> provider().lookup(id));
+    }
+
+    /**
+     * Valore dalla cache, oppure dalla chiamata già in corso per la stessa chiave,
+     * oppure da una nuova chiamata al provider
+     */
+    @SuppressWarnings("unchecked")
+    private <V> CompletableFuture<V> cached(GeocodingCache<V> cache, String key, Supplier<CompletableFuture<V>> load) {
+        V hit = cache.get(key);
+        if (hit != null) {
+            return CompletableFuture.completedFuture(hit);
+        }
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            // copy(): un chiamante non può completare o cancellare la chiamata condivisa
+            return ((CompletableFuture<V>) existing).copy();
+        }
+
+        CompletableFuture<V> loading;
+        try {
+            loading = load.get();
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((value, failure) -> {
+            // In cache prima di liberare la chiave: nessuna finestra per una chiamata duplicata
+            if (failure == null) {
+                cache.put(key, value);
+            }
+            inFlight.remove(key, call);
+            if (failure == null) {
+                call.complete(value);
+            } else {
+                call.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            }
+        });
+        return call.copy();
+    }
+
+    private GeocodingProvider provider() {
+        if (provider == null) {
+            throw new LocationProviderUnavailableException(
+                    "Nessun servizio di geolocalizzazione disponibile per " + configuredProvider);
+        }
+        return provider;
+    }
+
+    static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return Normalizer.normalize(query, Normalizer.Form.NFKC)
+                .strip()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+}
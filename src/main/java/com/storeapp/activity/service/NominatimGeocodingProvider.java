@@ -0,0 +1,222 @@
+package com.storeapp.activity.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.activity.dto.LocationDto;
+import com.storeapp.activity.entity.LocationProvider;
+import com.storeapp.activity.exception.LocationProviderUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Geolocalizzazione tramite OpenStreetMap Nominatim (storeapp.location.osm.*).
+ *
+ * Rispetta la usage policy di Nominatim:
+ * - al massimo una richiesta ogni storeapp.location.osm.min-interval-ms (default 1 secondo),
+ *   per tutta l'applicazione: le richieste vengono messe in coda e ritardate
+ * - se l'attesa in coda supererebbe storeapp.location.osm.max-queue-wait-ms la richiesta
+ *   fallisce subito con 503 invece di accumularsi
+ * - User-Agent identificativo ed email di contatto opzionale
+ * - su 429/503 la coda si ferma per il tempo indicato da Retry-After
+ *
+ * Il placeId è osm_type + osm_id (es. "W4433451"), stabile tra le installazioni di
+ * Nominatim a differenza di place_id; il dettaglio usa l'endpoint /lookup.
+ */
+@ApplicationScoped
+public class NominatimGeocodingProvider implements GeocodingProvider {
+
+    private static final Logger LOG = Logger.getLogger(NominatimGeocodingProvider.class);
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+    private static final long DEFAULT_RETRY_AFTER_MS = 60_000;
+
+    @ConfigProperty(name = "storeapp.location.osm.api-url", defaultValue = "https://nominatim.openstreetmap.org")
+    String apiUrl;
+
+    @ConfigProperty(name = "storeapp.location.osm.user-agent", defaultValue = "StoreApp/1.0")
+    String userAgent;
+
+    @ConfigProperty(name = "storeapp.location.osm.email")
+    Optional<String> email;
+
+    @ConfigProperty(name = "storeapp.location.osm.min-interval-ms", defaultValue = "1000")
+    long minIntervalMs;
+
+    @ConfigProperty(name = "storeapp.location.osm.max-queue-wait-ms", defaultValue = "5000")
+    long maxQueueWaitMs;
+
+    @ConfigProperty(name = "storeapp.location.osm.connect-timeout-ms", defaultValue = "3000")
+    long connectTimeoutMs;
+
+    @ConfigProperty(name = "storeapp.location.osm.request-timeout-ms", defaultValue = "5000")
+    long requestTimeoutMs;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /** Client condiviso tra tutte le richieste verso Nominatim */
+    private HttpClient httpClient;
+
+    /** Istante (epoch millis) a partire dal quale può partire la prossima richiesta */
+    private final AtomicLong nextSlotMillis = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public LocationProvider provider() {
+        return LocationProvider.OPENSTREETMAP;
+    }
+
+    @Override
+    public CompletableFuture<List<LocationDto>> search(String query, int limit) {
+        return get("/search?format=jsonv2&addressdetails=1&limit=" + limit + "&q=" + encode(query))
+                .thenApply(this::toDtos);
+    }
+
+    @Override
+    public CompletableFuture<Optional<LocationDto>> lookup(String placeId) {
+        return get("/lookup?format=jsonv2&addressdetails=1&osm_ids=" + encode(placeId))
+                .thenApply(places -> toDtos(places).stream().findFirst());
+    }
+
+    // ========== HTTP e limite di frequenza ==========
+
+    private CompletableFuture<JsonNode> get(String pathAndQuery) {
+        long delayMs;
+        try {
+            delayMs = reserveSlot();
+        } catch (LocationProviderUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        String uri = apiUrl + pathAndQuery + email.map(e -> "&email=" + encode(e)).orElse("");
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("User-Agent", userAgent)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return CompletableFuture.supplyAsync(() -> request, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                .thenCompose(r -> httpClient.sendAsync(r, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(this::readBody)
+                .exceptionally(failure -> {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure;
+                    if (cause instanceof LocationProviderUnavailableException unavailable) {
+                        throw unavailable;
+                    }
+                    throw new LocationProviderUnavailableException("Servizio di geolocalizzazione non raggiungibile", cause);
+                });
+    }
+
+    /**
+     * Prenota il prossimo slot libero e restituisce quanti millisecondi attendere prima di inviare
+     *
+     * @throws LocationProviderUnavailableException se la coda supera max-queue-wait-ms
+     */
+    long reserveSlot() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            long next = nextSlotMillis.get();
+            long slot = Math.max(now, next);
+            if (slot - now > maxQueueWaitMs) {
+                throw new LocationProviderUnavailableException(
+                        "Troppe richieste di geolocalizzazione in coda, riprova tra qualche secondo");
+            }
+            if (nextSlotMillis.compareAndSet(next, slot + minIntervalMs)) {
+                return slot - now;
+            }
+        }
+    }
+
+    private JsonNode readBody(HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status == 429 || status == 503) {
+            long pauseMs = response.headers().firstValue("Retry-After")
+                    .map(NominatimGeocodingProvider::parseRetryAfter)
+                    .orElse(DEFAULT_RETRY_AFTER_MS);
+            nextSlotMillis.accumulateAndGet(System.currentTimeMillis() + pauseMs, Math::max);
+            LOG.warnf("Nominatim ha risposto HTTP %d, richieste sospese per %d ms", status, pauseMs);
+            throw new LocationProviderUnavailableException("Servizio di geolocalizzazione temporaneamente non disponibile");
+        }
+        if (status != 200) {
+            throw new LocationProviderUnavailableException("Errore dal servizio di geolocalizzazione: HTTP " + status);
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new LocationProviderUnavailableException("Risposta non valida dal servizio di geolocalizzazione", e);
+        }
+    }
+
+    private static long parseRetryAfter(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            // Formato data HTTP: non gestito, pausa di default
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+
+    // ========== Mapping ==========
+
+    private List<LocationDto> toDtos(JsonNode places) {
+        List<LocationDto> result = new ArrayList<>();
+        if (places == null || !places.isArray()) {
+            return result;
+        }
+        for (JsonNode place : places) {
+            String osmType = place.path("osm_type").asText("");
+            if (osmType.isEmpty() || !place.hasNonNull("osm_id") || !place.hasNonNull("lat") || !place.hasNonNull("lon")) {
+                continue;
+            }
+            String placeId = Character.toUpperCase(osmType.charAt(0)) + place.get("osm_id").asText();
+            String address = place.path("display_name").asText(null);
+            String name = place.path("name").asText("");
+            if (name.isBlank() && address != null) {
+                name = address.split(",", 2)[0].trim();
+            }
+            result.add(new LocationDto(
+                    name,
+                    address,
+                    new BigDecimal(place.get("lat").asText()),
+                    new BigDecimal(place.get("lon").asText()),
+                    placeId,
+                    objectMapper.convertValue(place, METADATA_TYPE)));
+        }
+        return result;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -6,8 +6,12 @@ import com.storeapp.activity.entity.Trip;
 import com.storeapp.activity.exception.ActivityNotFoundException;
 import com.storeapp.activity.mapper.TripMapper;
 import com.storeapp.activity.repository.ActivityRepository;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
 import com.storeapp.group.entity.Group;
 import com.storeapp.group.repository.GroupRepository;
+import com.storeapp.group.service.GroupAccessService;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.service.GroupVersionService;
 import com.storeapp.user.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -27,9 +31,18 @@ public class TripService {
     @Inject
     ActivityRepository activityRepository;
 
+    @Inject
+    ActivityCalendarRepository calendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupAccessService groupAccess;
+
     @Inject
     UserRepository userRepository;
 
@@ -42,10 +55,10 @@ public class TripService {
     @Transactional
     public TripDto createTrip(Long groupId, TripRequest request, Long userId) {
         // Validate group exists and user is member
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -58,6 +71,7 @@ public class TripService {
 
         // Persist
         activityRepository.persist(trip);
+        groupVersions.bump(groupId, GroupChangeType.ACTIVITY_CREATED, trip.id);
 
         return tripMapper.toDto(trip);
     }
@@ -70,7 +84,7 @@ public class TripService {
                 .filter(a -> a instanceof Trip)
                 .orElseThrow(() -> new ActivityNotFoundException(tripId));
 
-        if (!trip.group.isMember(userId)) {
+        if (!groupAccess.isMember(trip.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
@@ -86,13 +100,15 @@ public class TripService {
                 .filter(a -> a instanceof Trip)
                 .orElseThrow(() -> new ActivityNotFoundException(tripId));
 
-        if (!trip.group.isMember(userId)) {
+        if (!groupAccess.isMember(trip.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         // Update fields
         tripMapper.updateEntityFromRequest(request, trip);
         trip.updatedAt = LocalDateTime.now();
+        calendarRepository.refreshActivity(trip.id);
+        groupVersions.bump(trip.group.id, GroupChangeType.ACTIVITY_UPDATED, trip.id);
 
         return tripMapper.toDto(trip);
     }
@@ -106,11 +122,12 @@ public class TripService {
                 .filter(a -> a instanceof Trip)
                 .orElseThrow(() -> new ActivityNotFoundException(tripId));
 
-        if (!trip.group.isMember(userId)) {
+        if (!groupAccess.isMember(trip.group.id, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         activityRepository.delete(trip);
+        groupVersions.bump(trip.group.id, GroupChangeType.ACTIVITY_DELETED, trip.id);
     }
 
     /**
@@ -120,13 +137,14 @@ public class TripService {
         Group group = groupRepository.findByIdOptional(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found: " + groupId));
 
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw new RuntimeException("User is not a member of this group");
         }
 
         return activityRepository.findByGroupId(groupId).stream()
                 .filter(a -> a instanceof Trip)
-                .map(a -> tripMapper.toDto((Trip) a))
+                .map(a -> (Trip) a)
+                .map(t -> tripMapper.toDto(t, t.getConfirmedCount()))
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,151 @@
+package com.storeapp.activity.settlement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy Debt Simplification su centesimi ({@code long}) con due heap di indici.
+ *
+ * Ad ogni passo abbina il debitore più grande col creditore più grande e trasferisce
+ * il minimo dei due saldi: O(n log n) invece di riordinare le liste ad ogni iterazione.
+ *
+ * Produce esattamente le stesse transazioni della versione precedente basata su
+ * BigDecimal e sort stabile: a parità di importo vince il nodo aggiornato più di recente,
+ * poi quello che compare prima nell'input.
+ *
+ * Soglia: i saldi di ±1 centesimo vengono ignorati (arrotondamenti).
+ */
+public final class GreedySettlementEngine {
+
+    private GreedySettlementEngine() {
+    }
+
+    /**
+     * @param balancesCents bilancio di ogni membro in centesimi (paid - owed)
+     * @return trasferimenti nell'ordine in cui vengono generati
+     */
+    public static List<SettlementTransfer> settle(long[] balancesCents) {
+        int n = balancesCents.length;
+        long[] remaining = new long[n];
+        long[] touched = new long[n];
+
+        IndexHeap debtors = new IndexHeap(n, remaining, touched);
+        IndexHeap creditors = new IndexHeap(n, remaining, touched);
+
+        for (int i = 0; i < n; i++) {
+            long balance = balancesCents[i];
+            if (balance < -1) {
+                remaining[i] = -balance;
+                debtors.add(i);
+            } else if (balance > 1) {
+                remaining[i] = balance;
+                creditors.add(i);
+            }
+            // |balance| <= 1 centesimo → già in pari, ignorato
+        }
+
+        List<SettlementTransfer> transfers = new ArrayList<>(Math.min(debtors.size(), creditors.size()) * 2);
+        long clock = 0;
+
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            int debtor = debtors.peek();
+            int creditor = creditors.peek();
+
+            long amount = Math.min(remaining[debtor], remaining[creditor]);
+            transfers.add(new SettlementTransfer(debtor, creditor, amount));
+
+            remaining[debtor] -= amount;
+            remaining[creditor] -= amount;
+            clock++;
+            touched[debtor] = clock;
+            touched[creditor] = clock;
+
+            if (remaining[debtor] < 1) debtors.poll(); else debtors.siftDownTop();
+            if (remaining[creditor] < 1) creditors.poll(); else creditors.siftDownTop();
+        }
+
+        return transfers;
+    }
+
+    /**
+     * Max-heap binario di indici su array primitivi condivisi.
+     * Ordine: saldo residuo decrescente, poi ultimo aggiornamento più recente, poi indice crescente.
+     */
+    static final class IndexHeap {
+
+        private final int[] heap;
+        private final long[] remaining;
+        private final long[] touched;
+        private int size;
+
+        IndexHeap(int capacity, long[] remaining, long[] touched) {
+            this.heap = new int[capacity];
+            this.remaining = remaining;
+            this.touched = touched;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void add(int index) {
+            heap[size] = index;
+            siftUp(size++);
+        }
+
+        int poll() {
+            int top = heap[0];
+            heap[0] = heap[--size];
+            if (size > 0) {
+                siftDown(0);
+            }
+            return top;
+        }
+
+        /** Da chiamare dopo aver ridotto il saldo dell'elemento in cima */
+        void siftDownTop() {
+            siftDown(0);
+        }
+
+        private void siftUp(int pos) {
+            int item = heap[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!before(item, heap[parent])) break;
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = item;
+        }
+
+        private void siftDown(int pos) {
+            int item = heap[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < size && before(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!before(heap[child], item)) break;
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = item;
+        }
+
+        private boolean before(int a, int b) {
+            if (remaining[a] != remaining[b]) return remaining[a] > remaining[b];
+            if (touched[a] != touched[b]) return touched[a] > touched[b];
+            return a < b;
+        }
+    }
+}
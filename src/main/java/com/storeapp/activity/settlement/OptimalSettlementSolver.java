@@ -0,0 +1,342 @@
+package com.storeapp.activity.settlement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Settlement con numero minimo di transazioni.
+ *
+ * Con k sottoinsiemi disgiunti a somma zero bastano (n - k) transazioni, quindi il
+ * problema equivale a massimizzare k:
+ *   1. Coppie di saldi esattamente opposti → un sottoinsieme ciascuna (sempre ottimale)
+ *   2. Restanti membri: DP su bitmask fino a {@value #BITMASK_MAX_MEMBERS} membri,
+ *      oltre branch-and-bound partendo dalla soluzione greedy
+ *   3. Dentro ogni sottoinsieme il greedy genera esattamente |S| - 1 transazioni
+ *
+ * Il problema è NP-hard: la ricerca rispetta una deadline e, se la supera,
+ * {@link #solve} restituisce empty e il chiamante ripiega sul greedy.
+ *
+ * I saldi reali raramente sommano esattamente a zero (es. 10,00 diviso in tre):
+ * un residuo di al massimo un centesimo per membro viene assorbito dal saldo più grande
+ * dal lato in eccesso, che resta scoperto degli stessi pochi centesimi lasciati dal greedy.
+ * Con residui maggiori ({@link #isBalanced} = false) una partizione a somma zero non esiste.
+ */
+public final class OptimalSettlementSolver {
+
+    /** Oltre questa soglia i 2^n stati della DP diventano troppi (memoria e tempo) */
+    static final int BITMASK_MAX_MEMBERS = 20;
+
+    private OptimalSettlementSolver() {
+    }
+
+    /**
+     * @param balancesCents bilancio di ogni membro in centesimi (paid - owed)
+     * @param deadlineNanos istante limite, confrontato con {@link System#nanoTime()}
+     * @return trasferimenti ottimali, o empty se la deadline è scaduta o i saldi non sono bilanciati
+     */
+    public static Optional<List<SettlementTransfer>> solve(long[] balancesCents, long deadlineNanos) {
+        Deadline deadline = new Deadline(deadlineNanos);
+
+        List<Integer> active = activeMembers(balancesCents);
+        long residue = sum(balancesCents, active);
+        if (!absorbable(balancesCents, active, residue)) {
+            return Optional.empty();
+        }
+        long[] balances = balancesCents;
+        if (residue != 0) {
+            balances = balancesCents.clone();
+            int holder = residueHolder(balances, active, residue);
+            balances[holder] -= residue;
+            if (balances[holder] == 0) {
+                active.remove(Integer.valueOf(holder));
+            }
+        }
+
+        // 1. Coppie esattamente opposte
+        List<int[]> groups = new ArrayList<>();
+        Map<Long, ArrayDeque<Integer>> unmatched = new HashMap<>();
+        boolean[] paired = new boolean[balances.length];
+        for (int i : active) {
+            ArrayDeque<Integer> candidates = unmatched.get(-balances[i]);
+            if (candidates != null && !candidates.isEmpty()) {
+                int j = candidates.poll();
+                paired[i] = true;
+                paired[j] = true;
+                groups.add(new int[]{j, i});
+            } else {
+                unmatched.computeIfAbsent(balances[i], k -> new ArrayDeque<>()).add(i);
+            }
+        }
+
+        int[] rest = active.stream().filter(i -> !paired[i]).mapToInt(Integer::intValue).toArray();
+
+        // 2. Partizione dei restanti membri
+        if (rest.length > 0) {
+            List<int[]> restGroups = rest.length <= BITMASK_MAX_MEMBERS
+                    ? bitmaskPartition(rest, balances, deadline)
+                    : new BranchAndBound(rest, balances, deadline).run();
+            if (restGroups == null) {
+                return Optional.empty();
+            }
+            groups.addAll(restGroups);
+        }
+
+        // 3. Greedy dentro ogni sottoinsieme
+        List<SettlementTransfer> transfers = new ArrayList<>();
+        for (int[] group : groups) {
+            long[] sub = new long[group.length];
+            for (int k = 0; k < group.length; k++) {
+                sub[k] = balances[group[k]];
+            }
+            for (SettlementTransfer t : GreedySettlementEngine.settle(sub)) {
+                transfers.add(new SettlementTransfer(group[t.from()], group[t.to()], t.amountCents()));
+            }
+        }
+        return Optional.of(transfers);
+    }
+
+    /**
+     * true se i saldi sommano a zero a meno di un residuo di arrotondamento assorbibile
+     * (al massimo un centesimo per membro): solo in quel caso {@link #solve} può trovare una soluzione.
+     */
+    public static boolean isBalanced(long[] balancesCents) {
+        List<Integer> active = activeMembers(balancesCents);
+        return absorbable(balancesCents, active, sum(balancesCents, active));
+    }
+
+    /** Membri da saldare: stessa soglia del greedy, ±1 centesimo è considerato in pari */
+    private static List<Integer> activeMembers(long[] balancesCents) {
+        List<Integer> active = new ArrayList<>();
+        for (int i = 0; i < balancesCents.length; i++) {
+            if (Math.abs(balancesCents[i]) > 1) {
+                active.add(i);
+            }
+        }
+        return active;
+    }
+
+    private static long sum(long[] balancesCents, List<Integer> active) {
+        long sum = 0;
+        for (int i : active) {
+            sum += balancesCents[i];
+        }
+        return sum;
+    }
+
+    private static boolean absorbable(long[] balancesCents, List<Integer> active, long residue) {
+        if (residue == 0) {
+            return true;
+        }
+        if (Math.abs(residue) > active.size()) {
+            return false;
+        }
+        // Il membro che assorbe il residuo non deve cambiare lato (da creditore a debitore o viceversa)
+        return Math.abs(balancesCents[residueHolder(balancesCents, active, residue)]) >= Math.abs(residue);
+    }
+
+    /** Saldo più grande dal lato in eccesso (creditori se residue > 0, debitori se < 0) */
+    private static int residueHolder(long[] balancesCents, List<Integer> active, long residue) {
+        int holder = -1;
+        for (int i : active) {
+            if (Long.signum(balancesCents[i]) == Long.signum(residue)
+                    && (holder < 0 || Math.abs(balancesCents[i]) > Math.abs(balancesCents[holder]))) {
+                holder = i;
+            }
+        }
+        return holder;
+    }
+
+    /**
+     * dp[mask] = massimo numero di prefissi a somma zero in un ordinamento di mask,
+     * cioè il massimo numero di sottoinsiemi a somma zero in cui mask si partiziona.
+     */
+    static List<int[]> bitmaskPartition(int[] members, long[] balances, Deadline deadline) {
+        int m = members.length;
+        int full = (1 << m) - 1;
+        long[] sums = new long[full + 1];
+        byte[] dp = new byte[full + 1];
+
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & 0xFFF) == 0 && deadline.expired()) {
+                return null;
+            }
+            int low = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)] + balances[members[low]];
+
+            int best = 0;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                best = Math.max(best, dp[mask ^ (bits & -bits)]);
+            }
+            dp[mask] = (byte) (sums[mask] == 0 ? best + 1 : best);
+        }
+
+        // Ricostruzione: lungo la catena ottima, gli elementi tolti tra due maschere
+        // a somma zero consecutive formano un sottoinsieme
+        List<int[]> groups = new ArrayList<>();
+        int current = full;
+        int lastZero = full;
+        while (current != 0) {
+            int expected = sums[current] == 0 ? dp[current] - 1 : dp[current];
+            int next = current;
+            for (int bits = current; bits != 0; bits &= bits - 1) {
+                int candidate = current ^ (bits & -bits);
+                if (dp[candidate] == expected) {
+                    next = candidate;
+                    break;
+                }
+            }
+            if (sums[next] == 0) {
+                groups.add(membersOf(lastZero ^ next, members));
+                lastZero = next;
+            }
+            current = next;
+        }
+        return groups;
+    }
+
+    private static int[] membersOf(int mask, int[] members) {
+        int[] group = new int[Integer.bitCount(mask)];
+        int k = 0;
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            group[k++] = members[Integer.numberOfTrailingZeros(bits)];
+        }
+        return group;
+    }
+
+    /**
+     * Ricerca esaustiva delle partizioni a somma zero per gruppi grandi.
+     * Il primo membro libero viene sempre chiuso in un sottoinsieme, provando prima
+     * i sottoinsiemi più piccoli; si pota quando anche con sottoinsiemi da 2 membri
+     * non si può superare la migliore soluzione nota (inizialmente quella greedy).
+     */
+    static final class BranchAndBound {
+
+        private final int[] members;
+        private final long[] values;
+        private final boolean[] used;
+        private final Deadline deadline;
+        private final ArrayDeque<int[]> current = new ArrayDeque<>();
+        private int bestCount;
+        private List<int[]> best;
+
+        BranchAndBound(int[] rest, long[] balances, Deadline deadline) {
+            // Ordine per |saldo| decrescente: i saldi grandi vincolano di più la ricerca
+            Integer[] order = new Integer[rest.length];
+            for (int k = 0; k < rest.length; k++) order[k] = rest[k];
+            Arrays.sort(order, (a, b) -> Long.compare(Math.abs(balances[b]), Math.abs(balances[a])));
+
+            this.members = new int[rest.length];
+            this.values = new long[rest.length];
+            for (int k = 0; k < rest.length; k++) {
+                members[k] = order[k];
+                values[k] = balances[order[k]];
+            }
+            this.used = new boolean[rest.length];
+            this.deadline = deadline;
+
+            // Il greedy genera una foresta: n - #transazioni componenti, ognuna a somma zero
+            int greedyGroups = rest.length - GreedySettlementEngine.settle(values).size();
+            this.bestCount = greedyGroups - 1;
+        }
+
+        List<int[]> run() {
+            search(members.length, 0);
+            return deadline.expired() ? null : best;
+        }
+
+        private void search(int remaining, int groups) {
+            if (deadline.tick()) {
+                return;
+            }
+            if (remaining == 0) {
+                if (groups > bestCount) {
+                    bestCount = groups;
+                    best = new ArrayList<>(current);
+                }
+                return;
+            }
+            if (groups + remaining / 2 <= bestCount) {
+                return;
+            }
+
+            int first = 0;
+            while (used[first]) first++;
+            used[first] = true;
+            int[] chosen = new int[remaining];
+            chosen[0] = first;
+
+            for (int size = 1; size < remaining; size++) {
+                // Il sottoinsieme corrente ha size + 1 membri, i successivi almeno 2
+                if (groups + 1 + (remaining - 1 - size) / 2 <= bestCount) {
+                    break;
+                }
+                combine(chosen, first + 1, -values[first], size, 1, remaining, groups);
+                if (deadline.expired()) {
+                    break;
+                }
+            }
+
+            used[first] = false;
+        }
+
+        /** Sceglie i membri liberi da {@code from} in poi finché il sottoinsieme somma a zero */
+        private void combine(int[] chosen, int from, long need, int left, int depth, int remaining, int groups) {
+            if (left == 0) {
+                if (need != 0) {
+                    return;
+                }
+                int[] group = new int[depth];
+                for (int k = 0; k < depth; k++) {
+                    group[k] = members[chosen[k]];
+                }
+                current.push(group);
+                search(remaining - depth, groups + 1);
+                current.pop();
+                return;
+            }
+            for (int k = from; k < members.length; k++) {
+                if (used[k] || (left == 1 && values[k] != need)) {
+                    continue;
+                }
+                if (deadline.tick()) {
+                    return;
+                }
+                used[k] = true;
+                chosen[depth] = k;
+                combine(chosen, k + 1, need - values[k], left - 1, depth + 1, remaining, groups);
+                used[k] = false;
+            }
+        }
+    }
+
+    /** Deadline controllata solo ogni tanto: System.nanoTime() non è gratuito */
+    static final class Deadline {
+
+        private final long deadlineNanos;
+        private int ticks;
+        private boolean expired;
+
+        Deadline(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        boolean tick() {
+            if (!expired && (++ticks & 0x3FF) == 0) {
+                expired = System.nanoTime() - deadlineNanos > 0;
+            }
+            return expired;
+        }
+
+        boolean expired() {
+            if (!expired) {
+                expired = System.nanoTime() - deadlineNanos > 0;
+            }
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.storeapp.activity.settlement;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Modalità di calcolo del settlement (query param {@code mode})
+ */
+public enum SettlementMode {
+    /**
+     * Greedy Debt Simplification: veloce, ma non garantisce il minimo di transazioni
+     */
+    GREEDY,
+
+    /**
+     * Partizione in sottoinsiemi a somma zero: minimo di transazioni entro il budget di tempo
+     */
+    OPTIMAL;
+
+    public static SettlementMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return GREEDY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid settlement mode: " + value + " (expected greedy or optimal)");
+        }
+    }
+}
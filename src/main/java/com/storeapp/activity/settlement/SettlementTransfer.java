@@ -0,0 +1,9 @@
+package com.storeapp.activity.settlement;
+
+/**
+ * Un trasferimento calcolato dal motore di settlement: il membro in posizione {@code from}
+ * paga {@code amountCents} centesimi al membro in posizione {@code to}.
+ * Gli indici si riferiscono all'array dei bilanci passato al motore.
+ */
+public record SettlementTransfer(int from, int to, long amountCents) {
+}
@@ -3,6 +3,7 @@ package com.storeapp.auth.controller;
 import com.storeapp.auth.dto.*;
 import com.storeapp.auth.exception.AuthException;
 import com.storeapp.auth.exception.InvalidCredentialsException;
+import com.storeapp.auth.exception.PasswordHashingBusyException;
 import com.storeapp.auth.exception.UserAlreadyExistsException;
 import com.storeapp.auth.service.AuthService;
 import com.storeapp.auth.service.PasswordResetService;
@@ -57,6 +58,14 @@ public class AuthController {
                     "message", e.getMessage()
                 ))
                 .build();
+        } catch (PasswordHashingBusyException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .entity(Map.of(
+                    "error", "Servizio occupato",
+                    "message", e.getMessage()
+                ))
+                .build();
         } catch (Exception e) {
             // Log dell'errore (dovrebbe usare un logger in produzione)
             System.err.println("Registration error: " + e.getMessage());
@@ -97,6 +106,14 @@ public class AuthController {
                     "message", e.getMessage()
                 ))
                 .build();
+        } catch (PasswordHashingBusyException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .entity(Map.of(
+                    "error", "Servizio occupato",
+                    "message", e.getMessage()
+                ))
+                .build();
         } catch (Exception e) {
             // Log dell'errore (dovrebbe usare un logger in produzione)
             System.err.println("Login error: " + e.getMessage());
@@ -184,6 +201,14 @@ public class AuthController {
                             "message", e.getMessage()
                     ))
                     .build();
+        } catch (PasswordHashingBusyException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .entity(Map.of(
+                            "error", "Servizio occupato",
+                            "message", e.getMessage()
+                    ))
+                    .build();
         } catch (Exception e) {
             System.err.println("Reset password error: " + e.getMessage());
             e.printStackTrace();
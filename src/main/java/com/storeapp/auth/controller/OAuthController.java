@@ -1,13 +1,16 @@
 package com.storeapp.auth.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.storeapp.auth.dto.AuthResponse;
 import com.storeapp.auth.service.OAuthService;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.NewCookie;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -24,9 +27,14 @@ import java.nio.charset.StandardCharsets;
 @Produces(MediaType.APPLICATION_JSON)
 public class OAuthController {
 
+    private static final Logger LOG = Logger.getLogger(OAuthController.class);
+
     @Inject
     OAuthService oAuthService;
 
+    @Inject
+    ObjectMapper objectMapper;
+
     @ConfigProperty(name = "storeapp.app.frontend-url", defaultValue = "http://localhost:4200")
     String frontendUrl;
 
@@ -63,10 +71,11 @@ public class OAuthController {
      * Scambia il codice con i token, crea/aggiorna l'utente nel DB,
      * genera i JWT propri e reindirizza al frontend con i token come
      * parametri di query (letti una volta sola dal componente Angular).
+     * Restituisce un Uni: le chiamate a Google non bloccano il thread della richiesta.
      */
     @GET
     @Path("/callback")
-    public Response handleGoogleCallback(
+    public Uni<Response> handleGoogleCallback(
             @QueryParam("code") String code,
             @QueryParam("state") String state,
             @QueryParam("error") String error,
@@ -74,44 +83,42 @@ public class OAuthController {
 
         // Gestisci l'errore se l'utente ha negato il consenso
         if (error != null) {
-            return redirectToFrontendWithError("Accesso con Google negato: " + error);
+            return Uni.createFrom().item(redirectToFrontendWithError("Accesso con Google negato: " + error));
         }
 
         // Valida che code sia presente
         if (code == null || code.isBlank()) {
-            return redirectToFrontendWithError("Codice di autorizzazione mancante");
+            return Uni.createFrom().item(redirectToFrontendWithError("Codice di autorizzazione mancante"));
         }
 
         // Valida il state CSRF
         if (cookieState == null || !cookieState.equals(state)) {
-            return redirectToFrontendWithError("Validazione CSRF fallita, riprova");
+            return Uni.createFrom().item(redirectToFrontendWithError("Validazione CSRF fallita, riprova"));
         }
 
-        try {
-            AuthResponse authResponse = oAuthService.handleOAuthCallback(code);
-
-            // Costruisce l'URL di redirect al frontend con i token
-            String redirectUrl = frontendUrl + "/oauth-callback"
-                    + "?token=" + encode(authResponse.getToken())
-                    + "&refreshToken=" + encode(authResponse.getRefreshToken())
-                    + "&user=" + encode(serializeUser(authResponse));
-
-            // Cancella il cookie di state
-            NewCookie clearStateCookie = new NewCookie.Builder("oauth_state")
-                    .value("")
-                    .path("/api/auth/oauth2")
-                    .maxAge(0)
-                    .build();
-
-            return Response.temporaryRedirect(URI.create(redirectUrl))
-                    .cookie(clearStateCookie)
-                    .build();
-
-        } catch (Exception e) {
-            System.err.println("OAuth callback error: " + e.getMessage());
-            e.printStackTrace();
-            return redirectToFrontendWithError("Errore durante il login con Google");
-        }
+        return oAuthService.handleOAuthCallback(code)
+                .map(authResponse -> {
+                    // Costruisce l'URL di redirect al frontend con i token
+                    String redirectUrl = frontendUrl + "/oauth-callback"
+                            + "?token=" + encode(authResponse.getToken())
+                            + "&refreshToken=" + encode(authResponse.getRefreshToken())
+                            + "&user=" + encode(serializeUser(authResponse));
+
+                    // Cancella il cookie di state
+                    NewCookie clearStateCookie = new NewCookie.Builder("oauth_state")
+                            .value("")
+                            .path("/api/auth/oauth2")
+                            .maxAge(0)
+                            .build();
+
+                    return Response.temporaryRedirect(URI.create(redirectUrl))
+                            .cookie(clearStateCookie)
+                            .build();
+                })
+                .onFailure().recoverWithItem(e -> {
+                    LOG.error("OAuth callback error", e);
+                    return redirectToFrontendWithError("Errore durante il login con Google");
+                });
     }
 
     // -------------------------------------------------------------------------
@@ -131,9 +138,7 @@ public class OAuthController {
     private String serializeUser(AuthResponse response) {
         try {
             com.storeapp.auth.dto.UserDto user = response.getUser();
-            // Serializzazione manuale minimale per evitare dipendenza da Jackson nel controller
-            return new com.fasterxml.jackson.databind.ObjectMapper()
-                    .writeValueAsString(user);
+            return objectMapper.writeValueAsString(user);
         } catch (Exception e) {
             return "{}";
         }
@@ -0,0 +1,42 @@
+package com.storeapp.auth.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token emesso (uno per JWT, identificato dal claim jti).
+ * Tutti i token ottenuti per rotazione da uno stesso login condividono la familyId.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(name = "token_id", nullable = false, unique = true, length = 36)
+    public String tokenId;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    public String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    public Long userId;
+
+    @Column(name = "issued_at", nullable = false)
+    public LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    public LocalDateTime expiresAt;
+
+    /** Valorizzato quando il token è stato scambiato con uno nuovo */
+    @Column(name = "rotated_at")
+    public LocalDateTime rotatedAt;
+
+    /** Valorizzato quando la famiglia è stata revocata (riuso, reset password) */
+    @Column(name = "revoked_at")
+    public LocalDateTime revokedAt;
+}
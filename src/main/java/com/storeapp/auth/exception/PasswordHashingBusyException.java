@@ -0,0 +1,17 @@
+package com.storeapp.auth.exception;
+
+import com.storeapp.shared.exception.BusinessException;
+
+/**
+ * Il pool di hashing delle password è saturo (coda piena o attesa scaduta).
+ */
+public class PasswordHashingBusyException extends BusinessException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message, "PASSWORD_HASHING_BUSY", 503);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, "PASSWORD_HASHING_BUSY", 503, cause);
+    }
+}
@@ -0,0 +1,56 @@
+package com.storeapp.auth.repository;
+
+import com.storeapp.auth.entity.RefreshToken;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository per la tabella refresh_tokens.
+ */
+@ApplicationScoped
+public class RefreshTokenRepository implements PanacheRepository<RefreshToken> {
+
+    public Optional<RefreshToken> findByTokenId(String tokenId) {
+        return find("tokenId", tokenId).firstResultOptional();
+    }
+
+    /**
+     * Marca il token come ruotato solo se è ancora utilizzabile (non ruotato, non revocato, non scaduto).
+     * L'UPDATE condizionale è atomico: con due refresh concorrenti dello stesso token
+     * solo uno ottiene 1, l'altro viene trattato come riuso.
+     *
+     * @return 1 se il token è stato consumato, 0 altrimenti
+     */
+    public int markRotated(String tokenId, LocalDateTime now) {
+        return update("rotatedAt = ?1 WHERE tokenId = ?2 AND rotatedAt IS NULL AND revokedAt IS NULL AND expiresAt > ?1",
+                now, tokenId);
+    }
+
+    /**
+     * Revoca tutti i token della famiglia.
+     *
+     * @return i token della famiglia non ancora scaduti (per la cache dei revocati)
+     */
+    public List<RefreshToken> revokeFamily(String familyId, LocalDateTime now) {
+        update("revokedAt = ?1 WHERE familyId = ?2 AND revokedAt IS NULL", now, familyId);
+        return list("familyId = ?1 AND expiresAt > ?2", familyId, now);
+    }
+
+    /**
+     * Revoca tutti i token dell'utente (es. dopo un reset password).
+     *
+     * @return i token dell'utente non ancora scaduti (per la cache dei revocati)
+     */
+    public List<RefreshToken> revokeAllForUser(Long userId, LocalDateTime now) {
+        update("revokedAt = ?1 WHERE userId = ?2 AND revokedAt IS NULL", now, userId);
+        return list("userId = ?1 AND expiresAt > ?2", userId, now);
+    }
+
+    public long deleteExpired(LocalDateTime now) {
+        return delete("expiresAt <= ?1", now);
+    }
+}
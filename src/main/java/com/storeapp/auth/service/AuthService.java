@@ -8,11 +8,11 @@ import com.storeapp.auth.exception.InvalidCredentialsException;
 import com.storeapp.auth.exception.UserAlreadyExistsException;
 import com.storeapp.user.entity.User;
 import com.storeapp.user.repository.UserRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
-import static jakarta.transaction.Transactional.TxType;
 
 import java.time.LocalDateTime;
 import java.util.Set;
@@ -32,38 +32,47 @@ public class AuthService {
     @Inject
     JwtService jwtService;
 
+    @Inject
+    RefreshTokenService refreshTokenService;
+
     @Inject
     EntityManager entityManager;
 
     /**
      * Registra un nuovo utente.
+     * L'hashing avviene prima della transazione: nessuna connessione resta
+     * occupata mentre BCrypt lavora.
      *
      * @param request dati di registrazione
      * @return risposta con JWT token e dati utente
      * @throws UserAlreadyExistsException se l'email è già registrata
      */
-    @Transactional(TxType.REQUIRES_NEW)
     public AuthResponse register(RegisterRequest request) {
-        // Verifica se l'email esiste già
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new UserAlreadyExistsException("Email already registered: " + request.getEmail());
-        }
+        String passwordHash = passwordService.hashPassword(request.getPassword());
 
-        // Crea nuovo utente
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setName(request.getName());
-        user.setPasswordHash(passwordService.hashPassword(request.getPassword()));
-        user.setCreatedAt(LocalDateTime.now());
-        user.setUpdatedAt(LocalDateTime.now());
+        User user = QuarkusTransaction.requiringNew().call(() -> {
+            // Verifica se l'email esiste già
+            if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+                throw new UserAlreadyExistsException("Email already registered: " + request.getEmail());
+            }
 
-        // Salva nel database
-        userRepository.persist(user);
-        entityManager.flush(); // Forza il flush per ottenere l'ID generato
+            // Crea nuovo utente
+            User created = new User();
+            created.setEmail(request.getEmail());
+            created.setName(request.getName());
+            created.setPasswordHash(passwordHash);
+            created.setCreatedAt(LocalDateTime.now());
+            created.setUpdatedAt(LocalDateTime.now());
+
+            // Salva nel database
+            userRepository.persist(created);
+            entityManager.flush(); // Forza il flush per ottenere l'ID generato
+            return created;
+        });
 
         // Genera JWT tokens
         String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
-        String refreshToken = jwtService.generateRefreshToken(user.getId(), user.getEmail());
+        String refreshToken = refreshTokenService.issue(user.getId(), user.getEmail());
 
         // Crea risposta
         UserDto userDto = UserDto.fromEntity(user);
@@ -72,29 +81,46 @@ public class AuthService {
 
     /**
      * Esegue il login di un utente.
+     * Lettura e aggiornamento dell'utente sono due transazioni brevi separate:
+     * la verifica BCrypt (ed eventuale rehash) gira in mezzo, senza connessione aperta.
      *
      * @param request credenziali di login
      * @return risposta con JWT token e dati utente
      * @throws InvalidCredentialsException se le credenziali sono invalide
      */
-    @Transactional
     public AuthResponse login(LoginRequest request) {
         // Cerca utente per email
-        User user = userRepository.findByEmail(request.getEmail())
-            .orElseThrow(() -> new InvalidCredentialsException("Invalid email or password"));
+        User user = QuarkusTransaction.requiringNew().call(() ->
+                userRepository.findByEmail(request.getEmail()).orElse(null));
+        if (user == null) {
+            throw new InvalidCredentialsException("Invalid email or password");
+        }
 
         // Verifica password
-        if (user.getPasswordHash() == null || 
-            !passwordService.verifyPassword(request.getPassword(), user.getPasswordHash())) {
+        String storedHash = user.getPasswordHash();
+        if (storedHash == null || !passwordService.verifyPassword(request.getPassword(), storedHash)) {
             throw new InvalidCredentialsException("Invalid email or password");
         }
 
-        // Aggiorna last login (opzionale)
-        user.setUpdatedAt(LocalDateTime.now());
+        // Cost BCrypt cambiato in configurazione: ricalcola l'hash ora che abbiamo la password in chiaro
+        String newHash = passwordService.needsRehash(storedHash)
+                ? passwordService.hashPassword(request.getPassword())
+                : null;
+
+        // Aggiorna last login (opzionale) ed eventualmente l'hash
+        QuarkusTransaction.requiringNew().run(() -> {
+            User managed = userRepository.findUserById(user.getId());
+            managed.setUpdatedAt(LocalDateTime.now());
+            // Solo se nel frattempo la password non è stata cambiata
+            if (newHash != null && storedHash.equals(managed.getPasswordHash())) {
+                managed.setPasswordHash(newHash);
+            }
+            user.setUpdatedAt(managed.getUpdatedAt());
+        });
 
         // Genera JWT tokens
         String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
-        String refreshToken = jwtService.generateRefreshToken(user.getId(), user.getEmail());
+        String refreshToken = refreshTokenService.issue(user.getId(), user.getEmail());
 
         // Crea risposta
         UserDto userDto = UserDto.fromEntity(user);
@@ -102,37 +128,27 @@ public class AuthService {
     }
 
     /**
-     * Refresh del token JWT.
+     * Refresh del token JWT con rotazione: il refresh token presentato viene consumato
+     * e sostituito da uno nuovo (vedi RefreshTokenService).
      *
      * @param refreshToken refresh token
-     * @return nuovo access token
+     * @return nuovo access token e nuovo refresh token
+     * @throws InvalidCredentialsException se il token non è valido, è già stato usato o è revocato
      */
-    @Transactional
+    @Transactional(dontRollbackOn = InvalidCredentialsException.class)
     public AuthResponse refreshToken(String refreshToken) {
-        try {
-            var jwt = jwtService.parseToken(refreshToken);
-            Long userId = jwtService.getUserIdFromToken(jwt);
-
-            // Verifica che sia un refresh token
-            String tokenType = jwt.getClaim("type");
-            if (!"refresh".equals(tokenType)) {
-                throw new InvalidCredentialsException("Invalid token type");
-            }
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
 
-            // Recupera utente
-            User user = userRepository.findUserById(userId);
-            if (user == null) {
-                throw new InvalidCredentialsException("User not found");
-            }
+        // Recupera utente
+        User user = userRepository.findUserById(rotation.userId());
+        if (user == null) {
+            throw new InvalidCredentialsException("User not found");
+        }
 
-            // Genera nuovo access token
-            String newAccessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
-            
-            UserDto userDto = UserDto.fromEntity(user);
-            return new AuthResponse(newAccessToken, refreshToken, userDto);
+        // Genera nuovo access token
+        String newAccessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
 
-        } catch (Exception e) {
-            throw new InvalidCredentialsException("Invalid refresh token");
-        }
+        UserDto userDto = UserDto.fromEntity(user);
+        return new AuthResponse(newAccessToken, rotation.refreshToken(), userDto);
     }
 }
@@ -0,0 +1,188 @@
+package com.storeapp.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.jwt.auth.principal.DefaultJWTParser;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTParser;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWTParser usato da smallrye-jwt per autenticare ogni richiesta: tiene in cache
+ * i token già verificati, così lo stesso bearer token ripetuto dal client non
+ * ripete la verifica della firma RSA.
+ *
+ * - chiave: SHA-256 del token grezzo (il token non viene mai tenuto in memoria)
+ * - validità: fino all'exp del token, mai oltre storeapp.jwt.cache.max-ttl-seconds
+ * - dimensione limitata (storeapp.jwt.cache.max-size): oltre si scartano prima
+ *   le voci scadute, poi quelle più vicine alla scadenza
+ *
+ * Gli access token non sono revocabili (la revoca riguarda i refresh token):
+ * una voce in cache non dura mai più del token stesso, quindi la cache non
+ * allunga la finestra in cui un token già emesso viene accettato.
+ *
+ * Solo {@link #parse(String)} (contesto di verifica di default) passa dalla cache;
+ * gli altri metodi delegano direttamente a {@link DefaultJWTParser}.
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class CachingJwtParser implements JWTParser {
+
+    @Inject
+    JWTAuthContextInfo authContextInfo;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "storeapp.jwt.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "storeapp.jwt.cache.max-size", defaultValue = "10000")
+    int maxSize;
+
+    @ConfigProperty(name = "storeapp.jwt.cache.max-ttl-seconds", defaultValue = "900")
+    long maxTtlSeconds;
+
+    JWTParser delegate;
+
+    private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+    private Counter hits;
+    private Counter misses;
+
+    private record CachedToken(JsonWebToken token, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        if (delegate == null) {
+            delegate = new DefaultJWTParser(authContextInfo);
+        }
+        hits = Counter.builder("storeapp.jwt.cache")
+                .description("Token JWT trovati già verificati in cache")
+                .tag("result", "hit")
+                .register(registry);
+        misses = Counter.builder("storeapp.jwt.cache")
+                .description("Token JWT verificati con la firma")
+                .tag("result", "miss")
+                .register(registry);
+        registry.gaugeMapSize("storeapp.jwt.cache.size", List.of(), cache);
+    }
+
+    @Override
+    public JsonWebToken parse(String token) throws ParseException {
+        if (!enabled) {
+            return delegate.parse(token);
+        }
+
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        CachedToken cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached.token();
+            }
+            cache.remove(key, cached);
+        }
+
+        misses.increment();
+        JsonWebToken verified = delegate.parse(token);
+        long expiresAt = Math.min(verified.getExpirationTime() * 1000L, now + maxTtlSeconds * 1000L);
+        if (expiresAt > now) {
+            if (cache.size() >= maxSize) {
+                evict(now);
+            }
+            cache.put(key, new CachedToken(verified, expiresAt));
+        }
+        return verified;
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    private void evict(long now) {
+        cache.values().removeIf(cached -> cached.expiresAtMillis() <= now);
+        // Ancora pieno: libera un decimo della capacità, a partire dai token più vicini alla scadenza
+        int toRemove = cache.size() - maxSize + Math.max(1, maxSize / 10);
+        if (toRemove > 0) {
+            cache.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue(Comparator.comparingLong(CachedToken::expiresAtMillis)))
+                    .limit(toRemove)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(cache::remove);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    // ========== Delegati senza cache ==========
+
+    @Override
+    public JsonWebToken parse(String token, JWTAuthContextInfo context) throws ParseException {
+        return delegate.parse(token, context);
+    }
+
+    @Override
+    public JsonWebToken verify(String token, PublicKey key) throws ParseException {
+        return delegate.verify(token, key);
+    }
+
+    @Override
+    public JsonWebToken verify(String token, SecretKey key) throws ParseException {
+        return delegate.verify(token, key);
+    }
+
+    @Override
+    public JsonWebToken verify(String token, String secret) throws ParseException {
+        return delegate.verify(token, secret);
+    }
+
+    @Override
+    public JsonWebToken decrypt(String token, PrivateKey key) throws ParseException {
+        return delegate.decrypt(token, key);
+    }
+
+    @Override
+    public JsonWebToken decrypt(String token, SecretKey key) throws ParseException {
+        return delegate.decrypt(token, key);
+    }
+
+    @Override
+    public JsonWebToken decrypt(String token, String secret) throws ParseException {
+        return delegate.decrypt(token, secret);
+    }
+
+    @Override
+    public JsonWebToken parseOnly(String token) throws ParseException {
+        return delegate.parseOnly(token);
+    }
+}
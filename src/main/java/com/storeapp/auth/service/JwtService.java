@@ -6,6 +6,7 @@ import io.smallrye.jwt.auth.principal.ParseException;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.Claims;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import java.time.Duration;
@@ -25,7 +26,7 @@ public class JwtService {
     JWTParser jwtParser;
 
     private static final Duration ACCESS_TOKEN_VALIDITY = Duration.ofHours(1);
-    private static final Duration REFRESH_TOKEN_VALIDITY = Duration.ofDays(30);
+    static final Duration REFRESH_TOKEN_VALIDITY = Duration.ofDays(30);
 
     /**
      * Genera un access token JWT.
@@ -49,20 +50,23 @@ public class JwtService {
 
     /**
      * Genera un refresh token JWT (durata più lunga).
+     * Il tokenId (claim jti) identifica la riga in refresh_tokens: i refresh token
+     * vanno emessi tramite RefreshTokenService, che registra la riga.
      *
      * @param userId ID dell'utente
      * @param email email dell'utente
+     * @param tokenId identificativo univoco del token (jti)
+     * @param issuedAt istante di emissione (la scadenza è issuedAt + REFRESH_TOKEN_VALIDITY)
      * @return JWT refresh token
      */
-    public String generateRefreshToken(Long userId, String email) {
-        Instant now = Instant.now();
-        
+    public String generateRefreshToken(Long userId, String email, String tokenId, Instant issuedAt) {
         return Jwt.issuer(issuer)
             .subject(userId.toString())
             .upn(email)
+            .claim(Claims.jti.name(), tokenId)
             .claim("type", "refresh")
-            .issuedAt(now)
-            .expiresAt(now.plus(REFRESH_TOKEN_VALIDITY))
+            .issuedAt(issuedAt)
+            .expiresAt(issuedAt.plus(REFRESH_TOKEN_VALIDITY))
             .sign();
     }
 
@@ -1,18 +1,25 @@
 package com.storeapp.auth.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
 import com.storeapp.auth.dto.AuthResponse;
 import com.storeapp.auth.dto.GoogleTokenResponse;
 import com.storeapp.auth.dto.GoogleUserInfo;
 import com.storeapp.auth.mapper.UserDtoMapper;
+import com.storeapp.group.service.GroupVersionService;
 import com.storeapp.user.entity.User;
 import com.storeapp.user.repository.UserRepository;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -20,11 +27,14 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service per la gestione dell'autenticazione OAuth2 con Google.
@@ -33,8 +43,13 @@ import java.util.StringJoiner;
  *  1. buildGoogleAuthUrl()    → genera URL di autorizzazione Google con state CSRF
  *  2. exchangeCodeForTokens() → scambia il codice con i token Google
  *  3. getUserInfo()           → recupera le informazioni utente da Google
+ *                               (saltato se l'id_token contiene già i claim)
  *  4. findOrCreateUser()      → trova o crea l'utente nel DB
  *  5. Genera JWT propri e restituisce AuthResponse
+ *
+ * Le chiamate HTTP sono asincrone (HttpClient.sendAsync su un client condiviso con
+ * timeout): nessun worker thread resta bloccato in attesa di Google. Solo i passi 4-5,
+ * che usano il database, girano sul worker pool.
  */
 @ApplicationScoped
 public class OAuthService {
@@ -63,14 +78,43 @@ public class OAuthService {
     @Inject
     UserRepository userRepository;
 
+    @Inject
+    ActivityCalendarRepository activityCalendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     JwtService jwtService;
 
+    @Inject
+    RefreshTokenService refreshTokenService;
+
+    @ConfigProperty(name = "storeapp.oauth2.http.connect-timeout-ms", defaultValue = "3000")
+    long connectTimeoutMs;
+
+    @ConfigProperty(name = "storeapp.oauth2.http.request-timeout-ms", defaultValue = "5000")
+    long requestTimeoutMs;
+
     @Inject
     UserDtoMapper userDtoMapper;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Inject
+    ObjectMapper objectMapper;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final Set<String> GOOGLE_ISSUERS = Set.of("https://accounts.google.com", "accounts.google.com");
+
+    /** Client condiviso: pool di connessioni HTTP/2 riusato tra i callback */
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
 
     // -------------------------------------------------------------------------
     // 1. Costruisce l'URL di autorizzazione Google
@@ -98,7 +142,7 @@ public class OAuthService {
      */
     public String generateState() {
         byte[] bytes = new byte[32];
-        new SecureRandom().nextBytes(bytes);
+        SECURE_RANDOM.nextBytes(bytes);
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
@@ -112,7 +156,7 @@ public class OAuthService {
      * @param code codice di autorizzazione ricevuto nel callback
      * @return GoogleTokenResponse con access_token, id_token, ecc.
      */
-    public GoogleTokenResponse exchangeCodeForTokens(String code) throws IOException, InterruptedException {
+    public CompletableFuture<GoogleTokenResponse> exchangeCodeForTokens(String code) {
         String requestBody = new StringJoiner("&")
                 .add("grant_type=" + encode("authorization_code"))
                 .add("code=" + encode(code))
@@ -123,45 +167,97 @@ public class OAuthService {
 
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(googleTokenUri))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Errore dal token endpoint di Google: HTTP " + response.statusCode()
-                    + " - " + response.body());
-        }
-
-        return objectMapper.readValue(response.body(), GoogleTokenResponse.class);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> readBody(response, "token", GoogleTokenResponse.class));
     }
 
     // -------------------------------------------------------------------------
     // 3. Recupera le informazioni utente da Google
     // -------------------------------------------------------------------------
 
+    /**
+     * Informazioni utente per i token ricevuti: dai claim dell'id_token se completi,
+     * altrimenti dal userinfo endpoint.
+     *
+     * @param tokens risposta del token endpoint
+     */
+    public CompletableFuture<GoogleUserInfo> resolveUserInfo(GoogleTokenResponse tokens) {
+        Optional<GoogleUserInfo> fromIdToken = userInfoFromIdToken(tokens.getIdToken());
+        return fromIdToken.map(CompletableFuture::completedFuture)
+                .orElseGet(() -> getUserInfo(tokens.getAccessToken()));
+    }
+
     /**
      * Chiama il userinfo endpoint di Google usando l'access token.
      *
      * @param accessToken access token Google
      * @return GoogleUserInfo con email, nome, picture, ecc.
      */
-    public GoogleUserInfo getUserInfo(String accessToken) throws IOException, InterruptedException {
+    public CompletableFuture<GoogleUserInfo> getUserInfo(String accessToken) {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(googleUserinfoUri))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
                 .header("Authorization", "Bearer " + accessToken)
                 .GET()
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> readBody(response, "userinfo", GoogleUserInfo.class));
+    }
 
+    /**
+     * Estrae i claim utente dall'id_token ricevuto direttamente dal token endpoint.
+     * Il token arriva da Google sul canale TLS del token endpoint, quindi (OpenID Connect
+     * Core 3.1.3.7) la firma non va riverificata; si controllano issuer, audience e scadenza.
+     *
+     * @return vuoto se l'id_token manca, non è valido o non contiene sub ed email
+     */
+    Optional<GoogleUserInfo> userInfoFromIdToken(String idToken) {
+        if (idToken == null) {
+            return Optional.empty();
+        }
+        String[] parts = idToken.split("\\.");
+        if (parts.length < 2) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            boolean valid = GOOGLE_ISSUERS.contains(claims.path("iss").asText())
+                    && googleClientId.equals(claims.path("aud").asText())
+                    && claims.path("exp").asLong() > Instant.now().getEpochSecond();
+            if (!valid || !claims.hasNonNull("sub") || !claims.hasNonNull("email")) {
+                return Optional.empty();
+            }
+
+            GoogleUserInfo userInfo = new GoogleUserInfo();
+            userInfo.setSub(claims.get("sub").asText());
+            userInfo.setEmail(claims.get("email").asText());
+            userInfo.setEmailVerified(claims.path("email_verified").asBoolean(false));
+            userInfo.setName(claims.hasNonNull("name") ? claims.get("name").asText() : null);
+            userInfo.setGivenName(claims.hasNonNull("given_name") ? claims.get("given_name").asText() : null);
+            userInfo.setFamilyName(claims.hasNonNull("family_name") ? claims.get("family_name").asText() : null);
+            userInfo.setPicture(claims.hasNonNull("picture") ? claims.get("picture").asText() : null);
+            return Optional.of(userInfo);
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private <T> T readBody(HttpResponse<String> response, String endpoint, Class<T> type) {
         if (response.statusCode() != 200) {
-            throw new RuntimeException("Errore dal userinfo endpoint di Google: HTTP " + response.statusCode()
+            throw new RuntimeException("Errore dal " + endpoint + " endpoint di Google: HTTP " + response.statusCode()
                     + " - " + response.body());
         }
-
-        return objectMapper.readValue(response.body(), GoogleUserInfo.class);
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Risposta non valida dal " + endpoint + " endpoint di Google", e);
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -186,6 +282,8 @@ public class OAuthService {
                 user.setAvatarUrl(userInfo.getPicture());
                 user.setUpdatedAt(LocalDateTime.now());
                 userRepository.merge(user);
+                activityCalendarRepository.updateCreator(user.getId(), user.getName(), user.getAvatarUrl());
+                groupVersions.bumpForMember(user.getId());
             }
             return user;
         }
@@ -221,26 +319,26 @@ public class OAuthService {
     // -------------------------------------------------------------------------
 
     /**
-     * Esegue l'intero flusso OAuth: code → tokens → userinfo → user → JWT.
+     * Esegue l'intero flusso OAuth dopo il callback di Google.
+     * Le chiamate a Google non occupano thread; il lavoro sul database
+     * (passi 4-5) viene spostato sul worker pool.
      *
      * @param code codice di autorizzazione ricevuto dal callback Google
      * @return AuthResponse con i nostri JWT e i dati utente
      */
-    public AuthResponse handleOAuthCallback(String code) throws IOException, InterruptedException {
-        // Scambia il codice con i token Google
-        GoogleTokenResponse googleTokens = exchangeCodeForTokens(code);
-
-        // Recupera le informazioni utente
-        GoogleUserInfo userInfo = getUserInfo(googleTokens.getAccessToken());
-
-        // Trova o crea l'utente nel DB
-        User user = findOrCreateUser(userInfo);
-
-        // Genera i nostri JWT
-        String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
-        String refreshToken = jwtService.generateRefreshToken(user.getId(), user.getEmail());
-
-        return new AuthResponse(accessToken, refreshToken, userDtoMapper.toDto(user));
+    public Uni<AuthResponse> handleOAuthCallback(String code) {
+        return Uni.createFrom().completionStage(() -> exchangeCodeForTokens(code).thenCompose(this::resolveUserInfo))
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(userInfo -> {
+                    // Trova o crea l'utente nel DB
+                    User user = findOrCreateUser(userInfo);
+
+                    // Genera i nostri JWT
+                    String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), Set.of("USER"));
+                    String refreshToken = refreshTokenService.issue(user.getId(), user.getEmail());
+
+                    return new AuthResponse(accessToken, refreshToken, userDtoMapper.toDto(user));
+                });
     }
 
     // -------------------------------------------------------------------------
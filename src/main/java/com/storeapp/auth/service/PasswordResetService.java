@@ -1,9 +1,11 @@
 package com.storeapp.auth.service;
 
+import com.storeapp.mail.entity.MailOutboxMessage;
+import com.storeapp.mail.service.MailBodyRenderer;
+import com.storeapp.mail.service.MailOutboxService;
 import com.storeapp.user.entity.User;
 import com.storeapp.user.repository.UserRepository;
-import io.quarkus.mailer.Mail;
-import io.quarkus.mailer.Mailer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -19,13 +21,21 @@ import java.util.Base64;
 
 /**
  * Service che gestisce il flusso di reset password via email.
+ *
+ * Il token in chiaro non viene mai salvato: la richiesta accoda solo il template
+ * "password-reset" con l'id utente, e il token (di cui users conserva l'hash) viene
+ * generato in {@link #render} quando il dispatcher spedisce l'email.
+ * Ogni tentativo di invio genera un nuovo token e invalida il precedente.
  */
 @ApplicationScoped
-public class PasswordResetService {
+public class PasswordResetService implements MailBodyRenderer {
 
     private static final Logger LOG = Logger.getLogger(PasswordResetService.class);
     private static final int TOKEN_TTL_MINUTES = 30;
 
+    static final String TEMPLATE = "password-reset";
+    static final String SUBJECT = "StoreApp - Reset Password";
+
     @Inject
     UserRepository userRepository;
 
@@ -33,7 +43,10 @@ public class PasswordResetService {
     PasswordService passwordService;
 
     @Inject
-    Mailer mailer;
+    RefreshTokenService refreshTokenService;
+
+    @Inject
+    MailOutboxService mailOutboxService;
 
     @ConfigProperty(name = "storeapp.app.frontend-url", defaultValue = "http://localhost:4200")
     String frontendUrl;
@@ -50,53 +63,70 @@ public class PasswordResetService {
             return;
         }
 
-        String rawToken = generateSecureToken();
-        String tokenHash = hashToken(rawToken);
-
-        user.setPasswordResetTokenHash(tokenHash);
-        user.setPasswordResetTokenExpiresAt(LocalDateTime.now().plusMinutes(TOKEN_TTL_MINUTES));
-        userRepository.merge(user);
-
-        sendResetEmail(user.getEmail(), user.getName(), rawToken);
+        // L'email parte solo se la transazione va a buon fine; il token viene creato all'invio
+        mailOutboxService.enqueueTemplate(user.getEmail(), SUBJECT, TEMPLATE, user.getId());
     }
 
-    @Transactional
+    /**
+     * Imposta la nuova password. L'hash BCrypt viene calcolato prima della
+     * transazione, così la connessione resta occupata solo per la lettura e l'update.
+     */
     public void resetPassword(String rawToken, String newPassword) {
         String tokenHash = hashToken(rawToken);
-        LocalDateTime now = LocalDateTime.now();
-
-        User user = userRepository.findByValidPasswordResetTokenHash(tokenHash, now)
-                .orElseThrow(() -> new IllegalArgumentException("Token non valido o scaduto"));
+        String passwordHash = passwordService.hashPassword(newPassword);
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            User user = userRepository.findByValidPasswordResetTokenHash(tokenHash, now)
+                    .orElseThrow(() -> new IllegalArgumentException("Token non valido o scaduto"));
+
+            user.setPasswordHash(passwordHash);
+            user.setPasswordResetTokenHash(null);
+            user.setPasswordResetTokenExpiresAt(null);
+            user.setUpdatedAt(now);
+            userRepository.merge(user);
+
+            // Le sessioni aperte con la vecchia password non possono più rinnovarsi
+            refreshTokenService.revokeAllForUser(user.getId());
+        });
+    }
 
-        user.setPasswordHash(passwordService.hashPassword(newPassword));
-        user.setPasswordResetTokenHash(null);
-        user.setPasswordResetTokenExpiresAt(null);
-        user.setUpdatedAt(now);
-        userRepository.merge(user);
+    @Override
+    public String template() {
+        return TEMPLATE;
     }
 
-    private void sendResetEmail(String email, String name, String rawToken) {
-        String encodedToken = URLEncoder.encode(rawToken, StandardCharsets.UTF_8);
-        String resetLink = frontendUrl + "/reset-password?token=" + encodedToken;
+    /**
+     * Genera un nuovo token di reset e il corpo dell'email che lo contiene.
+     * Chiamato dal dispatcher nella transazione che prende in carico il messaggio:
+     * in users finisce solo l'hash, il link esiste solo in memoria.
+     */
+    @Override
+    public String render(MailOutboxMessage message) {
+        User user = userRepository.findById(message.referenceId).orElse(null);
+        if (user == null || !user.getEmail().equals(message.recipient)) {
+            // Utente eliminato o email cambiata dopo la richiesta
+            return null;
+        }
 
+        String rawToken = generateSecureToken();
+        user.setPasswordResetTokenHash(hashToken(rawToken));
+        user.setPasswordResetTokenExpiresAt(LocalDateTime.now().plusMinutes(TOKEN_TTL_MINUTES));
+        userRepository.merge(user);
+
+        String resetLink = frontendUrl + "/reset-password?token=" + URLEncoder.encode(rawToken, StandardCharsets.UTF_8);
         if (mailerMock) {
-            LOG.infof("Mailer mock attivo, reset link per %s: %s", email, resetLink);
+            LOG.infof("Mailer mock attivo, reset link per %s: %s", user.getEmail(), resetLink);
         }
 
-        String body = "Ciao " + (name != null ? name : "utente") + ",\n\n"
+        String name = user.getName();
+        return "Ciao " + (name != null ? name : "utente") + ",\n\n"
                 + "Abbiamo ricevuto una richiesta di reset password per il tuo account StoreApp.\n\n"
                 + "Clicca qui per impostare una nuova password:\n"
                 + resetLink + "\n\n"
                 + "Il link scade tra " + TOKEN_TTL_MINUTES + " minuti.\n"
                 + "Se non hai richiesto tu il reset, ignora questa email.\n\n"
                 + "StoreApp Team";
-
-        try {
-            mailer.send(Mail.withText(email, "StoreApp - Reset Password", body));
-        } catch (Exception e) {
-            LOG.errorf(e, "Errore invio email reset password verso %s", email);
-            throw new RuntimeException("Impossibile inviare email di reset password", e);
-        }
     }
 
     private String generateSecureToken() {
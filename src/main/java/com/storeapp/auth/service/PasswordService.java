@@ -1,24 +1,98 @@
 package com.storeapp.auth.service;
 
+import com.storeapp.auth.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Service per l'hashing e la verifica delle password usando BCrypt.
+ *
+ * BCrypt è volutamente lento (~250ms a cost 12): le operazioni girano su un pool
+ * dedicato e limitato, così un picco di login non satura i worker thread, e i chiamanti
+ * non devono tenere aperta una transazione (e quindi una connessione) durante l'hashing.
+ * Se la coda è piena si risponde subito con {@link PasswordHashingBusyException} (503).
  */
 @ApplicationScoped
 public class PasswordService {
 
-    private static final int BCRYPT_ROUNDS = 12;
+    @ConfigProperty(name = "storeapp.password.bcrypt-cost", defaultValue = "12")
+    int bcryptCost;
+
+    @ConfigProperty(name = "storeapp.password.hash-pool-size", defaultValue = "4")
+    int poolSize;
+
+    @ConfigProperty(name = "storeapp.password.hash-queue-size", defaultValue = "64")
+    int queueSize;
+
+    @ConfigProperty(name = "storeapp.password.hash-timeout-ms", defaultValue = "5000")
+    long timeoutMs;
+
+    @Inject
+    MeterRegistry registry;
+
+    private ThreadPoolExecutor executor;
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        hashTimer = Timer.builder("storeapp.password.hash.duration")
+                .description("Durata dell'hashing BCrypt")
+                .tag("operation", "hash")
+                .register(registry);
+        verifyTimer = Timer.builder("storeapp.password.hash.duration")
+                .description("Durata dell'hashing BCrypt")
+                .tag("operation", "verify")
+                .register(registry);
+        rejected = Counter.builder("storeapp.password.hash.rejected")
+                .description("Richieste rifiutate per pool di hashing saturo")
+                .register(registry);
+        registry.gauge("storeapp.password.hash.queue", executor, pool -> pool.getQueue().size());
+        registry.gauge("storeapp.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
 
     /**
      * Hash di una password in chiaro.
      *
      * @param plainPassword password in chiaro
      * @return password hashata con BCrypt
+     * @throws PasswordHashingBusyException se il pool di hashing è saturo
      */
     public String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(BCRYPT_ROUNDS));
+        return submit(() -> hashTimer.record(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(bcryptCost))));
     }
 
     /**
@@ -27,12 +101,54 @@ public class PasswordService {
      * @param plainPassword password in chiaro
      * @param hashedPassword password hashata
      * @return true se la password corrisponde, false altrimenti
+     * @throws PasswordHashingBusyException se il pool di hashing è saturo
      */
     public boolean verifyPassword(String plainPassword, String hashedPassword) {
+        return submit(() -> verifyTimer.record(() -> {
+            try {
+                return BCrypt.checkpw(plainPassword, hashedPassword);
+            } catch (Exception e) {
+                return false;
+            }
+        }));
+    }
+
+    /**
+     * True se l'hash è stato calcolato con un cost diverso da quello configurato
+     * (va ricalcolato al prossimo login riuscito).
+     */
+    public boolean needsRehash(String hashedPassword) {
+        // Formato: $2a$12$<salt+hash>
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(3) != '$') {
+            return false;
+        }
         try {
-            return BCrypt.checkpw(plainPassword, hashedPassword);
-        } catch (Exception e) {
+            return Integer.parseInt(hashedPassword.substring(4, 6)) != bcryptCost;
+        } catch (NumberFormatException e) {
             return false;
         }
     }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Troppe richieste di autenticazione, riprova tra poco", e);
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Timeout nell'hashing della password", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Hashing della password interrotto", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Errore nell'hashing della password", e.getCause());
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.storeapp.auth.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Job periodico che elimina i refresh token scaduti (tabella e cache dei revocati).
+ *
+ * Frequenza: storeapp.refresh-tokens.compaction.every ("off" per disabilitarlo).
+ */
+@ApplicationScoped
+public class RefreshTokenCompactionJob {
+
+    private static final Logger LOG = Logger.getLogger(RefreshTokenCompactionJob.class);
+
+    @Inject
+    RefreshTokenService refreshTokenService;
+
+    @Scheduled(every = "{storeapp.refresh-tokens.compaction.every}",
+               delay = 5, delayUnit = java.util.concurrent.TimeUnit.MINUTES,
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void compact() {
+        long deleted = refreshTokenService.compact();
+        LOG.debugf("Compattazione refresh token: %d righe scadute eliminate", deleted);
+    }
+}
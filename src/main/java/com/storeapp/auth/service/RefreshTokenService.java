@@ -0,0 +1,155 @@
+package com.storeapp.auth.service;
+
+import com.storeapp.auth.entity.RefreshToken;
+import com.storeapp.auth.exception.InvalidCredentialsException;
+import com.storeapp.auth.repository.RefreshTokenRepository;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emissione, rotazione e revoca dei refresh token.
+ *
+ * Ogni refresh consuma il token presentato (UPDATE condizionale su refresh_tokens) e ne
+ * emette uno nuovo nella stessa famiglia. Se un token già ruotato viene ripresentato
+ * (token rubato o replay) l'intera famiglia viene revocata.
+ *
+ * I jti revocati restano in una mappa in memoria fino alla loro scadenza: un token
+ * revocato viene rifiutato in O(1) senza toccare il database. La mappa è solo un
+ * percorso veloce, la tabella resta la fonte di verità (anche tra più istanze).
+ */
+@ApplicationScoped
+public class RefreshTokenService {
+
+    private static final Logger LOG = Logger.getLogger(RefreshTokenService.class);
+
+    @Inject
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Inject
+    JwtService jwtService;
+
+    @ConfigProperty(name = "storeapp.refresh-tokens.revoked-cache.max-size", defaultValue = "100000")
+    int revokedCacheMaxSize;
+
+    /** jti revocato → scadenza del token (epoch millis) */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Risultato di una rotazione: il nuovo refresh token e il suo proprietario.
+     */
+    public record Rotation(Long userId, String email, String refreshToken) {
+    }
+
+    /**
+     * Emette il primo refresh token di una nuova famiglia (login, registrazione, OAuth).
+     */
+    @Transactional
+    public String issue(Long userId, String email) {
+        return issue(userId, email, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Scambia un refresh token valido con uno nuovo della stessa famiglia.
+     * La revoca per riuso viene salvata anche se la richiesta fallisce.
+     *
+     * @throws InvalidCredentialsException se il token non è valido, scaduto, revocato o già usato
+     */
+    @Transactional(dontRollbackOn = InvalidCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        JsonWebToken jwt;
+        try {
+            jwt = jwtService.parseToken(rawToken);
+        } catch (ParseException e) {
+            throw new InvalidCredentialsException("Invalid refresh token");
+        }
+
+        String tokenId = jwt.getTokenID();
+        if (!"refresh".equals(jwt.getClaim("type")) || tokenId == null) {
+            throw new InvalidCredentialsException("Invalid token type");
+        }
+        if (isRevoked(tokenId)) {
+            throw new InvalidCredentialsException("Refresh token revoked");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (refreshTokenRepository.markRotated(tokenId, now) == 0) {
+            RefreshToken stored = refreshTokenRepository.findByTokenId(tokenId).orElse(null);
+            if (stored != null && stored.rotatedAt != null && stored.revokedAt == null) {
+                LOG.warnf("Riuso del refresh token %s (utente %d): revoca della famiglia %s",
+                        tokenId, stored.userId, stored.familyId);
+                remember(refreshTokenRepository.revokeFamily(stored.familyId, now));
+            }
+            throw new InvalidCredentialsException("Refresh token already used or revoked");
+        }
+
+        RefreshToken current = refreshTokenRepository.findByTokenId(tokenId).orElseThrow();
+        String email = jwt.getName();
+        return new Rotation(current.userId, email, issue(current.userId, email, current.familyId));
+    }
+
+    /**
+     * Revoca tutti i refresh token dell'utente (reset password, disattivazione account).
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        remember(refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now()));
+    }
+
+    /**
+     * Controllo O(1) in memoria: true se il token è noto come revocato.
+     */
+    public boolean isRevoked(String tokenId) {
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Elimina le righe scadute e le voci scadute della cache dei revocati.
+     *
+     * @return numero di righe eliminate dal database
+     */
+    @Transactional
+    public long compact() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        return refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String issue(Long userId, String email, String familyId) {
+        Instant issuedAt = Instant.now();
+        String tokenId = UUID.randomUUID().toString();
+
+        RefreshToken token = new RefreshToken();
+        token.tokenId = tokenId;
+        token.familyId = familyId;
+        token.userId = userId;
+        token.issuedAt = LocalDateTime.ofInstant(issuedAt, ZoneId.systemDefault());
+        token.expiresAt = LocalDateTime.ofInstant(issuedAt.plus(JwtService.REFRESH_TOKEN_VALIDITY), ZoneId.systemDefault());
+        refreshTokenRepository.persist(token);
+
+        return jwtService.generateRefreshToken(userId, email, tokenId, issuedAt);
+    }
+
+    private void remember(List<RefreshToken> tokens) {
+        for (RefreshToken token : tokens) {
+            // Cache piena: il token resta comunque rifiutato dal controllo sul database
+            if (revoked.size() >= revokedCacheMaxSize) {
+                return;
+            }
+            revoked.put(token.tokenId, token.expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+}
@@ -2,15 +2,27 @@ package com.storeapp.group.controller;
 
 import com.storeapp.group.dto.*;
 import com.storeapp.group.service.GroupService;
+import com.storeapp.group.service.GroupVersionService;
+import com.storeapp.activity.dto.ExpenseExportFormat;
 import com.storeapp.activity.dto.GroupExpenseSettlementDto;
 import com.storeapp.activity.dto.SettleDebtRequest;
+import com.storeapp.activity.service.ExpenseExportService;
 import com.storeapp.activity.service.ExpenseSettlementService;
+import com.storeapp.activity.settlement.SettlementMode;
+import com.storeapp.user.dto.UserSearchPage;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import java.util.List;
 
@@ -29,6 +41,12 @@ public class GroupController {
     @Inject
     ExpenseSettlementService settlementService;
 
+    @Inject
+    ExpenseExportService exportService;
+
+    @Inject
+    GroupVersionService groupVersions;
+
     @Inject
     JsonWebToken jwt;
 
@@ -60,11 +78,29 @@ public class GroupController {
     /**
      * Ottiene i dettagli di un gruppo specifico
      * GET /api/groups/{id}
+     * Supporta If-None-Match: 304 se la versione dei dati del gruppo non è cambiata.
      */
     @GET
     @Path("/{id}")
-    public GroupDto getGroup(@PathParam("id") Long id) {
-        return groupService.getGroupDetails(id, getCurrentUserId());
+    public Response getGroup(@PathParam("id") Long id, @Context Request request) {
+        Long userId = getCurrentUserId();
+        return groupVersions.conditionalGet(request, id, userId,
+                () -> groupService.getGroupDetails(id, userId));
+    }
+
+    /**
+     * Stream Server-Sent Events delle modifiche al gruppo (attività, partecipanti, spese, rimborsi, membri)
+     * GET /api/groups/{id}/events
+     * Ogni evento è un GroupChangeDto JSON; HEARTBEAT periodico per tenere aperta la connessione.
+     * 429 se il gruppo ha già il numero massimo di connessioni aperte.
+     */
+    @GET
+    @Path("/{id}/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    @Blocking
+    public Multi<GroupChangeDto> streamChanges(@PathParam("id") Long id) {
+        return groupService.streamChanges(id, getCurrentUserId());
     }
 
     /**
@@ -99,18 +135,24 @@ public class GroupController {
 
     /**
      * Ottiene la lista di utenti disponibili da aggiungere al gruppo
-     * (esclude gli utenti già membri)
-     * GET /api/groups/{id}/available-users?search={query}
+     * (esclude gli utenti già membri), paginata
+     * GET /api/groups/{id}/available-users?search={query}&cursor={cursor}&limit={n}
+     * La pagina successiva è indicata dall'header X-Next-Cursor (assente sull'ultima pagina).
      * 
      * @param groupId ID del gruppo
      * @param search Query di ricerca opzionale (cerca in email e nome)
      */
     @GET
     @Path("/{id}/available-users")
-    public List<com.storeapp.user.dto.UserResponse> getAvailableUsers(
+    public Response getAvailableUsers(
             @PathParam("id") Long groupId,
-            @QueryParam("search") String search) {
-        return groupService.getAvailableUsers(groupId, getCurrentUserId(), search);
+            @QueryParam("search") String search,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit) {
+        UserSearchPage page = groupService.getAvailableUsers(groupId, getCurrentUserId(), search, cursor, limit);
+        return Response.ok(page.items)
+                .header(UserSearchPage.NEXT_CURSOR_HEADER, page.nextCursor)
+                .build();
     }
 
     /**
@@ -183,15 +225,41 @@ public class GroupController {
 
     /**
      * Calcola il settlement ottimizzato delle spese del gruppo.
-     * Restituisce i bilanci di ogni membro e le transazioni minime
-     * per saldare tutti i debiti (algoritmo Greedy Debt Simplification).
+     * Restituisce i bilanci di ogni membro e le transazioni per saldare tutti i debiti:
+     * mode=greedy (default) usa Greedy Debt Simplification, mode=optimal cerca il
+     * numero minimo di transazioni entro un budget di tempo.
      *
-     * GET /api/groups/{id}/expenses/settlement
+     * GET /api/groups/{id}/expenses/settlement?mode=optimal
      */
     @GET
     @Path("/{id}/expenses/settlement")
-    public GroupExpenseSettlementDto getExpenseSettlement(@PathParam("id") Long id) {
-        return settlementService.calculateSettlement(id, getCurrentUserId());
+    public GroupExpenseSettlementDto getExpenseSettlement(
+            @PathParam("id") Long id,
+            @QueryParam("mode") String mode) {
+        return settlementService.calculateSettlement(id, getCurrentUserId(), SettlementMode.fromParam(mode));
+    }
+
+    /**
+     * Esporta tutte le spese del gruppo, una riga per split, in streaming.
+     * format=csv (default) o ndjson; la memoria resta costante con qualsiasi numero di spese.
+     *
+     * GET /api/groups/{id}/expenses/export?format=ndjson
+     */
+    @GET
+    @Path("/{id}/expenses/export")
+    @Produces({"text/csv", "application/x-ndjson"})
+    public Response exportExpenses(
+            @PathParam("id") Long id,
+            @QueryParam("format") String format) {
+        Long userId = getCurrentUserId();
+        ExpenseExportFormat exportFormat = ExpenseExportFormat.fromParam(format);
+        exportService.checkAccess(id, userId);
+
+        StreamingOutput output = out -> exportService.export(id, exportFormat, out);
+        return Response.ok(output, exportFormat.mediaType + "; charset=UTF-8")
+                .header("Content-Disposition",
+                        "attachment; filename=\"group-" + id + "-expenses." + exportFormat.extension + "\"")
+                .build();
     }
 
     /**
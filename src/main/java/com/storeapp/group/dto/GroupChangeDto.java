@@ -0,0 +1,32 @@
+package com.storeapp.group.dto;
+
+import java.time.Instant;
+
+/**
+ * Notifica compatta di una modifica al gruppo (GET /api/groups/{id}/events).
+ * Non contiene i dati: il client ricarica la risorsa interessata.
+ * version è la nuova groups.data_version, la stessa usata negli ETag: un client può
+ * confrontarla con l'ETag in suo possesso e accorgersi di notifiche perse.
+ */
+public class GroupChangeDto {
+    public GroupChangeType type;
+    public Long groupId;
+    public Long entityId; // attività, partecipante, spesa o utente coinvolto (può essere null)
+    public Long version;
+    public Instant at;
+
+    public GroupChangeDto() {
+    }
+
+    public GroupChangeDto(GroupChangeType type, Long groupId, Long entityId, Long version) {
+        this.type = type;
+        this.groupId = groupId;
+        this.entityId = entityId;
+        this.version = version;
+        this.at = Instant.now();
+    }
+
+    public static GroupChangeDto heartbeat(Long groupId) {
+        return new GroupChangeDto(GroupChangeType.HEARTBEAT, groupId, null, null);
+    }
+}
@@ -0,0 +1,24 @@
+package com.storeapp.group.dto;
+
+/**
+ * Tipo di modifica notificata sullo stream SSE del gruppo
+ */
+public enum GroupChangeType {
+    GROUP_UPDATED,
+    MEMBERS_CHANGED,
+    /** Gruppo eliminato: version è null e lo stream viene chiuso */
+    GROUP_DELETED,
+    MEMBER_PROFILE_UPDATED,
+    ACTIVITY_CREATED,
+    ACTIVITY_UPDATED,
+    ACTIVITY_DELETED,
+    ACTIVITIES_REORDERED,
+    /** Import massivo: entityId è null, il client ricarica le attività */
+    ACTIVITIES_IMPORTED,
+    PARTICIPANTS_CHANGED,
+    EXPENSE_ADDED,
+    EXPENSE_DELETED,
+    SETTLEMENT_RECORDED,
+    /** Keep-alive periodico, nessuna modifica */
+    HEARTBEAT
+}
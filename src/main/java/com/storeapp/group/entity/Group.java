@@ -20,7 +20,8 @@ import java.util.Set;
 public class Group extends PanacheEntityBase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "groups_seq")
+    @SequenceGenerator(name = "groups_seq", sequenceName = "groups_seq", allocationSize = 50)
     public Long id;
 
     @NotBlank
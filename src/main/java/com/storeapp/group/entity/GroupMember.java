@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class GroupMember extends PanacheEntityBase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "group_members_seq")
+    @SequenceGenerator(name = "group_members_seq", sequenceName = "group_members_seq", allocationSize = 50)
     public Long id;
 
     @NotNull
@@ -0,0 +1,14 @@
+package com.storeapp.group.exception;
+
+import com.storeapp.shared.exception.BusinessException;
+
+/**
+ * Raggiunto il numero massimo di connessioni SSE aperte sullo stesso gruppo
+ */
+public class GroupStreamLimitException extends BusinessException {
+
+    public GroupStreamLimitException(Long groupId, int maxConnections) {
+        super("Troppe connessioni aperte sugli aggiornamenti del gruppo " + groupId
+                + " (massimo " + maxConnections + ")", "GROUP_STREAM_LIMIT", 429);
+    }
+}
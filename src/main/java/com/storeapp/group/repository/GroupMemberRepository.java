@@ -5,7 +5,10 @@ import com.storeapp.group.entity.GroupRole;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -28,6 +31,25 @@ public class GroupMemberRepository implements PanacheRepository<GroupMember> {
         return find("group.id", groupId).list();
     }
 
+    /**
+     * Membri del gruppo tra gli id indicati, con l'utente già caricato (memberId → membro).
+     * Una sola query: gli id che non appartengono al gruppo sono semplicemente assenti dalla mappa.
+     */
+    public Map<Long, GroupMember> findByGroupAndIds(Long groupId, Collection<Long> memberIds) {
+        Map<Long, GroupMember> members = new HashMap<>();
+        if (memberIds.isEmpty()) {
+            return members;
+        }
+        getEntityManager().createQuery(
+            "SELECT gm FROM GroupMember gm JOIN FETCH gm.user " +
+            "WHERE gm.group.id = :groupId AND gm.id IN :ids", GroupMember.class)
+        .setParameter("groupId", groupId)
+        .setParameter("ids", memberIds)
+        .getResultStream()
+        .forEach(member -> members.put(member.id, member));
+        return members;
+    }
+
     /**
      * Trova tutti gli admin di un gruppo
      */
@@ -64,6 +86,20 @@ public class GroupMemberRepository implements PanacheRepository<GroupMember> {
                     groupId, userId, GroupRole.ADMIN) > 0;
     }
 
+    /**
+     * Ruolo di ogni utente membro del gruppo (userId → ruolo).
+     * Query compatta su group_members: non carica GroupMember né User.
+     */
+    public Map<Long, GroupRole> findRolesByGroup(Long groupId) {
+        Map<Long, GroupRole> roles = new HashMap<>();
+        getEntityManager().createQuery(
+            "SELECT gm.user.id, gm.role FROM GroupMember gm WHERE gm.group.id = :groupId", Object[].class)
+        .setParameter("groupId", groupId)
+        .getResultStream()
+        .forEach(row -> roles.put((Long) row[0], (GroupRole) row[1]));
+        return roles;
+    }
+
     /**
      * Rimuove un membro tramite query DELETE
      */
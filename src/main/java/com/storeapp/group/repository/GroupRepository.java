@@ -4,7 +4,9 @@ import com.storeapp.group.entity.Group;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -41,4 +43,48 @@ public class GroupRepository implements PanacheRepository<Group> {
     public List<Group> searchByName(String searchTerm) {
         return find("LOWER(name) LIKE LOWER(?1)", "%" + searchTerm + "%").list();
     }
+
+    /**
+     * Versione corrente dei dati del gruppo (colonna data_version, non mappata sull'entità)
+     */
+    public Optional<Long> findDataVersion(Long groupId) {
+        List<?> rows = getEntityManager()
+            .createNativeQuery("SELECT data_version FROM groups WHERE id = :groupId")
+            .setParameter("groupId", groupId)
+            .getResultList();
+        return rows.stream().findFirst().map(v -> ((Number) v).longValue());
+    }
+
+    /**
+     * Incrementa la versione dei dati del gruppo (UPDATE atomico sulla riga).
+     * Ritorna la nuova versione, vuoto se il gruppo non esiste.
+     */
+    public Optional<Long> incrementDataVersion(Long groupId) {
+        List<?> rows = getEntityManager()
+            .createNativeQuery("UPDATE groups SET data_version = data_version + 1 WHERE id = :groupId RETURNING data_version")
+            .setParameter("groupId", groupId)
+            .getResultList();
+        return rows.stream().findFirst().map(v -> ((Number) v).longValue());
+    }
+
+    /**
+     * Incrementa la versione di tutti i gruppi di cui l'utente è membro.
+     * Ritorna groupId → nuova versione.
+     */
+    public Map<Long, Long> incrementDataVersionForMember(Long userId) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = getEntityManager()
+            .createNativeQuery("""
+                UPDATE groups SET data_version = data_version + 1
+                WHERE id IN (SELECT gm.group_id FROM group_members gm WHERE gm.user_id = :userId)
+                RETURNING id, data_version
+                """)
+            .setParameter("userId", userId)
+            .getResultList();
+        Map<Long, Long> versions = new HashMap<>();
+        for (Object[] row : rows) {
+            versions.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return versions;
+    }
 }
@@ -0,0 +1,76 @@
+package com.storeapp.group.service;
+
+import com.storeapp.group.entity.GroupRole;
+import com.storeapp.group.repository.GroupMemberRepository;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Risponde a "l'utente U è membro/admin del gruppo G?" senza idratare il grafo
+ * Group → GroupMember → User.
+ *
+ * La mappa userId → ruolo di un gruppo viene letta con una sola query compatta
+ * (GroupMemberRepository.findRolesByGroup) e tenuta in cache per la durata della richiesta.
+ * Le operazioni che modificano i membri chiamano {@link #invalidate(Long)}.
+ */
+@RequestScoped
+public class GroupAccessService {
+
+    @Inject
+    GroupMemberRepository groupMemberRepository;
+
+    private final Map<Long, Map<Long, GroupRole>> rolesByGroup = new HashMap<>();
+
+    /**
+     * Ruolo dell'utente nel gruppo (vuoto se non è membro)
+     */
+    public Optional<GroupRole> getRole(Long groupId, Long userId) {
+        return Optional.ofNullable(roles(groupId).get(userId));
+    }
+
+    /**
+     * Verifica se un utente è membro del gruppo (ADMIN o MEMBER)
+     */
+    public boolean isMember(Long groupId, Long userId) {
+        return roles(groupId).containsKey(userId);
+    }
+
+    /**
+     * Verifica se un utente è admin del gruppo
+     */
+    public boolean isAdmin(Long groupId, Long userId) {
+        return roles(groupId).get(userId) == GroupRole.ADMIN;
+    }
+
+    /**
+     * Numero di membri del gruppo
+     */
+    public int countMembers(Long groupId) {
+        return roles(groupId).size();
+    }
+
+    /**
+     * ID degli utenti membri del gruppo
+     */
+    public Set<Long> getMemberUserIds(Long groupId) {
+        return roles(groupId).keySet();
+    }
+
+    /**
+     * Scarta i ruoli in cache del gruppo: da chiamare dopo ogni modifica dei membri
+     */
+    public void invalidate(Long groupId) {
+        rolesByGroup.remove(groupId);
+    }
+
+    private Map<Long, GroupRole> roles(Long groupId) {
+        return rolesByGroup.computeIfAbsent(groupId,
+                id -> Collections.unmodifiableMap(groupMemberRepository.findRolesByGroup(id)));
+    }
+}
@@ -0,0 +1,143 @@
+package com.storeapp.group.service;
+
+import com.storeapp.group.dto.GroupChangeDto;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.exception.GroupStreamLimitException;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.operators.multi.processors.SerializedProcessor;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Smista le modifiche di gruppo alle connessioni SSE aperte (GET /api/groups/{id}/events).
+ *
+ * Le notifiche arrivano come evento CDI da {@link GroupVersionService#bump} e vengono
+ * inoltrate solo dopo il commit (TransactionPhase.AFTER_SUCCESS): un rollback non produce
+ * notifiche. Un BroadcastProcessor per gruppo, creato alla prima connessione e rimosso
+ * quando si chiude l'ultima.
+ *
+ * Ogni connessione ha un buffer limitato: un client troppo lento viene disconnesso
+ * (l'EventSource del browser si riconnette e ricarica i dati) invece di accumulare
+ * memoria sul server. Il numero di connessioni per gruppo è limitato; uno slot viene
+ * occupato solo quando lo stream viene effettivamente sottoscritto.
+ *
+ * Dopo un MEMBERS_CHANGED tutte le connessioni del gruppo ricevono la notifica e vengono
+ * chiuse: riconnettendosi ripassano dal controllo di membership, così un membro rimosso
+ * smette di ricevere le modifiche del gruppo. Lo stesso vale per GROUP_DELETED.
+ * Lo stato è in memoria: con più istanze ogni nodo notifica solo le modifiche fatte su di sé.
+ */
+@ApplicationScoped
+public class GroupChangeBroadcaster {
+
+    private static final Logger LOG = Logger.getLogger(GroupChangeBroadcaster.class);
+
+    @ConfigProperty(name = "storeapp.group-events.max-connections-per-group", defaultValue = "50")
+    int maxConnectionsPerGroup;
+
+    @ConfigProperty(name = "storeapp.group-events.buffer-size", defaultValue = "64")
+    int bufferSize;
+
+    @ConfigProperty(name = "storeapp.group-events.heartbeat", defaultValue = "PT25S")
+    Duration heartbeat;
+
+    /** Segnale interno di fine stream (processor del gruppo completato), mai inviato al client */
+    private static final GroupChangeDto CLOSED = new GroupChangeDto();
+
+    private final ConcurrentMap<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Stream delle modifiche del gruppo per una nuova connessione.
+     * La connessione viene conteggiata alla sottoscrizione e rilasciata alla terminazione.
+     * @throws GroupStreamLimitException se il gruppo ha già il numero massimo di connessioni
+     */
+    public Multi<GroupChangeDto> subscribe(Long groupId) {
+        // Controllo anticipato per rispondere 429 prima di aprire lo stream;
+        // il limite vero è applicato in acquire(), alla sottoscrizione
+        if (connections(groupId) >= maxConnectionsPerGroup) {
+            throw new GroupStreamLimitException(groupId, maxConnectionsPerGroup);
+        }
+
+        return Multi.createFrom().deferred(() -> {
+            Channel channel = acquire(groupId);
+
+            Multi<GroupChangeDto> heartbeats = Multi.createFrom().ticks().startingAfter(heartbeat).every(heartbeat)
+                    .map(tick -> GroupChangeDto.heartbeat(groupId));
+
+            return Multi.createBy().merging().streams(Multi.createFrom().publisher(channel.processor).onCompletion().continueWith(CLOSED), heartbeats)
+                    .select().first(change -> change != CLOSED)
+                    .onOverflow().buffer(bufferSize)
+                    .onFailure(BackPressureFailure.class).invoke(failure ->
+                            LOG.debugf("Slow SSE client on group %d disconnected", groupId))
+                    .onFailure(BackPressureFailure.class).recoverWithCompletion()
+                    .onTermination().invoke(() -> release(groupId, channel));
+        });
+    }
+
+    /**
+     * Inoltra la modifica alle connessioni del gruppo, solo a transazione confermata.
+     * MEMBERS_CHANGED e GROUP_DELETED chiudono anche le connessioni (vedi javadoc della classe).
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) GroupChangeDto change) {
+        if (change.type == GroupChangeType.MEMBERS_CHANGED || change.type == GroupChangeType.GROUP_DELETED) {
+            Channel channel = channels.remove(change.groupId);
+            if (channel != null) {
+                channel.processor.onNext(change);
+                channel.processor.onComplete();
+            }
+            return;
+        }
+        Channel channel = channels.get(change.groupId);
+        if (channel != null) {
+            channel.processor.onNext(change);
+        }
+    }
+
+    /**
+     * Connessioni aperte sul gruppo
+     */
+    public int connections(Long groupId) {
+        Channel channel = channels.get(groupId);
+        return channel != null ? channel.connections : 0;
+    }
+
+    private Channel acquire(Long groupId) {
+        return channels.compute(groupId, (id, existing) -> {
+            Channel c = existing != null ? existing : new Channel();
+            if (c.connections >= maxConnectionsPerGroup) {
+                throw new GroupStreamLimitException(groupId, maxConnectionsPerGroup);
+            }
+            c.connections++;
+            return c;
+        });
+    }
+
+    private void release(Long groupId, Channel channel) {
+        channels.computeIfPresent(groupId, (id, current) -> {
+            if (current != channel) {
+                return current;
+            }
+            current.connections--;
+            return current.connections > 0 ? current : null;
+        });
+    }
+
+    /**
+     * Processor e contatore connessioni di un gruppo; il contatore è modificato solo dentro compute
+     */
+    private static final class Channel {
+        // Serializzato: onChange gira sul thread di ogni commit, e commit concorrenti
+        // sullo stesso gruppo non devono chiamare onNext in parallelo (Reactive Streams §1.3)
+        final SerializedProcessor<GroupChangeDto, GroupChangeDto> processor =
+                BroadcastProcessor.<GroupChangeDto>create().serialized();
+        volatile int connections;
+    }
+}
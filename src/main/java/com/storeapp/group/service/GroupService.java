@@ -11,9 +11,12 @@ import com.storeapp.group.repository.GroupMemberRepository;
 import com.storeapp.group.repository.GroupRepository;
 import com.storeapp.activity.repository.ActivityParticipantRepository;
 import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
+import com.storeapp.user.dto.UserSearchPage;
 import com.storeapp.user.entity.User;
-import com.storeapp.user.mapper.UserMapper;
 import com.storeapp.user.repository.UserRepository;
+import com.storeapp.user.service.UserBusinessService;
+import io.smallrye.mutiny.Multi;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -31,6 +34,9 @@ public class GroupService {
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupAccessService groupAccess;
+
     @Inject
     GroupMemberRepository groupMemberRepository;
 
@@ -43,6 +49,15 @@ public class GroupService {
     @Inject
     ActivityExpenseSplitRepository activityExpenseSplitRepository;
 
+    @Inject
+    ActivityCalendarRepository activityCalendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
+    @Inject
+    GroupChangeBroadcaster changeBroadcaster;
+
     @Inject
     GroupMapper groupMapper;
 
@@ -50,7 +65,7 @@ public class GroupService {
     GroupMemberMapper groupMemberMapper;
 
     @Inject
-    UserMapper userMapper;
+    UserBusinessService userBusinessService;
 
     private static final int MAX_MEMBERS_PER_GROUP = 50;
 
@@ -109,8 +124,8 @@ public class GroupService {
         // Crea e persiste il gruppo
         Group group = groupMapper.toEntity(request);
         group.createdBy = creator;
+        // Id da sequence: gruppo e membri vengono inseriti insieme, in batch, al flush
         groupRepository.persist(group);
-        groupRepository.flush(); // Forza il flush per ottenere l'ID
 
         // 3. Aggiungi il creatore come ADMIN
         GroupMember creatorMember = new GroupMember();
@@ -118,6 +133,7 @@ public class GroupService {
         creatorMember.user = creator;
         creatorMember.role = GroupRole.ADMIN;
         groupMemberRepository.persist(creatorMember);
+        group.members.add(creatorMember);
 
         // 4. Aggiungi i membri validati
         for (int i = 0; i < usersToAdd.size(); i++) {
@@ -126,14 +142,10 @@ public class GroupService {
             member.user = usersToAdd.get(i);
             member.role = rolesToAssign.get(i);
             groupMemberRepository.persist(member);
+            group.members.add(member);
         }
 
-        groupMemberRepository.flush();
-
-        // 5. Ricarica il gruppo con i membri per avere i dati completi
-        group = groupRepository.findByIdWithMembers(group.id)
-            .orElseThrow(() -> new RuntimeException("Errore nel recupero del gruppo creato"));
-
+        // 5. DTO dallo stato in memoria: utenti già caricati dalle validazioni, nessuna rilettura
         return groupMapper.toDtoWithMembers(group);
     }
 
@@ -153,13 +165,29 @@ public class GroupService {
             .orElseThrow(() -> new GroupNotFoundException(groupId));
 
         // Verifica che l'utente sia membro del gruppo
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
         return groupMapper.toDtoWithMembers(group);
     }
 
+    /**
+     * Stream delle modifiche del gruppo (solo membri).
+     * Le notifiche partono dopo il commit delle transazioni di ActivityService, GroupService
+     * e ExpenseSettlementService; il client ricarica le risorse interessate.
+     */
+    public Multi<GroupChangeDto> streamChanges(Long groupId, Long userId) {
+        groupRepository.findByIdOptional(groupId)
+            .orElseThrow(() -> new GroupNotFoundException(groupId));
+
+        if (!groupAccess.isMember(groupId, userId)) {
+            throw InsufficientPermissionsException.memberRequired();
+        }
+
+        return changeBroadcaster.subscribe(groupId);
+    }
+
     /**
      * Aggiorna le informazioni di un gruppo (solo ADMIN)
      */
@@ -171,7 +199,7 @@ public class GroupService {
         }
 
         // Solo gli admin possono modificare
-        if (!group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
@@ -179,6 +207,7 @@ public class GroupService {
         groupMapper.updateEntityFromRequest(request, group);
 
         groupRepository.persist(group);
+        groupVersions.bump(groupId, GroupChangeType.GROUP_UPDATED, null);
         return groupMapper.toDtoWithMembers(group);
     }
 
@@ -198,44 +227,31 @@ public class GroupService {
         }
 
         groupRepository.delete(group);
+        groupAccess.invalidate(groupId);
+        groupVersions.deleted(groupId);
     }
 
     /**
      * Ottiene la lista di utenti disponibili da aggiungere al gruppo
-     * Esclude gli utenti già membri del gruppo
+     * Esclude gli utenti già membri del gruppo (NOT EXISTS nella query di ricerca)
      * 
      * @param groupId ID del gruppo
      * @param userId ID dell'utente che richiede la lista
      * @param searchQuery Query di ricerca opzionale (cerca in email e nome, case-insensitive)
-     * @return Lista di utenti disponibili, filtrati per la query se presente
+     * @param cursor Cursore della pagina precedente (null = prima pagina)
+     * @param limit Dimensione della pagina (default 20, massimo 50)
+     * @return Pagina di utenti disponibili, ordinati per rilevanza
      */
-    public List<com.storeapp.user.dto.UserResponse> getAvailableUsers(Long groupId, Long userId, String searchQuery) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+    public UserSearchPage getAvailableUsers(Long groupId, Long userId, String searchQuery, String cursor, Integer limit) {
+        groupRepository.findByIdOptional(groupId)
             .orElseThrow(() -> new GroupNotFoundException(groupId));
 
         // Verifica che l'utente sia almeno membro del gruppo
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw InsufficientPermissionsException.memberRequired();
         }
 
-        // Ottieni gli ID dei membri attuali del gruppo da escludere
-        List<Long> memberIds = group.members.stream()
-            .map(m -> m.user.getId())
-            .toList();
-
-        // 🚀 Query ottimizzata: tutto a livello database!
-        List<User> availableUsers;
-        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-            // Cerca utenti per nome/email ESCLUDENDO i membri (una sola query)
-            availableUsers = userRepository.searchUsersExcluding(searchQuery.trim(), memberIds);
-        } else {
-            // Senza ricerca, restituisce tutti gli utenti NON membri (una sola query)
-            availableUsers = userRepository.findAllExcluding(memberIds);
-        }
-
-        return availableUsers.stream()
-            .map(userMapper::toUserResponse)
-            .toList();
+        return userBusinessService.search(searchQuery, groupId, cursor, limit);
     }
 
     /**
@@ -243,16 +259,16 @@ public class GroupService {
      */
     @Transactional
     public GroupMemberDto addMember(Long groupId, AddMemberRequest request, Long userId) {
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
             .orElseThrow(() -> new GroupNotFoundException(groupId));
 
         // Solo gli admin possono aggiungere membri
-        if (!group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
         // Verifica limite membri
-        if (group.getMemberCount() >= MAX_MEMBERS_PER_GROUP) {
+        if (groupAccess.countMembers(groupId) >= MAX_MEMBERS_PER_GROUP) {
             throw InvalidOperationException.maxMembersReached();
         }
 
@@ -279,6 +295,9 @@ public class GroupService {
         member.user = userToAdd;
         member.role = request.role != null ? request.role : GroupRole.MEMBER;
         groupMemberRepository.persist(member);
+        groupAccess.invalidate(groupId);
+        activityCalendarRepository.updateTotalMembers(groupId);
+        groupVersions.bump(groupId, GroupChangeType.MEMBERS_CHANGED, member.id);
 
         return groupMemberMapper.toDto(member);
     }
@@ -290,16 +309,16 @@ public class GroupService {
     @Transactional
     public List<GroupMemberDto> addMembers(Long groupId, List<AddMemberRequest> requests, Long userId) {
         // Validazione gruppo e permessi
-        Group group = groupRepository.findByIdWithMembers(groupId)
+        Group group = groupRepository.findByIdOptional(groupId)
             .orElseThrow(() -> new GroupNotFoundException(groupId));
 
         // Solo gli admin possono aggiungere membri
-        if (!group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
         // Verifica limite membri PRIMA di processare
-        long currentMemberCount = group.getMemberCount();
+        long currentMemberCount = groupAccess.countMembers(groupId);
         if (currentMemberCount + requests.size() > MAX_MEMBERS_PER_GROUP) {
             throw new InvalidOperationException(
                 "Impossibile aggiungere " + requests.size() + " membri. " +
@@ -340,6 +359,9 @@ public class GroupService {
             groupMemberRepository.persist(member);
             addedMembers.add(member);
         }
+        groupAccess.invalidate(groupId);
+        activityCalendarRepository.updateTotalMembers(groupId);
+        groupVersions.bump(groupId, GroupChangeType.MEMBERS_CHANGED, null);
 
         // Converti tutti i membri in DTO
         return addedMembers.stream()
@@ -358,7 +380,7 @@ public class GroupService {
         }
 
         // Solo gli admin possono rimuovere membri
-        if (!group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
@@ -393,6 +415,9 @@ public class GroupService {
         if (deletedCount == 0) {
             throw new RuntimeException("Failed to delete member - no rows affected");
         }
+        groupAccess.invalidate(groupId);
+        activityCalendarRepository.updateTotalMembers(groupId);
+        groupVersions.bump(groupId, GroupChangeType.MEMBERS_CHANGED, memberId);
     }
 
     /**
@@ -436,7 +461,9 @@ public class GroupService {
             Group group = groupRepository.findById(groupId);
             if (group != null) {
                 groupRepository.delete(group);
+                groupVersions.deleted(groupId);
             }
+            groupAccess.invalidate(groupId);
             return;
         }
 
@@ -449,6 +476,10 @@ public class GroupService {
         }
 
         groupMemberRepository.delete(membership);
+        groupAccess.invalidate(groupId);
+        // Le partecipazioni del membro uscito cambiano i conteggi delle attività
+        activityCalendarRepository.refreshGroup(groupId);
+        groupVersions.bump(groupId, GroupChangeType.MEMBERS_CHANGED, membership.id);
     }
 
     /**
@@ -462,7 +493,7 @@ public class GroupService {
         }
 
         // Solo gli admin possono cambiare ruoli
-        if (!group.isAdmin(userId)) {
+        if (!groupAccess.isAdmin(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
@@ -481,6 +512,8 @@ public class GroupService {
 
         member.role = request.role;
         groupMemberRepository.persist(member);
+        groupAccess.invalidate(groupId);
+        groupVersions.bump(groupId, GroupChangeType.MEMBERS_CHANGED, member.id);
 
         return groupMemberMapper.toDto(member);
     }
@@ -495,7 +528,7 @@ public class GroupService {
         }
 
         // Verifica che l'utente sia membro
-        if (!group.isMember(userId)) {
+        if (!groupAccess.isMember(groupId, userId)) {
             throw InsufficientPermissionsException.adminRequired();
         }
 
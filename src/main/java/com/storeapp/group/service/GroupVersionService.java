@@ -0,0 +1,106 @@
+package com.storeapp.group.service;
+
+import com.storeapp.group.dto.GroupChangeDto;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.repository.GroupRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Versione dei dati di un gruppo (groups.data_version) esposta come ETag forte.
+ *
+ * Ogni metodo che modifica gruppo, membri, attività, partecipanti o spese chiama
+ * {@link #bump(Long, GroupChangeType, Long)} nella propria transazione. Le GET di gruppo, attività
+ * e calendario rispondono 304 a un If-None-Match con la versione corrente, senza eseguire le query pesanti.
+ * Ogni incremento genera anche un {@link GroupChangeDto}, inoltrato dopo il commit agli stream SSE
+ * da {@link GroupChangeBroadcaster}.
+ */
+@ApplicationScoped
+public class GroupVersionService {
+
+    private static final CacheControl REVALIDATE = revalidate();
+
+    @Inject
+    GroupRepository groupRepository;
+
+    @Inject
+    GroupAccessService groupAccess;
+
+    @Inject
+    Event<GroupChangeDto> changes;
+
+    /**
+     * Segna come modificati i dati del gruppo e notifica la modifica (dopo il commit)
+     *
+     * @param entityId attività, partecipante, spesa o membro coinvolto (null se non applicabile)
+     */
+    public void bump(Long groupId, GroupChangeType type, Long entityId) {
+        groupRepository.incrementDataVersion(groupId)
+            .ifPresent(version -> changes.fire(new GroupChangeDto(type, groupId, entityId, version)));
+    }
+
+    /**
+     * Notifica l'eliminazione del gruppo (dopo il commit). Non passa da {@link #bump}:
+     * la riga di groups non esiste più e non c'è una versione da incrementare.
+     */
+    public void deleted(Long groupId) {
+        changes.fire(new GroupChangeDto(GroupChangeType.GROUP_DELETED, groupId, null, null));
+    }
+
+    /**
+     * Segna come modificati tutti i gruppi dell'utente (es. cambio nome/avatar nel profilo)
+     */
+    public void bumpForMember(Long userId) {
+        groupRepository.incrementDataVersionForMember(userId).forEach((groupId, version) ->
+            changes.fire(new GroupChangeDto(GroupChangeType.MEMBER_PROFILE_UPDATED, groupId, userId, version)));
+    }
+
+    /**
+     * ETag della vista del gruppo per l'utente; vuoto se il gruppo non esiste o l'utente non è membro
+     * (in quel caso la richiesta prosegue e il service risponde con il solito errore).
+     * Include l'utente perché alcune risposte (calendario, ruolo) dipendono da chi le chiede.
+     */
+    public Optional<EntityTag> currentTag(Long groupId, Long userId) {
+        if (!groupAccess.isMember(groupId, userId)) {
+            return Optional.empty();
+        }
+        return groupRepository.findDataVersion(groupId)
+            .map(version -> new EntityTag(version + "-" + userId));
+    }
+
+    /**
+     * GET condizionale: 304 se If-None-Match corrisponde alla versione corrente,
+     * altrimenti 200 con il body prodotto da {@code body} e l'header ETag.
+     * La versione viene letta prima del body: se una modifica arriva nel frattempo il client
+     * riceve dati più recenti del tag e al poll successivo ottiene semplicemente un 200.
+     */
+    public Response conditionalGet(Request request, Long groupId, Long userId, Supplier<Object> body) {
+        Optional<EntityTag> tag = currentTag(groupId, userId);
+        if (tag.isPresent()) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag.get());
+            if (notModified != null) {
+                return notModified.tag(tag.get()).cacheControl(REVALIDATE).build();
+            }
+        }
+
+        Response.ResponseBuilder ok = Response.ok(body.get()).cacheControl(REVALIDATE);
+        tag.ifPresent(ok::tag);
+        return ok.build();
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+}
@@ -0,0 +1,59 @@
+package com.storeapp.mail.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email in attesa di invio (outbox transazionale).
+ */
+@Entity
+@Table(name = "mail_outbox")
+public class MailOutboxMessage extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(nullable = false)
+    public String recipient;
+
+    @Column(nullable = false)
+    public String subject;
+
+    /** Corpo già pronto; null per i messaggi generati da un template all'invio */
+    @Column(columnDefinition = "TEXT")
+    public String body;
+
+    /** Template (vedi MailBodyRenderer) che genera il corpo al momento dell'invio */
+    @Column(length = 64)
+    public String template;
+
+    /** Entità a cui si riferisce il template (es. id utente) */
+    @Column(name = "reference_id")
+    public Long referenceId;
+
+    /** Corpo generato dal template: solo in memoria, mai salvato */
+    @Transient
+    public String renderedBody;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    public MailStatus status = MailStatus.PENDING;
+
+    @Column(nullable = false)
+    public int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    public LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    public String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    public LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    public LocalDateTime sentAt;
+}
@@ -0,0 +1,10 @@
+package com.storeapp.mail.entity;
+
+/**
+ * Stato di un messaggio nell'outbox
+ */
+public enum MailStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
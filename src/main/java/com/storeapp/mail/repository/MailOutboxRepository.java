@@ -0,0 +1,42 @@
+package com.storeapp.mail.repository;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+import com.storeapp.mail.entity.MailStatus;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository per la tabella mail_outbox.
+ */
+@ApplicationScoped
+public class MailOutboxRepository implements PanacheRepository<MailOutboxMessage> {
+
+    /**
+     * Blocca fino a {@code limit} messaggi pronti per l'invio.
+     * SKIP LOCKED: istanze concorrenti del dispatcher prendono lotti disgiunti senza attendersi.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MailOutboxMessage> lockDue(LocalDateTime now, int limit) {
+        return getEntityManager().createNativeQuery(
+                "SELECT * FROM mail_outbox " +
+                "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                "ORDER BY next_attempt_at, id " +
+                "LIMIT :limit " +
+                "FOR UPDATE SKIP LOCKED", MailOutboxMessage.class)
+            .setParameter("now", now)
+            .setParameter("limit", limit)
+            .getResultList();
+    }
+
+    /**
+     * Elimina i messaggi inviati prima di {@code before} e quelli falliti definitivamente
+     * creati prima di {@code before}.
+     */
+    public long deleteCompletedBefore(LocalDateTime before) {
+        return delete("(status = ?1 AND sentAt < ?3) OR (status = ?2 AND createdAt < ?3)",
+                MailStatus.SENT, MailStatus.FAILED, before);
+    }
+}
@@ -0,0 +1,24 @@
+package com.storeapp.mail.service;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+
+/**
+ * Genera il corpo di un messaggio dell'outbox al momento dell'invio.
+ *
+ * Serve per le email che contengono credenziali (es. link di reset password):
+ * nell'outbox restano solo template e referenceId, il contenuto sensibile
+ * esiste solo in memoria durante l'invio.
+ */
+public interface MailBodyRenderer {
+
+    /** Nome del template gestito (colonna mail_outbox.template) */
+    String template();
+
+    /**
+     * Chiamato nella transazione che prende in carico il messaggio, a ogni tentativo.
+     *
+     * @return il corpo dell'email, o null se il messaggio non va più inviato
+     *         (es. utente eliminato nel frattempo)
+     */
+    String render(MailOutboxMessage message);
+}
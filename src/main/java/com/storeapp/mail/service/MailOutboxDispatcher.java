@@ -0,0 +1,110 @@
+package com.storeapp.mail.service;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.reactive.ReactiveMailer;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Job che spedisce le email dell'outbox.
+ *
+ * Ad ogni giro prende in carico un lotto (storeapp.mail.outbox.batch-size), lo invia
+ * in parallelo con il ReactiveMailer e registra gli esiti in un'unica transazione.
+ * Nessuna connessione al database resta aperta durante il dialogo SMTP.
+ *
+ * Frequenza: storeapp.mail.outbox.poll-every ("off" per disabilitarlo).
+ */
+@ApplicationScoped
+public class MailOutboxDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(MailOutboxDispatcher.class);
+
+    @Inject
+    MailOutboxService outboxService;
+
+    @Inject
+    ReactiveMailer mailer;
+
+    @ConfigProperty(name = "storeapp.mail.outbox.batch-size", defaultValue = "20")
+    int batchSize;
+
+    @ConfigProperty(name = "storeapp.mail.outbox.send-timeout-seconds", defaultValue = "60")
+    long sendTimeoutSeconds;
+
+    @ConfigProperty(name = "storeapp.mail.outbox.retention-days", defaultValue = "7")
+    long retentionDays;
+
+    @Scheduled(every = "{storeapp.mail.outbox.poll-every}",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void poll() {
+        // Svuota l'arretrato a lotti, senza attendere il giro successivo
+        while (dispatchBatch() == batchSize) {
+            LOG.debug("Outbox email: lotto pieno, proseguo con il successivo");
+        }
+    }
+
+    @Scheduled(every = "1h", delay = 10, delayUnit = TimeUnit.MINUTES,
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purge() {
+        long deleted = outboxService.purgeCompleted(Duration.ofDays(retentionDays));
+        LOG.debugf("Outbox email: %d messaggi inviati o falliti eliminati", deleted);
+    }
+
+    /**
+     * Invia un lotto di messaggi pronti.
+     *
+     * @return numero di messaggi presi in carico
+     */
+    public int dispatchBatch() {
+        List<MailOutboxMessage> batch = outboxService.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, CompletableFuture<Void>> sends = new HashMap<>();
+        for (MailOutboxMessage message : batch) {
+            String body = message.template != null ? message.renderedBody : message.body;
+            sends.put(message.id, mailer.send(Mail.withText(message.recipient, message.subject, body))
+                    .subscribeAsCompletionStage());
+        }
+
+        Map<Long, Throwable> results = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        sends.forEach((id, send) -> results.put(id, await(send, deadline)));
+
+        outboxService.recordResults(results);
+
+        long failed = results.values().stream().filter(java.util.Objects::nonNull).count();
+        if (failed > 0) {
+            LOG.warnf("Outbox email: %d/%d invii falliti, verranno ritentati", failed, batch.size());
+        }
+        return batch.size();
+    }
+
+    private static Throwable await(CompletableFuture<Void> send, long deadlineNanos) {
+        try {
+            send.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (TimeoutException e) {
+            send.cancel(true);
+            return new TimeoutException("Invio SMTP non completato entro il timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (Exception e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.storeapp.mail.service;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+import com.storeapp.mail.entity.MailStatus;
+import com.storeapp.mail.repository.MailOutboxRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox transazionale delle email.
+ *
+ * {@link #enqueue} partecipa alla transazione del chiamante: l'email parte solo se
+ * la modifica che la genera viene confermata, e la richiesta HTTP non attende l'SMTP.
+ * L'invio vero e proprio è di {@link MailOutboxDispatcher}.
+ *
+ * Le email con credenziali (link di reset password) non vanno accodate con
+ * {@link #enqueue}: {@link #enqueueTemplate} salva solo template e riferimento e il
+ * corpo viene generato da un {@link MailBodyRenderer} a ogni tentativo di invio.
+ */
+@ApplicationScoped
+public class MailOutboxService {
+
+    /** Primo ritardo dopo un invio fallito; raddoppia ad ogni tentativo */
+    static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    @Inject
+    MailOutboxRepository outboxRepository;
+
+    @Inject
+    @Any
+    Instance<MailBodyRenderer> renderers;
+
+    @ConfigProperty(name = "storeapp.mail.outbox.max-attempts", defaultValue = "8")
+    int maxAttempts;
+
+    @ConfigProperty(name = "storeapp.mail.outbox.lease-seconds", defaultValue = "120")
+    long leaseSeconds;
+
+    /**
+     * Accoda un'email di testo. Da chiamare dentro la transazione che la genera.
+     */
+    @Transactional
+    public void enqueue(String recipient, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.recipient = recipient;
+        message.subject = subject;
+        message.body = body;
+        message.createdAt = now;
+        message.nextAttemptAt = now;
+        outboxRepository.persist(message);
+    }
+
+    /**
+     * Accoda un'email il cui corpo viene generato all'invio dal {@link MailBodyRenderer}
+     * di {@code template}. Da chiamare dentro la transazione che la genera.
+     */
+    @Transactional
+    public void enqueueTemplate(String recipient, String subject, String template, Long referenceId) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.recipient = recipient;
+        message.subject = subject;
+        message.template = template;
+        message.referenceId = referenceId;
+        message.createdAt = now;
+        message.nextAttemptAt = now;
+        outboxRepository.persist(message);
+    }
+
+    /**
+     * Prende in carico un lotto di messaggi pronti: incrementa i tentativi e sposta
+     * next_attempt_at avanti della durata del lease, così nessun altro dispatcher
+     * li riprende mentre l'invio è in corso.
+     * I messaggi con template ricevono il corpo in {@code renderedBody}; quelli che
+     * non si possono più generare vengono marcati FAILED ed esclusi dal lotto.
+     */
+    @Transactional
+    public List<MailOutboxMessage> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutboxMessage> batch = outboxRepository.lockDue(now, limit);
+        List<MailOutboxMessage> ready = new ArrayList<>(batch.size());
+        for (MailOutboxMessage message : batch) {
+            message.attempts++;
+            message.nextAttemptAt = now.plusSeconds(leaseSeconds);
+            if (message.template == null) {
+                ready.add(message);
+                continue;
+            }
+            message.renderedBody = render(message);
+            if (message.renderedBody != null) {
+                ready.add(message);
+            } else {
+                message.status = MailStatus.FAILED;
+                message.lastError = "Template " + message.template + ": messaggio non più inviabile";
+            }
+        }
+        return ready;
+    }
+
+    private String render(MailOutboxMessage message) {
+        for (MailBodyRenderer renderer : renderers) {
+            if (renderer.template().equals(message.template)) {
+                return renderer.render(message);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registra l'esito di un lotto: null = inviato, altrimenti l'errore dell'invio.
+     * I falliti vengono ripianificati con backoff esponenziale fino a max-attempts.
+     */
+    @Transactional
+    public void recordResults(Map<Long, Throwable> results) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Throwable> result : results.entrySet()) {
+            MailOutboxMessage message = outboxRepository.findById(result.getKey());
+            if (message == null) {
+                continue;
+            }
+            Throwable error = result.getValue();
+            if (error == null) {
+                message.status = MailStatus.SENT;
+                message.sentAt = now;
+                message.lastError = null;
+            } else {
+                message.lastError = String.valueOf(error.getMessage());
+                if (message.attempts >= maxAttempts) {
+                    message.status = MailStatus.FAILED;
+                } else {
+                    message.nextAttemptAt = now.plus(backoff(message.attempts));
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina i messaggi inviati o falliti definitivamente da più di {@code retention}.
+     */
+    @Transactional
+    public long purgeCompleted(Duration retention) {
+        return outboxRepository.deleteCompletedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    /**
+     * Ritardo prima del tentativo successivo: 30s, 1m, 2m, ... fino a 1h.
+     */
+    static Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -0,0 +1,17 @@
+package com.storeapp.shared.config;
+
+/**
+ * Timeout delle transazioni che restano aperte per tutto un download in streaming
+ * (cursore JDBC letto mentre la risposta viene scritta), da usare con
+ * {@code @TransactionConfiguration(timeout = ..., timeoutFromConfigProperty = ...)}.
+ * Sostituisce i 60s di default di JTA; allo scadere il cursore viene chiuso e la risposta si interrompe.
+ */
+public final class StreamingTransactions {
+
+    /** Default in secondi, se storeapp.streaming.transaction-timeout-seconds non è configurata */
+    public static final int TIMEOUT_SECONDS = 600;
+    public static final String TIMEOUT_PROPERTY = "storeapp.streaming.transaction-timeout-seconds";
+
+    private StreamingTransactions() {
+    }
+}
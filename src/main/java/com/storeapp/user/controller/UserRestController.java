@@ -1,8 +1,11 @@
 package com.storeapp.user.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.storeapp.user.dto.CreateUserRequest;
 import com.storeapp.user.dto.UpdateUserRequest;
 import com.storeapp.user.dto.UserResponse;
+import com.storeapp.user.dto.UserSearchPage;
 import com.storeapp.user.service.UserBusinessService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
@@ -10,7 +13,10 @@ import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -26,13 +32,46 @@ public class UserRestController {
     @Inject
     UserBusinessService userBusinessService;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    /**
+     * GET /api/users?cursor={cursor}&limit={n}
+     * Lista paginata degli utenti, ordinata per id.
+     * La pagina successiva è indicata dall'header X-Next-Cursor (assente sull'ultima pagina).
+     */
+    @GET
+    public Response listAll(@QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit) {
+        UserSearchPage page = userBusinessService.findPage(cursor, limit);
+        return Response.ok(page.items)
+                .header(UserSearchPage.NEXT_CURSOR_HEADER, page.nextCursor)
+                .build();
+    }
+
     /**
-     * GET /api/users
-     * Lista tutti gli utenti.
+     * GET /api/users/stream
+     * Tutti gli utenti come unico array JSON, scritto man mano che le righe
+     * vengono lette dal database (memoria costante lato server).
      */
     @GET
-    public List<UserResponse> listAll() {
-        return userBusinessService.findAll();
+    @Path("/stream")
+    public Response streamAll() {
+        StreamingOutput output = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                userBusinessService.streamAll(user -> {
+                    try {
+                        generator.writeObject(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON).build();
     }
 
     /**
@@ -97,24 +136,22 @@ public class UserRestController {
     }
 
     /**
-     * GET /api/users/search?q={query}
-     * Cerca utenti per username o email.
+     * GET /api/users/search?q={query}&cursor={cursor}&limit={n}
+     * Cerca utenti per username o email, ordinati per rilevanza (email esatta, prefisso, contiene).
+     * La pagina successiva è indicata dall'header X-Next-Cursor (assente sull'ultima pagina).
      */
     @GET
     @Path("/search")
-    public List<UserResponse> search(@QueryParam("q") String query) {
+    public Response search(@QueryParam("q") String query,
+                           @QueryParam("cursor") String cursor,
+                           @QueryParam("limit") Integer limit) {
         if (query == null || query.trim().isEmpty()) {
-            return List.of();
+            return Response.ok(List.of()).build();
         }
 
-        List<UserResponse> allUsers = userBusinessService.findAll();
-        String lowerQuery = query.toLowerCase();
-
-        return allUsers.stream()
-                .filter(user ->
-                        user.email.toLowerCase().contains(lowerQuery) ||
-                                user.name.toLowerCase().contains(lowerQuery)
-                )
-                .toList();
+        UserSearchPage page = userBusinessService.search(query, null, cursor, limit);
+        return Response.ok(page.items)
+                .header(UserSearchPage.NEXT_CURSOR_HEADER, page.nextCursor)
+                .build();
     }
 }
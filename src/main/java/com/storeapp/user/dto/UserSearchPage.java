@@ -0,0 +1,20 @@
+package com.storeapp.user.dto;
+
+import java.util.List;
+
+/**
+ * Pagina di risultati della lista o della ricerca utenti.
+ * nextCursor è null quando non ci sono altre pagine; i controller lo espongono
+ * nell'header X-Next-Cursor e il client lo ripassa come ?cursor=.
+ */
+public class UserSearchPage {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public List<UserResponse> items;
+    public String nextCursor;
+
+    public UserSearchPage(List<UserResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
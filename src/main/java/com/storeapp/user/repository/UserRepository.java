@@ -5,9 +5,13 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 /**
@@ -65,53 +69,102 @@ public class UserRepository {
     }
 
     /**
-     * Trova tutti gli utenti.
+     * Pagina di utenti ordinata per id (paginazione keyset).
+     *
+     * @param afterId id dell'ultimo utente della pagina precedente (null = prima pagina)
+     * @param limit   numero massimo di risultati
      */
-    public List<User> findAll() {
-        return em.createQuery("SELECT u FROM User u", User.class).getResultList();
+    public List<User> findPage(Long afterId, int limit) {
+        return em.createQuery("SELECT u FROM User u WHERE u.id > :afterId ORDER BY u.id", User.class)
+                .setParameter("afterId", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
     /**
-     * Cerca utenti per nome o email (case-insensitive), escludendo certi ID.
-     * Query ottimizzata: filtra tutto a livello database.
-     * 
-     * @param searchQuery Query di ricerca (cerca in email e nome)
-     * @param excludeIds Lista di ID utenti da escludere (es. membri già presenti)
-     * @return Lista di utenti che corrispondono alla ricerca
+     * Tutti gli utenti ordinati per id, letti a blocchi di {@code fetchSize} righe
+     * tramite cursore JDBC (il driver PostgreSQL lo usa solo dentro una transazione).
+     * Lo stream va chiuso; il chiamante deve staccare le entity già processate
+     * ({@link #detach}) per non far crescere il persistence context.
      */
-    public List<User> searchUsersExcluding(String searchQuery, List<Long> excludeIds) {
-        String jpql = "SELECT u FROM User u WHERE " +
-                      "(LOWER(u.email) LIKE LOWER(:search) OR LOWER(u.name) LIKE LOWER(:search))";
-        
-        // Se ci sono ID da escludere, aggiungi la condizione
-        if (excludeIds != null && !excludeIds.isEmpty()) {
-            jpql += " AND u.id NOT IN :excludeIds";
-        }
-        
-        var query = em.createQuery(jpql, User.class)
-                     .setParameter("search", "%" + searchQuery + "%");
-        
-        if (excludeIds != null && !excludeIds.isEmpty()) {
-            query.setParameter("excludeIds", excludeIds);
-        }
-        
-        return query.getResultList();
+    public Stream<User> streamAll(int fetchSize) {
+        return em.createQuery("SELECT u FROM User u ORDER BY u.id", User.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
     }
 
     /**
-     * Trova utenti non presenti in una lista di ID.
-     * 
-     * @param excludeIds Lista di ID utenti da escludere
-     * @return Lista di utenti non presenti nella lista di esclusione
+     * Rimuove l'utente dal persistence context.
      */
-    public List<User> findAllExcluding(List<Long> excludeIds) {
-        if (excludeIds == null || excludeIds.isEmpty()) {
-            return findAll();
+    public void detach(User user) {
+        em.detach(user);
+    }
+
+    /**
+     * Ricerca utenti per nome o email con ranking e paginazione keyset.
+     * Il filtro LOWER(...) LIKE '%q%' è servito dagli indici trigram (V021),
+     * i membri del gruppo vengono esclusi con NOT EXISTS invece di caricarne gli ID.
+     *
+     * Ranking: 0 = email esatta, 1 = prefisso di nome o email, 2 = contiene.
+     * Ordinamento stabile (rank, id): la pagina successiva parte da (afterRank, afterId) escluso.
+     * Il rank viene letto dalla query stessa, così il cursore usa esattamente il valore
+     * calcolato da PostgreSQL. Con query vuota non c'è nulla da classificare:
+     * tutti gli utenti hanno rank 0 e la paginazione è un semplice keyset sull'id.
+     *
+     * @param searchQuery    testo già normalizzato (trim + lowercase), vuoto = tutti
+     * @param excludeGroupId gruppo i cui membri vanno esclusi (null = nessuna esclusione)
+     * @param afterRank      rank dell'ultimo risultato della pagina precedente (null = prima pagina)
+     * @param afterId        id dell'ultimo risultato della pagina precedente
+     * @param limit          numero massimo di risultati
+     */
+    @SuppressWarnings("unchecked")
+    public List<UserSearchResult> search(String searchQuery, Long excludeGroupId, Integer afterRank, Long afterId, int limit) {
+        boolean ranked = !searchQuery.isEmpty();
+        String rank = ranked
+                ? "(CASE WHEN LOWER(u.email) = :exact THEN 0 " +
+                  "WHEN LOWER(u.name) LIKE :prefix ESCAPE '\\' OR LOWER(u.email) LIKE :prefix ESCAPE '\\' THEN 1 " +
+                  "ELSE 2 END)"
+                : "0";
+        StringBuilder sql = new StringBuilder("SELECT {u.*}, ").append(rank).append(" AS search_rank FROM users u WHERE 1 = 1");
+        if (ranked) {
+            sql.append(" AND (LOWER(u.name) LIKE :contains ESCAPE '\\' OR LOWER(u.email) LIKE :contains ESCAPE '\\')");
+        }
+        if (excludeGroupId != null) {
+            sql.append(" AND NOT EXISTS (SELECT 1 FROM group_members gm WHERE gm.group_id = :groupId AND gm.user_id = u.id)");
         }
-        
-        return em.createQuery("SELECT u FROM User u WHERE u.id NOT IN :excludeIds", User.class)
-                 .setParameter("excludeIds", excludeIds)
-                 .getResultList();
+        if (afterRank != null) {
+            sql.append(ranked ? " AND (" + rank + ", u.id) > (:afterRank, :afterId)" : " AND u.id > :afterId");
+        }
+        sql.append(ranked ? " ORDER BY " + rank + ", u.id" : " ORDER BY u.id").append(" LIMIT :limit");
+
+        NativeQuery<Object[]> query = em.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addEntity("u", User.class)
+                .addScalar("search_rank", StandardBasicTypes.INTEGER)
+                .setParameter("limit", limit);
+        if (ranked) {
+            String escaped = escapeLike(searchQuery);
+            query.setParameter("contains", "%" + escaped + "%")
+                 .setParameter("prefix", escaped + "%")
+                 .setParameter("exact", searchQuery);
+        }
+        if (excludeGroupId != null) {
+            query.setParameter("groupId", excludeGroupId);
+        }
+        if (afterRank != null) {
+            if (ranked) {
+                query.setParameter("afterRank", afterRank);
+            }
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList().stream()
+                .map(row -> new UserSearchResult((User) row[0], (Integer) row[1]))
+                .toList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     /**
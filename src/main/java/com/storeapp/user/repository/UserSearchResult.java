@@ -0,0 +1,17 @@
+package com.storeapp.user.repository;
+
+import com.storeapp.user.entity.User;
+
+/**
+ * Risultato di {@link UserRepository#search}: l'utente e il rank calcolato dalla query,
+ * usato per costruire il cursore della pagina successiva.
+ */
+public class UserSearchResult {
+    public final User user;
+    public final int rank;
+
+    public UserSearchResult(User user, int rank) {
+        this.user = user;
+        this.rank = rank;
+    }
+}
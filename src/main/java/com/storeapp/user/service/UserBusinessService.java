@@ -1,25 +1,38 @@
 package com.storeapp.user.service;
 
+import com.storeapp.activity.repository.ActivityCalendarRepository;
+import com.storeapp.auth.service.PasswordService;
+import com.storeapp.group.service.GroupVersionService;
+import com.storeapp.shared.config.StreamingTransactions;
 import com.storeapp.user.dto.CreateUserRequest;
 import com.storeapp.user.dto.UpdateUserRequest;
 import com.storeapp.user.dto.UserResponse;
+import com.storeapp.user.dto.UserSearchPage;
 import com.storeapp.user.entity.User;
 import com.storeapp.user.mapper.UserMapper;
 import com.storeapp.user.repository.UserRepository;
+import com.storeapp.user.repository.UserSearchResult;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
-import org.mindrot.jbcrypt.BCrypt;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Business Service per la gestione degli utenti.
  * Contiene tutta la logica business:
  * - Validazioni
- * - Hashing password
+ * - Hashing password (delegato a PasswordService)
  * - Regole di business
  *
  * Le conversioni Entity <-> DTO sono delegate a UserMapper
@@ -27,19 +40,76 @@ import java.util.List;
 @ApplicationScoped
 public class UserBusinessService {
 
+    /** Dimensione di pagina di default e massima per la ricerca utenti */
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+    static final int MAX_SEARCH_LIMIT = 50;
+
+    /** Dimensione di pagina di default e massima per la lista utenti */
+    static final int DEFAULT_PAGE_LIMIT = 50;
+    static final int MAX_PAGE_LIMIT = 200;
+
+    /** Righe lette per ogni round-trip del cursore JDBC in streamAll */
+    private static final int STREAM_FETCH_SIZE = 500;
+
     @Inject
     UserRepository userRepository;
 
     @Inject
     UserMapper userMapper;
 
+    @Inject
+    PasswordService passwordService;
+
+    @Inject
+    ActivityCalendarRepository activityCalendarRepository;
+
+    @Inject
+    GroupVersionService groupVersions;
+
+    /**
+     * Recupera una pagina di utenti ordinata per id.
+     * @param cursor id dell'ultimo utente della pagina precedente (null = prima pagina)
+     * @param limit dimensione della pagina (default 50, massimo 200)
+     * @return pagina di UserResponse (senza password) con il cursore della successiva
+     * @throws BadRequestException se il cursore non è valido
+     */
+    public UserSearchPage findPage(String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_LIMIT : Math.min(limit, MAX_PAGE_LIMIT);
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Cursore non valido");
+            }
+        }
+
+        // Una riga in più per sapere se esiste una pagina successiva
+        List<User> users = userRepository.findPage(afterId, pageSize + 1);
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = String.valueOf(users.get(pageSize - 1).getId());
+        }
+        return new UserSearchPage(userMapper.toUserResponseList(users), nextCursor);
+    }
+
     /**
-     * Recupera tutti gli utenti.
-     * @return lista di UserResponse (senza password)
+     * Passa tutti gli utenti al consumer uno alla volta, leggendoli tramite cursore JDBC.
+     * Ogni entity viene staccata dopo la conversione: la memoria resta costante
+     * indipendentemente dalla dimensione della tabella.
+     * La transazione dura quanto il download, con il timeout di {@link StreamingTransactions}.
      */
-    public List<UserResponse> findAll() {
-        List<User> users = userRepository.findAll();
-        return userMapper.toUserResponseList(users);
+    @Transactional
+    @TransactionConfiguration(timeout = StreamingTransactions.TIMEOUT_SECONDS,
+            timeoutFromConfigProperty = StreamingTransactions.TIMEOUT_PROPERTY)
+    public void streamAll(Consumer<UserResponse> consumer) {
+        try (Stream<User> users = userRepository.streamAll(STREAM_FETCH_SIZE)) {
+            users.forEach(user -> {
+                consumer.accept(userMapper.toUserResponse(user));
+                userRepository.detach(user);
+            });
+        }
     }
 
     /**
@@ -64,23 +134,27 @@ public class UserBusinessService {
 
     /**
      * Crea un nuovo utente.
+     * L'hash della password viene calcolato fuori dalla transazione.
      * @throws WebApplicationException se l'email esiste già
      */
-    @Transactional
     public UserResponse create(CreateUserRequest request) {
-        // Validazione business: email univoca
-        if (userRepository.existsByEmail(request.email)) {
-            throw new WebApplicationException("Email già utilizzata", 409);
-        }
+        String passwordHash = passwordService.hashPassword(request.password);
+
+        return QuarkusTransaction.requiringNew().call(() -> {
+            // Validazione business: email univoca
+            if (userRepository.existsByEmail(request.email)) {
+                throw new WebApplicationException("Email già utilizzata", 409);
+            }
 
-        // Creazione entity usando mapper
-        User user = userMapper.toEntity(request);
-        user.setPasswordHash(hashPassword(request.password));
+            // Creazione entity usando mapper
+            User user = userMapper.toEntity(request);
+            user.setPasswordHash(passwordHash);
 
-        // Persist nel DB
-        userRepository.persist(user);
+            // Persist nel DB
+            userRepository.persist(user);
 
-        return userMapper.toUserResponse(user);
+            return userMapper.toUserResponse(user);
+        });
     }
 
     /**
@@ -88,30 +162,36 @@ public class UserBusinessService {
      * @throws NotFoundException se l'utente non esiste
      * @throws WebApplicationException se la nuova email esiste già
      */
-    @Transactional
     public UserResponse update(Long id, UpdateUserRequest request) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Utente con id " + id + " non trovato"));
+        // Gestisce password separatamente (hashing fuori dalla transazione)
+        String passwordHash = request.password != null ? passwordService.hashPassword(request.password) : null;
 
-        // Validazione business: email univoca
-        if (request.email != null && !request.email.equals(user.getEmail())) {
-            if (userRepository.existsByEmail(request.email)) {
-                throw new WebApplicationException("Email già utilizzata", 409);
+        return QuarkusTransaction.requiringNew().call(() -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Utente con id " + id + " non trovato"));
+
+            // Validazione business: email univoca
+            if (request.email != null && !request.email.equals(user.getEmail())) {
+                if (userRepository.existsByEmail(request.email)) {
+                    throw new WebApplicationException("Email già utilizzata", 409);
+                }
             }
-        }
 
-        // Aggiorna entity usando mapper (partial update)
-        userMapper.updateEntityFromRequest(request, user);
+            // Aggiorna entity usando mapper (partial update)
+            userMapper.updateEntityFromRequest(request, user);
 
-        // Gestisce password separatamente (hashing)
-        if (request.password != null) {
-            user.setPasswordHash(hashPassword(request.password));
-        }
+            if (passwordHash != null) {
+                user.setPasswordHash(passwordHash);
+            }
 
-        // Update nel DB
-        user = userRepository.merge(user);
+            // Update nel DB
+            user = userRepository.merge(user);
+            activityCalendarRepository.updateCreator(user.getId(), user.getName(), user.getAvatarUrl());
+            // Nome/avatar compaiono nei dettagli dei gruppi dell'utente
+            groupVersions.bumpForMember(user.getId());
 
-        return userMapper.toUserResponse(user);
+            return userMapper.toUserResponse(user);
+        });
     }
 
     /**
@@ -132,6 +212,40 @@ public class UserBusinessService {
         return userRepository.count();
     }
 
+    /**
+     * Ricerca utenti per nome o email, con ranking e paginazione keyset.
+     * Usata sia da GET /api/users/search che da GroupService.getAvailableUsers.
+     *
+     * @param query          testo da cercare (null o vuoto = tutti gli utenti)
+     * @param excludeGroupId gruppo i cui membri vanno esclusi (null = nessuna esclusione)
+     * @param cursor         cursore opaco restituito dalla pagina precedente (null = prima pagina)
+     * @param limit          dimensione della pagina (default 20, massimo 50)
+     * @throws BadRequestException se il cursore non è valido
+     */
+    public UserSearchPage search(String query, Long excludeGroupId, String cursor, Integer limit) {
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+
+        Integer afterRank = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            long[] decoded = decodeCursor(cursor);
+            afterRank = (int) decoded[0];
+            afterId = decoded[1];
+        }
+
+        // Una riga in più per sapere se esiste una pagina successiva
+        List<UserSearchResult> results = userRepository.search(normalized, excludeGroupId, afterRank, afterId, pageSize + 1);
+        String nextCursor = null;
+        if (results.size() > pageSize) {
+            results = results.subList(0, pageSize);
+            UserSearchResult last = results.get(pageSize - 1);
+            nextCursor = encodeCursor(last.rank, last.user.getId());
+        }
+        List<User> users = results.stream().map(result -> result.user).toList();
+        return new UserSearchPage(userMapper.toUserResponseList(users), nextCursor);
+    }
+
     /**
      * Verifica se una password è corretta per un dato utente.
      * @return true se la password è corretta
@@ -139,15 +253,28 @@ public class UserBusinessService {
     public boolean verifyPassword(String email, String password) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new NotFoundException("Utente con email " + email + " non trovato"));
-        return BCrypt.checkpw(password, user.getPasswordHash());
+        return passwordService.verifyPassword(password, user.getPasswordHash());
     }
 
     // ========== METODI PRIVATI DI UTILITÀ ==========
 
     /**
-     * Hash della password con BCrypt.
+     * Cursore di ricerca: "rank:id" in base64url (opaco per il client).
      */
-    private String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt());
+    static String encodeCursor(int rank, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((rank + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Formato cursore non valido");
+            }
+            return new long[] { Integer.parseInt(parts[0]), Long.parseLong(parts[1]) };
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursore di ricerca non valido");
+        }
     }
 }
@@ -0,0 +1,139 @@
+package com.storeapp.activity.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH dell'idratazione delle righe di ActivityRepository.findByGroupId:
+ * metadata JSONB delle location parsati per ogni riga (prima) vs metadata lazy (ora).
+ *
+ * Simula le righe di un gruppo, metà Event (1 documento) e metà Trip (2 documenti),
+ * con un documento simile a una risposta Nominatim. Il parsing usa Jackson come
+ * JsonBinaryType; la parte "colonne semplici" è comune ai due casi.
+ *
+ * Non viene eseguito da surefire. Per lanciarlo:
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main LocationMetadataHydrationBenchmark"
+ * </pre>
+ * oppure eseguendo {@link #main(String[])} dall'IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationMetadataHydrationBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {};
+
+    private static final String NOMINATIM_METADATA = """
+            {"place_id":132847561,"licence":"Data © OpenStreetMap contributors, ODbL 1.0",
+             "osm_type":"way","osm_id":4433451,"lat":"41.8902102","lon":"12.4922309",
+             "class":"tourism","type":"attraction","place_rank":30,"importance":0.7152,
+             "addresstype":"tourism","name":"Colosseo",
+             "display_name":"Colosseo, Piazza del Colosseo, Celio, Municipio Roma I, Roma, Lazio, 00184, Italia",
+             "address":{"tourism":"Colosseo","road":"Piazza del Colosseo","quarter":"Celio",
+                        "suburb":"Municipio Roma I","city":"Roma","county":"Roma Capitale",
+                        "ISO3166-2-lvl6":"IT-RM","state":"Lazio","ISO3166-2-lvl4":"IT-62",
+                        "postcode":"00184","country":"Italia","country_code":"it"},
+             "boundingbox":["41.8897211","41.8906993","12.4915119","12.4929499"],
+             "extratags":{"wikidata":"Q10285","wikipedia":"it:Colosseo","opening_hours":"08:30-19:15",
+                          "website":"https://parcocolosseo.it","heritage":"1"}}
+            """;
+
+    @Param({"100", "1000"})
+    int activities;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    List<Row> rows;
+
+    /** Valori di colonna di una riga di activities (SINGLE_TABLE) */
+    record Row(long id, String name, boolean trip, String locationName, BigDecimal lat, BigDecimal lng,
+               String metadata1, String metadata2) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new ArrayList<>(activities);
+        for (int i = 0; i < activities; i++) {
+            boolean trip = i % 2 == 1;
+            // Stringhe distinte per riga, come arrivano dal driver JDBC
+            rows.add(new Row(i, "Activity " + i, trip, "Colosseo",
+                    new BigDecimal("41.8902102"), new BigDecimal("12.4922309"),
+                    new String(NOMINATIM_METADATA), trip ? new String(NOMINATIM_METADATA) : null));
+        }
+    }
+
+    @Benchmark
+    public List<Activity> eagerMetadata() throws JsonProcessingException {
+        List<Activity> result = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Activity activity = hydrateColumns(row);
+            if (activity instanceof Trip trip) {
+                trip.originMetadata = objectMapper.readValue(row.metadata1(), MAP);
+                trip.destinationMetadata = objectMapper.readValue(row.metadata2(), MAP);
+            } else {
+                ((Event) activity).locationMetadata = objectMapper.readValue(row.metadata1(), MAP);
+            }
+            result.add(activity);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Activity> lazyMetadata() {
+        List<Activity> result = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            result.add(hydrateColumns(row));
+        }
+        return result;
+    }
+
+    private static Activity hydrateColumns(Row row) {
+        Location location = new Location(row.locationName(), null, row.lat(), row.lng());
+        Activity activity;
+        if (row.trip()) {
+            Trip trip = new Trip();
+            trip.origin = location;
+            trip.destination = location;
+            activity = trip;
+        } else {
+            Event event = new Event();
+            event.location = location;
+            activity = event;
+        }
+        activity.id = row.id();
+        activity.name = row.name();
+        return activity;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocationMetadataHydrationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.storeapp.activity.repository;
+
+import com.storeapp.activity.dto.ActivityCalendarDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityCalendarOccurrenceTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2025, 1, 30);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2025, 2, 2);
+
+    @Test
+    void singleDayActivityUsesItsOwnDateNotToday() {
+        ActivityCalendarDto dto = dto(CHECK_IN, null, CHECK_IN, "Europe/Rome", "Europe/Rome");
+
+        ActivityCalendarRepository.applyOccurrence(dto, LocalTime.of(20, 0), LocalTime.of(22, 30));
+
+        assertFalse(dto.multiDay);
+        assertEquals(CHECK_IN.atTime(20, 0), dto.start);
+        assertEquals(CHECK_IN.atTime(22, 30), dto.end);
+        assertEquals(Instant.parse("2025-01-30T19:00:00Z"), dto.startInstant);
+        assertEquals(Instant.parse("2025-01-30T21:30:00Z"), dto.endInstant);
+    }
+
+    @Test
+    void multiDayOccurrencesSpanWholeIntermediateDays() {
+        LocalTime checkIn = LocalTime.of(15, 0);
+        LocalTime checkOut = LocalTime.of(11, 0);
+
+        ActivityCalendarDto first = dto(CHECK_IN, CHECK_OUT, CHECK_IN, "Europe/Rome", "Europe/Rome");
+        ActivityCalendarRepository.applyOccurrence(first, checkIn, checkOut);
+        assertTrue(first.multiDay);
+        assertEquals(CHECK_IN.atTime(checkIn), first.start);
+        assertEquals(CHECK_IN.plusDays(1).atStartOfDay(), first.end);
+
+        LocalDate february1 = LocalDate.of(2025, 2, 1);
+        ActivityCalendarDto middle = dto(CHECK_IN, CHECK_OUT, february1, "Europe/Rome", "Europe/Rome");
+        ActivityCalendarRepository.applyOccurrence(middle, checkIn, checkOut);
+        assertEquals(february1.atStartOfDay(), middle.start);
+        assertEquals(february1.plusDays(1).atStartOfDay(), middle.end);
+
+        ActivityCalendarDto last = dto(CHECK_IN, CHECK_OUT, CHECK_OUT, "Europe/Rome", "Europe/Rome");
+        ActivityCalendarRepository.applyOccurrence(last, checkIn, checkOut);
+        assertEquals(CHECK_OUT.atStartOfDay(), last.start);
+        assertEquals(CHECK_OUT.atTime(checkOut), last.end);
+
+        // Gli istanti si riferiscono all'intera attività, uguali per tutte le occorrenze
+        assertEquals(first.startInstant, last.startInstant);
+        assertEquals(Instant.parse("2025-02-02T10:00:00Z"), middle.endInstant);
+    }
+
+    @Test
+    void startAndEndUseTheirOwnTimezones() {
+        // Volo Roma -> New York: partenza 10:00 ora di Roma, arrivo 13:30 ora di New York
+        LocalDate day = LocalDate.of(2025, 7, 10);
+        ActivityCalendarDto dto = dto(day, null, day, "Europe/Rome", "America/New_York");
+
+        ActivityCalendarRepository.applyOccurrence(dto, LocalTime.of(10, 0), LocalTime.of(13, 30));
+
+        assertEquals(Instant.parse("2025-07-10T08:00:00Z"), dto.startInstant);
+        assertEquals(Instant.parse("2025-07-10T17:30:00Z"), dto.endInstant);
+    }
+
+    @Test
+    void invalidTimezoneFallsBackToDefault() {
+        ActivityCalendarDto dto = dto(CHECK_IN, null, CHECK_IN, "Not/AZone", null);
+
+        ActivityCalendarRepository.applyOccurrence(dto, LocalTime.of(20, 0), LocalTime.of(22, 0));
+
+        assertEquals(Instant.parse("2025-01-30T19:00:00Z"), dto.startInstant);
+        assertEquals(Instant.parse("2025-01-30T21:00:00Z"), dto.endInstant);
+    }
+
+    private static ActivityCalendarDto dto(LocalDate activityDate, LocalDate endDate, LocalDate occurrence,
+                                           String startTimezone, String endTimezone) {
+        ActivityCalendarDto dto = new ActivityCalendarDto();
+        dto.activityDate = activityDate;
+        dto.endDate = endDate;
+        dto.occurrenceDate = occurrence;
+        dto.startTimezone = startTimezone;
+        dto.endTimezone = endTimezone;
+        return dto;
+    }
+}
@@ -0,0 +1,128 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.ActivityCalendarDto;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.entity.ParticipantStatus;
+import com.storeapp.activity.repository.ActivityCalendarRepository;
+import com.storeapp.support.SqlStatementCounter;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class ActivityCalendarProjectionTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ActivityService activityService;
+
+    @Inject
+    ActivityCalendarService calendarService;
+
+    @Inject
+    ActivityCalendarRepository calendarRepository;
+
+    @Test
+    @TestTransaction
+    void refreshedEntriesCarryCountsAndCreator() {
+        TestData data = TestData.group(em, 5);
+        Event event = data.event("Dinner");
+        data.participants(event);
+        calendarRepository.refreshActivity(event.id);
+
+        LocalDate day = data.group.vacationStartDate;
+        List<ActivityCalendarDto> calendar =
+                calendarService.getCalendarView(data.group.id, day, day, data.ownerId());
+
+        assertEquals(1, calendar.size());
+        ActivityCalendarDto dto = calendar.get(0);
+        assertEquals(event.id, dto.id);
+        // 5 membri: status CONFIRMED, MAYBE, DECLINED, CONFIRMED, MAYBE
+        assertEquals(2L, dto.confirmedCount);
+        assertEquals(2L, dto.maybeCount);
+        assertEquals(1L, dto.declinedCount);
+        assertEquals(5L, dto.totalMembers);
+        assertEquals("confirmed", dto.calendarStatus);
+        assertEquals("member0", dto.creatorName);
+    }
+
+    @Test
+    @TestTransaction
+    void participantChangesAreReflectedInTheSameTransaction() {
+        TestData data = TestData.group(em, 3);
+        Event event = data.event("Museum");
+        data.participants(event);
+        calendarRepository.refreshActivity(event.id);
+
+        Long confirmedParticipant = event.participants.stream()
+                .filter(p -> p.status == ParticipantStatus.CONFIRMED)
+                .findFirst().orElseThrow().id;
+        activityService.updateParticipantStatus(confirmedParticipant, ParticipantStatus.DECLINED, null, data.ownerId());
+
+        ActivityCalendarDto dto = calendarService.getAllActivitiesCalendar(data.group.id, data.ownerId()).get(0);
+        assertEquals(0L, dto.confirmedCount);
+        assertEquals(2L, dto.declinedCount);
+
+        activityService.toggleActivityCompletion(event.id, data.ownerId());
+        dto = calendarService.getAllActivitiesCalendar(data.group.id, data.ownerId()).get(0);
+        assertEquals("completed", dto.calendarStatus);
+    }
+
+    @Test
+    @TestTransaction
+    void multiDayActivityAppearsOnEveryOverlappingDay() {
+        TestData data = TestData.group(em, 2);
+        Event stay = data.event("Hotel");
+        stay.endDate = stay.startDate.plusDays(4);
+        data.participants(stay);
+        calendarRepository.refreshActivity(stay.id);
+
+        // Finestra che inizia dopo il check-in: prima l'attività non compariva
+        LocalDate from = stay.startDate.plusDays(2);
+        List<ActivityCalendarDto> window =
+                calendarService.getCalendarView(data.group.id, from, from.plusDays(6), data.ownerId());
+
+        assertEquals(3, window.size());
+        assertEquals(from, window.get(0).occurrenceDate);
+        assertEquals(from.atStartOfDay(), window.get(0).start);
+        assertEquals(stay.endDate.atTime(stay.endTime), window.get(2).end);
+        assertEquals(stay.getStartInstant(), window.get(0).startInstant);
+
+        // La vista completa restituisce l'attività una sola volta
+        assertEquals(1, calendarService.getAllActivitiesCalendar(data.group.id, data.ownerId()).size());
+    }
+
+    @Test
+    @TestTransaction
+    void monthViewIsASingleStatementRegardlessOfSize() {
+        TestData data = TestData.group(em, 5);
+        for (int i = 0; i < 30; i++) {
+            Event event = data.event("Activity " + i);
+            data.participants(event);
+        }
+        calendarRepository.refreshGroup(data.group.id);
+
+        LocalDate day = data.group.vacationStartDate;
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        long statements = counter.count(() -> assertEquals(30,
+                calendarRepository.findByGroupAndDateRange(data.group.id, day.withDayOfMonth(1),
+                        day.withDayOfMonth(day.lengthOfMonth()), data.ownerId()).size()));
+
+        assertTrue(statements <= 1, "expected a single statement, got " + statements);
+    }
+}
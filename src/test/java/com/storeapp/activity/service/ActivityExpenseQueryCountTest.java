@@ -0,0 +1,126 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.ActivityExpenseDto;
+import com.storeapp.activity.dto.ActivityExpenseRequest;
+import com.storeapp.activity.entity.Activity;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.group.entity.GroupMember;
+import com.storeapp.support.SqlStatementCounter;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class ActivityExpenseQueryCountTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ActivityService activityService;
+
+    @Test
+    @TestTransaction
+    void expenseListUsesConstantNumberOfStatements() {
+        TestData data = TestData.group(em, 4);
+        Event few = data.event("Few expenses");
+        data.expenses(few, 2);
+        Event many = data.event("Many expenses");
+        data.expenses(many, 25);
+        em.flush();
+
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        long fewCount = counter.count(() -> {
+            em.clear();
+            assertEquals(2, activityService.getExpensesByActivity(few.id, data.ownerId()).size());
+        });
+        long manyCount = counter.count(() -> {
+            em.clear();
+            assertEquals(25, activityService.getExpensesByActivity(many.id, data.ownerId()).size());
+        });
+
+        assertEquals(fewCount, manyCount, "statements must not grow with the number of expenses");
+        assertTrue(manyCount <= 5, "expected at most 5 statements, got " + manyCount);
+    }
+
+    @Test
+    @TestTransaction
+    void activityDetailsUseConstantNumberOfStatements() {
+        TestData data = TestData.group(em, 4);
+        Event few = data.event("Few expenses");
+        data.expenses(few, 2);
+        Event many = data.event("Many expenses");
+        data.expenses(many, 25);
+        em.flush();
+
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        long fewCount = counter.count(() -> {
+            em.clear();
+            activityService.getActivityWithDetails(few.id, data.ownerId());
+        });
+        long manyCount = counter.count(() -> {
+            em.clear();
+            activityService.getActivityWithDetails(many.id, data.ownerId());
+        });
+
+        assertEquals(fewCount, manyCount, "statements must not grow with the number of expenses");
+    }
+
+    @Test
+    @TestTransaction
+    void fiftyWaySplitIsWrittenWithConstantNumberOfStatements() {
+        TestData data = TestData.group(em, 50);
+        Event dinner = data.event("Dinner");
+        em.flush();
+        em.clear();
+
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        ActivityExpenseDto[] created = new ActivityExpenseDto[1];
+        long count = counter.count(() -> {
+            created[0] = activityService.addExpense(dinner.id, evenSplit(data, new BigDecimal("500.00")), data.ownerId());
+            em.flush();
+        });
+
+        assertEquals(50, created[0].splits.size());
+        assertEquals(1, created[0].payers.size());
+        // attività, membership, membri (IN), spesa, sequence, batch split, ledger x2, versione, total_cost
+        assertTrue(count <= 11, "expected at most 11 statements for a 50-way split, got " + count);
+
+        em.clear();
+        assertEquals(0, new BigDecimal("500.00").compareTo(em.find(Activity.class, dinner.id).totalCost));
+    }
+
+    private static ActivityExpenseRequest evenSplit(TestData data, BigDecimal total) {
+        ActivityExpenseRequest request = new ActivityExpenseRequest();
+        request.description = "Dinner";
+
+        ActivityExpenseRequest.PayerRequest payer = new ActivityExpenseRequest.PayerRequest();
+        payer.groupMemberId = data.members.get(0).id;
+        payer.paidAmount = total;
+        request.payers = List.of(payer);
+
+        BigDecimal share = total.divide(BigDecimal.valueOf(data.members.size()));
+        request.splits = new ArrayList<>();
+        for (GroupMember member : data.members) {
+            ActivityExpenseRequest.ExpenseSplitRequest split = new ActivityExpenseRequest.ExpenseSplitRequest();
+            split.groupMemberId = member.id;
+            split.amount = share;
+            request.splits.add(split);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,179 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.ActivityImportItem;
+import com.storeapp.activity.dto.ActivityImportResponse;
+import com.storeapp.activity.dto.EventRequest;
+import com.storeapp.activity.dto.TripRequest;
+import com.storeapp.activity.entity.Activity;
+import com.storeapp.activity.entity.TransportMode;
+import com.storeapp.support.SqlStatementCounter;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.BadRequestException;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class ActivityImportServiceTest {
+
+    private static final int ITEMS = 200;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ActivityImportService importService;
+
+    @Test
+    @TestTransaction
+    void importsHundredsOfItemsWithBatchedInserts() {
+        TestData data = TestData.group(em, 5);
+        em.flush();
+        em.clear();
+
+        List<ActivityImportItem> items = itinerary(data, ITEMS);
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        ActivityImportResponse[] response = new ActivityImportResponse[1];
+        long count = counter.count(() -> response[0] = importService.importActivities(data.group.id, items, data.ownerId()));
+
+        assertEquals(ITEMS, response[0].created);
+        assertEquals(0, response[0].invalid);
+        response[0].items.forEach(item -> assertNotNull(item.activityId));
+        // 200 attività + 400 partecipanti: senza batch sarebbero almeno 600 INSERT
+        assertTrue(count <= 40, "expected batched inserts, got " + count + " statements");
+
+        em.clear();
+        assertEquals(ITEMS, em.createQuery("SELECT COUNT(a) FROM Activity a WHERE a.group.id = :groupId", Long.class)
+                .setParameter("groupId", data.group.id)
+                .getSingleResult());
+        Activity first = em.find(Activity.class, response[0].items.get(0).activityId);
+        assertEquals(2, first.participants.size());
+        assertEquals(data.ownerId(), first.createdBy.getId());
+        // Senza displayOrder gli elementi vengono accodati nell'ordine della richiesta, distanziati
+        Activity second = em.find(Activity.class, response[0].items.get(1).activityId);
+        assertEquals(ActivityService.DISPLAY_ORDER_GAP, first.displayOrder);
+        assertEquals(2 * ActivityService.DISPLAY_ORDER_GAP, second.displayOrder);
+    }
+
+    @Test
+    @TestTransaction
+    void oneInvalidItemRejectsTheWholeImport() {
+        TestData data = TestData.group(em, 3);
+        em.flush();
+
+        List<ActivityImportItem> items = itinerary(data, 10);
+        items.get(3).event.name = null;
+        items.get(7).trip.participantIds = List.of(-1L);
+
+        ActivityImportResponse response = importService.importActivities(data.group.id, items, data.ownerId());
+
+        assertEquals(0, response.created);
+        assertEquals(2, response.invalid);
+        assertFalse(response.items.get(3).errors.isEmpty());
+        assertFalse(response.items.get(7).errors.isEmpty());
+        assertTrue(response.items.get(0).errors.isEmpty());
+        assertNull(response.items.get(0).activityId);
+        assertEquals(0L, em.createQuery("SELECT COUNT(a) FROM Activity a WHERE a.group.id = :groupId", Long.class)
+                .setParameter("groupId", data.group.id)
+                .getSingleResult());
+    }
+
+    @Test
+    @TestTransaction
+    void itemsMissingRequiredTimesAreReportedInsteadOfFailingAtFlush() {
+        TestData data = TestData.group(em, 2);
+        em.flush();
+
+        List<ActivityImportItem> items = itinerary(data, 4);
+        items.get(0).event.endTime = null;
+        items.get(1).trip.arrivalDate = null;
+        items.get(1).trip.departureTime = null;
+
+        ActivityImportResponse response = importService.importActivities(data.group.id, items, data.ownerId());
+
+        assertEquals(0, response.created);
+        assertEquals(2, response.invalid);
+        assertEquals(List.of("endTime: L'ora di fine è obbligatoria"), response.items.get(0).errors);
+        assertTrue(response.items.get(1).errors.stream().anyMatch(e -> e.startsWith("arrivalDate: ")),
+                response.items.get(1).errors.toString());
+        assertTrue(response.items.get(1).errors.stream().anyMatch(e -> e.startsWith("departureTime: ")),
+                response.items.get(1).errors.toString());
+        assertTrue(response.items.get(2).errors.isEmpty());
+        assertEquals(0L, em.createQuery("SELECT COUNT(a) FROM Activity a WHERE a.group.id = :groupId", Long.class)
+                .setParameter("groupId", data.group.id)
+                .getSingleResult());
+    }
+
+    @Test
+    void readsJsonArraysAndNdjson() {
+        String array = "[{\"type\":\"EVENT\",\"event\":{\"name\":\"Museo\",\"startDate\":\"2026-05-01\"}},"
+                + "{\"type\":\"TRIP\",\"trip\":{\"name\":\"Treno\",\"departureDate\":\"2026-05-02\"}}]";
+        String ndjson = "{\"type\":\"EVENT\",\"event\":{\"name\":\"Museo\",\"startDate\":\"2026-05-01\"}}\n"
+                + "{\"type\":\"TRIP\",\"trip\":{\"name\":\"Treno\",\"departureDate\":\"2026-05-02\"}}\n";
+
+        for (String body : List.of(array, ndjson)) {
+            List<ActivityImportItem> items = importService.read(stream(body));
+            assertEquals(2, items.size());
+            assertEquals(ActivityImportItem.Type.EVENT, items.get(0).type);
+            assertEquals("Treno", items.get(1).trip.name);
+        }
+
+        assertThrows(BadRequestException.class, () -> importService.read(stream("[]")));
+        assertThrows(BadRequestException.class, () -> importService.read(stream("{\"type\":")));
+    }
+
+    private static List<ActivityImportItem> itinerary(TestData data, int size) {
+        List<Long> participants = List.of(data.members.get(0).id, data.members.get(1).id);
+        LocalDate day = LocalDate.of(2026, 5, 1);
+        List<ActivityImportItem> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ActivityImportItem item = new ActivityImportItem();
+            if (i % 2 == 0) {
+                item.type = ActivityImportItem.Type.EVENT;
+                item.event = new EventRequest();
+                item.event.name = "Tappa " + i;
+                item.event.startDate = day.plusDays(i / 2);
+                item.event.endDate = item.event.startDate;
+                item.event.startTime = LocalTime.of(10, 0);
+                item.event.endTime = LocalTime.of(12, 0);
+                item.event.participantIds = participants;
+            } else {
+                item.type = ActivityImportItem.Type.TRIP;
+                item.trip = new TripRequest();
+                item.trip.name = "Trasferimento " + i;
+                item.trip.departureDate = day.plusDays(i / 2);
+                item.trip.arrivalDate = item.trip.departureDate;
+                item.trip.departureTime = LocalTime.of(14, 0);
+                item.trip.arrivalTime = LocalTime.of(16, 30);
+                item.trip.transportMode = TransportMode.TRAIN;
+                item.trip.participantIds = participants;
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,88 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.EventDto;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.entity.Location;
+import com.storeapp.support.SqlStatementCounter;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class ActivityListQueryCountTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ActivityService activityService;
+
+    @Test
+    @TestTransaction
+    void groupActivityListUsesConstantNumberOfStatements() {
+        TestData small = groupWithActivities(3);
+        TestData large = groupWithActivities(40);
+        em.flush();
+
+        SqlStatementCounter counter = new SqlStatementCounter(sessionFactory);
+        long smallCount = counter.count(() -> {
+            em.clear();
+            assertEquals(3, activityService.getActivitiesByGroup(small.group.id, small.ownerId()).size());
+        });
+        long largeCount = counter.count(() -> {
+            em.clear();
+            List<Object> activities = activityService.getActivitiesByGroup(large.group.id, large.ownerId());
+            assertEquals(40, activities.size());
+            // 5 membri: status CONFIRMED, MAYBE, DECLINED, CONFIRMED, MAYBE
+            assertEquals(2L, ((EventDto) activities.get(0)).confirmedCount);
+        });
+
+        assertEquals(smallCount, largeCount, "statements must not grow with the number of activities");
+        assertTrue(largeCount <= 4, "expected at most 4 statements, got " + largeCount);
+    }
+
+    @Test
+    @TestTransaction
+    void locationMetadataIsReturnedOnlyByTheDetailEndpoint() {
+        TestData data = TestData.group(em, 2);
+        Event event = data.event("Colosseo");
+        event.location = new Location("Colosseo", "Piazza del Colosseo", null, null);
+        event.locationMetadata = Map.of("osm_id", 4433451, "class", "tourism");
+        em.flush();
+        em.clear();
+
+        EventDto listed = (EventDto) activityService.getActivitiesByGroup(data.group.id, data.ownerId()).get(0);
+        assertNull(listed.location.metadata);
+        Event loaded = em.find(Event.class, event.id);
+        assertFalse(Hibernate.isPropertyInitialized(loaded, "locationMetadata"),
+                "the list must not load the metadata column");
+
+        EventDto detail = (EventDto) activityService.getTypedActivity(event.id, data.ownerId());
+        assertEquals("tourism", detail.location.metadata.get("class"));
+    }
+
+    private TestData groupWithActivities(int count) {
+        TestData data = TestData.group(em, 5);
+        for (int i = 0; i < count; i++) {
+            Event event = data.event("Activity " + i);
+            data.participants(event);
+        }
+        return data;
+    }
+}
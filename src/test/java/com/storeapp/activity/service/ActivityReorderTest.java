@@ -0,0 +1,215 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.EventRequest;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.entity.EventCategory;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ordinamento sparso delle attività: il riordino completo assegna posizioni distanziate,
+ * lo spostamento singolo aggiorna solo la riga spostata e ridistanzia il gruppo
+ * solo quando tra i vicini non c'è più spazio.
+ */
+@QuarkusTest
+class ActivityReorderTest {
+
+    private static final int GAP = 1024;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ActivityService activityService;
+
+    @Test
+    @TestTransaction
+    void reorderAssignsPositionsSpacedByGap() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = events(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.reorderActivities(data.group.id, List.of(d.id, b.id, a.id, c.id), data.ownerId());
+
+        assertEquals(List.of(d.id, b.id, a.id, c.id), order(data));
+        assertEquals(List.of(GAP, 2 * GAP, 3 * GAP, 4 * GAP), displayOrders(data));
+    }
+
+    @Test
+    @TestTransaction
+    void reorderRejectsDuplicateIds() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = events(data);
+
+        assertThrows(BadRequestException.class, () -> activityService.reorderActivities(data.group.id,
+                List.of(events.get(0).id, events.get(1).id, events.get(0).id), data.ownerId()));
+    }
+
+    @Test
+    @TestTransaction
+    void moveBetweenTwoActivitiesTakesTheMidpoint() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.moveActivity(data.group.id, d.id, a.id, b.id, data.ownerId());
+
+        assertEquals(List.of(a.id, d.id, b.id, c.id), order(data));
+        // Solo la riga spostata cambia posizione
+        assertEquals(List.of(GAP, GAP + GAP / 2, 2 * GAP, 3 * GAP), displayOrders(data));
+    }
+
+    @Test
+    @TestTransaction
+    void moveAfterOnlyLandsRightAfterTheAnchor() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.moveActivity(data.group.id, d.id, a.id, null, data.ownerId());
+
+        assertEquals(List.of(a.id, d.id, b.id, c.id), order(data));
+    }
+
+    @Test
+    @TestTransaction
+    void moveBeforeOnlyLandsRightBeforeTheAnchor() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.moveActivity(data.group.id, a.id, null, d.id, data.ownerId());
+
+        assertEquals(List.of(b.id, c.id, a.id, d.id), order(data));
+    }
+
+    @Test
+    @TestTransaction
+    void moveAfterTheLastOrBeforeTheFirstActivity() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.moveActivity(data.group.id, a.id, d.id, null, data.ownerId());
+        assertEquals(List.of(b.id, c.id, d.id, a.id), order(data));
+
+        activityService.moveActivity(data.group.id, c.id, null, b.id, data.ownerId());
+        assertEquals(List.of(c.id, b.id, d.id, a.id), order(data));
+    }
+
+    @Test
+    @TestTransaction
+    void moveWithoutGapRebalancesTheGroupFirst() {
+        TestData data = TestData.group(em, 2);
+        // Tutte le attività a display_order 0: nessuno spazio tra i vicini
+        List<Event> events = events(data);
+        Event a = events.get(0), b = events.get(1), c = events.get(2), d = events.get(3);
+
+        activityService.moveActivity(data.group.id, d.id, a.id, b.id, data.ownerId());
+
+        assertEquals(List.of(a.id, d.id, b.id, c.id), order(data));
+        assertEquals(List.of(GAP, GAP + GAP / 2, 2 * GAP, 3 * GAP), displayOrders(data));
+    }
+
+    @Test
+    @TestTransaction
+    void createdActivitiesWithoutDisplayOrderAreAppendedWithAGap() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+        Event settlement = data.event("Rimborsi");
+        settlement.displayOrder = Integer.MAX_VALUE;
+        em.flush();
+
+        Long created = activityService.createEvent(data.group.id, eventRequest("E"), data.ownerId()).id;
+
+        assertEquals(List.of(events.get(0).id, events.get(1).id, events.get(2).id, events.get(3).id, created, settlement.id),
+                order(data));
+        assertEquals(List.of(GAP, 2 * GAP, 3 * GAP, 4 * GAP, 5 * GAP, Integer.MAX_VALUE), displayOrders(data));
+    }
+
+    @Test
+    @TestTransaction
+    void firstActivityOfAGroupStartsAtTheGap() {
+        TestData data = TestData.group(em, 2);
+        em.flush();
+
+        activityService.createEvent(data.group.id, eventRequest("A"), data.ownerId());
+
+        assertEquals(List.of(GAP), displayOrders(data));
+    }
+
+    @Test
+    @TestTransaction
+    void anchorsInTheWrongOrderAreRejected() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+
+        assertThrows(BadRequestException.class, () -> activityService.moveActivity(data.group.id,
+                events.get(0).id, events.get(2).id, events.get(1).id, data.ownerId()));
+    }
+
+    @Test
+    @TestTransaction
+    void moveRelativeToItselfIsRejected() {
+        TestData data = TestData.group(em, 2);
+        List<Event> events = reordered(data);
+
+        assertThrows(BadRequestException.class, () -> activityService.moveActivity(data.group.id,
+                events.get(1).id, events.get(1).id, null, data.ownerId()));
+    }
+
+    /**
+     * Quattro eventi nello stesso giorno e alla stessa ora, tutti a display_order 0
+     */
+    private List<Event> events(TestData data) {
+        List<Event> events = List.of(data.event("A"), data.event("B"), data.event("C"), data.event("D"));
+        em.flush();
+        return events;
+    }
+
+    /**
+     * Quattro eventi già riordinati (A, B, C, D) con posizioni distanziate
+     */
+    private List<Event> reordered(TestData data) {
+        List<Event> events = events(data);
+        activityService.reorderActivities(data.group.id, events.stream().map(e -> e.id).toList(), data.ownerId());
+        return events;
+    }
+
+    private static EventRequest eventRequest(String name) {
+        EventRequest request = new EventRequest();
+        request.name = name;
+        request.startDate = LocalDate.now();
+        request.endDate = request.startDate;
+        request.startTime = LocalTime.of(10, 0);
+        request.endTime = LocalTime.of(12, 0);
+        request.category = EventCategory.OTHER;
+        return request;
+    }
+
+    private List<Long> order(TestData data) {
+        return em.createQuery("SELECT a.id FROM Activity a WHERE a.group.id = :groupId "
+                        + "ORDER BY COALESCE(a.displayOrder, 0), a.startDate, a.startTime, a.id", Long.class)
+                .setParameter("groupId", data.group.id)
+                .getResultList();
+    }
+
+    private List<Integer> displayOrders(TestData data) {
+        return em.createQuery("SELECT a.displayOrder FROM Activity a WHERE a.group.id = :groupId "
+                        + "ORDER BY COALESCE(a.displayOrder, 0), a.startDate, a.startTime, a.id", Integer.class)
+                .setParameter("groupId", data.group.id)
+                .getResultList();
+    }
+}
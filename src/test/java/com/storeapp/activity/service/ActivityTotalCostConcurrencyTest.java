@@ -0,0 +1,147 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.ActivityExpenseDto;
+import com.storeapp.activity.dto.ActivityExpenseRequest;
+import com.storeapp.activity.entity.Activity;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.group.service.GroupService;
+import com.storeapp.support.RequestContexts;
+import com.storeapp.support.TestData;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stress test di total_cost con transazioni reali (non annullate) eseguite in parallelo:
+ * inserimenti, eliminazioni e modifiche dell'attività sulla stessa riga.
+ */
+@QuarkusTest
+class ActivityTotalCostConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int INSERTS = 300;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.25");
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ActivityService activityService;
+
+    @Inject
+    GroupService groupService;
+
+    private Long groupId;
+    private Long ownerId;
+    private List<Long> userIds;
+
+    @AfterEach
+    void cleanUp() {
+        if (groupId != null) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                groupService.deleteGroup(groupId, ownerId);
+                em.createNativeQuery("DELETE FROM users WHERE id IN (:ids)").setParameter("ids", userIds).executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    void parallelExpenseWritesKeepTheTotalConsistent() throws Exception {
+        List<Long> memberIds = new ArrayList<>();
+        Long activityId = QuarkusTransaction.requiringNew().call(() -> {
+            TestData data = TestData.group(em, 4);
+            Event dinner = data.event("Dinner");
+            em.flush();
+            groupId = data.group.id;
+            ownerId = data.ownerId();
+            userIds = data.members.stream().map(m -> m.user.getId()).toList();
+            data.members.stream().map(m -> m.id).forEach(memberIds::add);
+            return dinner.id;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // Fase 1: inserimenti in parallelo, intervallati da modifiche dell'attività
+            List<ActivityExpenseDto> created = runAll(executor, INSERTS, i -> {
+                if (i % 25 == 0) {
+                    activityService.toggleActivityCompletion(activityId, ownerId);
+                }
+                return activityService.addExpense(activityId, expense(memberIds.get(i % memberIds.size())), ownerId);
+            });
+            assertEquals(AMOUNT.multiply(BigDecimal.valueOf(INSERTS)), totalCost(activityId));
+
+            // Fase 2: eliminazioni e nuovi inserimenti contemporanei
+            int deletes = INSERTS / 3;
+            runAll(executor, deletes * 2, i -> {
+                if (i % 2 == 0) {
+                    activityService.deleteExpense(created.get(i / 2).id, ownerId);
+                    return null;
+                }
+                return activityService.addExpense(activityId, expense(memberIds.get(i % memberIds.size())), ownerId);
+            });
+            assertEquals(AMOUNT.multiply(BigDecimal.valueOf(INSERTS)), totalCost(activityId));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Task<T> {
+        T run(int index);
+    }
+
+    private static <T> List<T> runAll(ExecutorService executor, int count, Task<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            Callable<T> call = () -> {
+                start.await();
+                return RequestContexts.call(() -> task.run(index));
+            };
+            futures.add(executor.submit(call));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private BigDecimal totalCost(Long activityId) {
+        return QuarkusTransaction.requiringNew().call(() -> em.find(Activity.class, activityId).totalCost)
+                .setScale(2);
+    }
+
+    private static ActivityExpenseRequest expense(Long payerId) {
+        ActivityExpenseRequest request = new ActivityExpenseRequest();
+        request.description = "Round";
+
+        ActivityExpenseRequest.PayerRequest payer = new ActivityExpenseRequest.PayerRequest();
+        payer.groupMemberId = payerId;
+        payer.paidAmount = AMOUNT;
+        request.payers = List.of(payer);
+
+        ActivityExpenseRequest.ExpenseSplitRequest split = new ActivityExpenseRequest.ExpenseSplitRequest();
+        split.groupMemberId = payerId;
+        split.amount = AMOUNT;
+        request.splits = List.of(split);
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+package com.storeapp.activity.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.activity.dto.ExpenseExportFormat;
+import com.storeapp.activity.entity.ActivityExpense;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.support.TestData;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class ExpenseExportServiceTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    ExpenseExportService exportService;
+
+    @Test
+    @TestTransaction
+    void csvHasOneRowPerSplitWithoutLoadingEntities() throws IOException {
+        TestData data = TestData.group(em, 4);
+        Event dinner = data.event("Dinner, \"Da Mario\"");
+        data.expenses(dinner, 30);
+        em.flush();
+        em.clear();
+
+        List<String> lines = export(data.group.id, ExpenseExportFormat.CSV).lines().toList();
+
+        assertEquals(ExpenseExportService.CSV_HEADER, lines.get(0));
+        assertEquals(1 + 30 * 4, lines.size());
+        assertTrue(lines.get(1).contains(",EVENT,\"Dinner, \"\"Da Mario\"\"\",Expense,40.00,EUR,"), lines.get(1));
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount(),
+                "export must not populate the persistence context");
+    }
+
+    @Test
+    @TestTransaction
+    void ndjsonHasOneObjectPerLine() throws IOException {
+        TestData data = TestData.group(em, 3);
+        Event museum = data.event("Museum");
+        ActivityExpense tickets = data.expense(museum, new BigDecimal("12.50"));
+        em.flush();
+        em.clear();
+
+        List<String> lines = export(data.group.id, ExpenseExportFormat.NDJSON).lines().toList();
+
+        assertEquals(3, lines.size());
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertEquals(tickets.id.longValue(), row.get("expenseId").asLong());
+            assertEquals("Museum", row.get("activityName").asText());
+            assertEquals(0, new BigDecimal("12.50").compareTo(row.get("amount").decimalValue()));
+        }
+    }
+
+    @Test
+    void csvTextIsQuotedOnlyWhenNeeded() throws IOException {
+        assertEquals("plain", csvText("plain"));
+        assertEquals("\"a,b\"", csvText("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", csvText("say \"hi\""));
+        assertEquals("\"two\nlines\"", csvText("two\nlines"));
+        assertEquals("", csvText(null));
+    }
+
+    @Test
+    void csvTextNeutralizesSpreadsheetFormulas() throws IOException {
+        assertEquals("'=SUM(A1:A9)", csvText("=SUM(A1:A9)"));
+        assertEquals("'+1", csvText("+1"));
+        assertEquals("'-2", csvText("-2"));
+        assertEquals("'@SUM(A1:A2)", csvText("@SUM(A1:A2)"));
+        assertEquals("\"'=1,2\"", csvText("=1,2"));
+        assertEquals("a=b", csvText("a=b"));
+        assertEquals("", csvText(""));
+    }
+
+    private String export(Long groupId, ExpenseExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(groupId, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String csvText(String value) throws IOException {
+        StringWriter writer = new StringWriter();
+        ExpenseExportService.writeCsvText(writer, value);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,242 @@
+package com.storeapp.activity.service;
+
+import com.storeapp.activity.dto.ActivityExpenseDto;
+import com.storeapp.activity.dto.ActivityExpenseRequest;
+import com.storeapp.activity.dto.SettleDebtRequest;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.entity.GroupExpenseLedger;
+import com.storeapp.activity.repository.ActivityExpenseSplitRepository;
+import com.storeapp.activity.repository.MemberBalanceProjection;
+import com.storeapp.group.entity.GroupMember;
+import com.storeapp.group.service.GroupService;
+import com.storeapp.support.RequestContexts;
+import com.storeapp.support.TestData;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Il ledger incrementale deve coincidere, dopo ogni scrittura, con l'aggregazione
+ * completa delle split (la stessa usata da verify/rebuild).
+ */
+@QuarkusTest
+class ExpenseLedgerServiceTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ExpenseLedgerService ledgerService;
+
+    @Inject
+    ExpenseLedgerVerificationJob verificationJob;
+
+    @Inject
+    ActivityExpenseSplitRepository splitRepository;
+
+    @Inject
+    ActivityService activityService;
+
+    @Inject
+    ExpenseSettlementService settlementService;
+
+    @Inject
+    GroupService groupService;
+
+    private Long committedGroupId;
+    private Long committedOwnerId;
+    private List<Long> committedUserIds;
+
+    @AfterEach
+    void cleanUp() {
+        if (committedGroupId != null) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                groupService.deleteGroup(committedGroupId, committedOwnerId);
+                em.createNativeQuery("DELETE FROM users WHERE id IN (:ids)").setParameter("ids", committedUserIds).executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    @TestTransaction
+    void addAndDeleteExpenseKeepTheLedgerInSync() {
+        TestData data = TestData.group(em, 4);
+        Event dinner = data.event("Dinner");
+        em.flush();
+
+        ActivityExpenseDto first = activityService.addExpense(dinner.id,
+                expense(data.members.get(0), data.members.subList(0, 3), "90.00"), data.ownerId());
+        assertLedgerMatchesSplits(data.group.id);
+
+        activityService.addExpense(dinner.id,
+                expense(data.members.get(2), List.of(data.members.get(3), data.members.get(1)), "25.50"), data.ownerId());
+        assertLedgerMatchesSplits(data.group.id);
+
+        activityService.deleteExpense(first.id, data.ownerId());
+        assertLedgerMatchesSplits(data.group.id);
+        assertEquals(0, new BigDecimal("25.50").compareTo(ledgerService.getTotals(data.group.id).totalExpenses));
+        assertEquals(1, ledgerService.getTotals(data.group.id).expenseCount);
+    }
+
+    @Test
+    @TestTransaction
+    void deleteActivityRevertsAllItsExpenses() {
+        TestData data = TestData.group(em, 3);
+        Event dinner = data.event("Dinner");
+        Event museum = data.event("Museum");
+        em.flush();
+
+        activityService.addExpense(dinner.id, expense(data.members.get(0), data.members, "60.00"), data.ownerId());
+        activityService.addExpense(dinner.id, expense(data.members.get(1), data.members, "30.00"), data.ownerId());
+        activityService.addExpense(museum.id, expense(data.members.get(2), data.members, "45.00"), data.ownerId());
+
+        activityService.deleteActivity(dinner.id, data.ownerId());
+        em.flush();
+
+        assertLedgerMatchesSplits(data.group.id);
+        assertEquals(0, new BigDecimal("45.00").compareTo(ledgerService.getTotals(data.group.id).totalExpenses));
+    }
+
+    @Test
+    @TestTransaction
+    void recordedSettlementIsAddedToTheLedger() {
+        TestData data = TestData.group(em, 3);
+        Event dinner = data.event("Dinner");
+        em.flush();
+        activityService.addExpense(dinner.id, expense(data.members.get(0), data.members, "90.00"), data.ownerId());
+
+        SettleDebtRequest settlement = new SettleDebtRequest();
+        settlement.fromMemberId = data.members.get(1).id;
+        settlement.toMemberId = data.members.get(0).id;
+        settlement.amount = new BigDecimal("30.00");
+        settlementService.recordSettlement(data.group.id, settlement, data.ownerId());
+
+        assertLedgerMatchesSplits(data.group.id);
+    }
+
+    @Test
+    @TestTransaction
+    void verificationJobRebuildsADivergentLedger() {
+        TestData data = TestData.group(em, 3);
+        Event dinner = data.event("Dinner");
+        em.flush();
+        activityService.addExpense(dinner.id, expense(data.members.get(0), data.members, "90.00"), data.ownerId());
+        assertTrue(ledgerService.verify(data.group.id));
+
+        em.createNativeQuery("UPDATE group_member_balances SET total_paid = total_paid + 1 WHERE group_id = :groupId")
+                .setParameter("groupId", data.group.id)
+                .executeUpdate();
+        assertFalse(ledgerService.verify(data.group.id));
+
+        verificationJob.verifyAllGroups();
+
+        assertTrue(ledgerService.verify(data.group.id));
+        assertLedgerMatchesSplits(data.group.id);
+        assertFalse(ledgerService.verifyAndRepair(data.group.id), "an aligned ledger is left untouched");
+    }
+
+    @Test
+    void concurrentExpensesWithSplitsInOppositeOrderDoNotDeadlock() throws Exception {
+        List<GroupMember> members = new ArrayList<>();
+        Long activityId = QuarkusTransaction.requiringNew().call(() -> {
+            TestData data = TestData.group(em, 6);
+            Event dinner = data.event("Dinner");
+            em.flush();
+            committedGroupId = data.group.id;
+            committedOwnerId = data.ownerId();
+            committedUserIds = data.members.stream().map(m -> m.user.getId()).toList();
+            members.addAll(data.members);
+            return dinner.id;
+        });
+        List<GroupMember> reversed = new ArrayList<>(members);
+        Collections.reverse(reversed);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ActivityExpenseDto>> futures = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                List<GroupMember> order = i % 2 == 0 ? members : reversed;
+                futures.add(executor.submit(() -> RequestContexts.call(() ->
+                        activityService.addExpense(activityId, expense(order.get(0), order, "12.00"), committedOwnerId))));
+            }
+            for (Future<ActivityExpenseDto> future : futures) {
+                assertNotNull(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertLedgerMatchesSplits(committedGroupId);
+            assertEquals(80, ledgerService.getTotals(committedGroupId).expenseCount);
+        });
+    }
+
+    /**
+     * Confronta ledger e aggregazione completa delle split, membro per membro e sui totali.
+     */
+    private void assertLedgerMatchesSplits(Long groupId) {
+        Map<Long, MemberBalanceProjection> expected = splitRepository.getBalancesByGroupId(groupId).stream()
+                .collect(Collectors.toMap(p -> p.groupMemberId, Function.identity()));
+        Map<Long, MemberBalanceProjection> actual = ledgerService.getBalances(groupId).stream()
+                .collect(Collectors.toMap(p -> p.groupMemberId, Function.identity()));
+
+        assertEquals(expected.keySet(), actual.keySet(), "members with splits");
+        for (MemberBalanceProjection e : expected.values()) {
+            MemberBalanceProjection a = actual.get(e.groupMemberId);
+            assertEquals(0, e.totalPaid.compareTo(a.totalPaid), "paid of member " + e.groupMemberId);
+            assertEquals(0, e.totalOwed.compareTo(a.totalOwed), "owed of member " + e.groupMemberId);
+        }
+
+        GroupExpenseLedger totals = ledgerService.getTotals(groupId);
+        assertEquals(0, splitRepository.getTotalExpensesByGroupId(groupId).compareTo(totals.totalExpenses), "group total");
+        assertEquals(splitRepository.countExpensesByGroupId(groupId), totals.expenseCount, "expense count");
+        assertTrue(ledgerService.verify(groupId));
+    }
+
+    /**
+     * Spesa pagata interamente da {@code payer} e divisa in parti uguali tra {@code splitAmong},
+     * con le split nell'ordine indicato.
+     */
+    private static ActivityExpenseRequest expense(GroupMember payer, List<GroupMember> splitAmong, String total) {
+        BigDecimal amount = new BigDecimal(total);
+        ActivityExpenseRequest request = new ActivityExpenseRequest();
+        request.description = "Expense";
+
+        ActivityExpenseRequest.PayerRequest payerRequest = new ActivityExpenseRequest.PayerRequest();
+        payerRequest.groupMemberId = payer.id;
+        payerRequest.paidAmount = amount;
+        request.payers = List.of(payerRequest);
+
+        BigDecimal share = amount.divide(BigDecimal.valueOf(splitAmong.size()));
+        request.splits = new ArrayList<>();
+        for (GroupMember member : splitAmong) {
+            ActivityExpenseRequest.ExpenseSplitRequest split = new ActivityExpenseRequest.ExpenseSplitRequest();
+            split.groupMemberId = member.id;
+            split.amount = share;
+            request.splits.add(split);
+        }
+        return request;
+    }
+}
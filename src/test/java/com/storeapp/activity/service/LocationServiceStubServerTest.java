@@ -0,0 +1,202 @@
+package com.storeapp.activity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.activity.dto.LocationDto;
+import com.storeapp.activity.exception.LocationProviderUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LocationService + NominatimGeocodingProvider contro un server Nominatim locale (senza database).
+ */
+class LocationServiceStubServerTest {
+
+    private static final String COLOSSEO = "{\"place_id\":1,\"osm_type\":\"way\",\"osm_id\":4433451,"
+            + "\"lat\":\"41.8902102\",\"lon\":\"12.4922309\",\"name\":\"Colosseo\","
+            + "\"display_name\":\"Colosseo, Piazza del Colosseo, Roma, Italia\"}";
+
+    private HttpServer server;
+    private NominatimGeocodingProvider nominatim;
+    private LocationService service;
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Long> arrivals = new CopyOnWriteArrayList<>();
+    private volatile long delayMs;
+    private volatile int status = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/search", exchange -> handle(exchange, "[" + COLOSSEO + "]"));
+        server.createContext("/lookup", exchange -> handle(exchange, "[" + COLOSSEO + "]"));
+        server.start();
+
+        nominatim = new NominatimGeocodingProvider();
+        nominatim.apiUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        nominatim.userAgent = "StoreApp-Test/1.0";
+        nominatim.email = Optional.empty();
+        nominatim.minIntervalMs = 0;
+        nominatim.maxQueueWaitMs = 1_500;
+        nominatim.connectTimeoutMs = 1_000;
+        nominatim.requestTimeoutMs = 2_000;
+        nominatim.objectMapper = new ObjectMapper();
+        nominatim.init();
+
+        service = new LocationService();
+        service.provider = nominatim;
+        service.cacheMaxSize = 100;
+        service.cacheTtl = Duration.ofHours(1);
+        service.clock = now::get;
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void equivalentQueriesAndSearchedPlacesAreServedFromCache() throws Exception {
+        List<LocationDto> first = await(service.search("  Colosseo ", null));
+        List<LocationDto> second = await(service.search("colosseo", null));
+        LocationDto place = await(service.lookup("W4433451")).orElseThrow();
+
+        assertEquals(1, calls.get());
+        assertEquals("W4433451", first.get(0).placeId);
+        assertEquals("Colosseo", first.get(0).name);
+        assertEquals(first, second);
+        assertEquals("41.8902102", place.latitude.toPlainString());
+    }
+
+    @Test
+    void identicalConcurrentLookupsShareOneCall() throws Exception {
+        delayMs = 300;
+        List<CompletableFuture<Optional<LocationDto>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lookups.add(service.lookup("W4433451"));
+        }
+        for (CompletableFuture<Optional<LocationDto>> lookup : lookups) {
+            assertEquals("Colosseo", await(lookup).orElseThrow().name);
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws Exception {
+        await(service.search("colosseo", 5));
+        now.addAndGet(Duration.ofHours(1).toMillis() + 1);
+        await(service.search("colosseo", 5));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void requestsAreSpacedByTheMinimumInterval() throws Exception {
+        nominatim.minIntervalMs = 200;
+        CompletableFuture<List<LocationDto>> first = service.search("colosseo", 5);
+        CompletableFuture<List<LocationDto>> second = service.search("pantheon", 5);
+        await(first);
+        await(second);
+
+        assertEquals(2, arrivals.size());
+        long gap = Math.abs(arrivals.get(1) - arrivals.get(0));
+        assertTrue(gap >= 150, "requests must be at least min-interval apart, got " + gap + " ms");
+    }
+
+    @Test
+    void fullQueueFailsFastWithoutCallingTheProvider() throws Exception {
+        nominatim.minIntervalMs = 1_000;
+        CompletableFuture<List<LocationDto>> first = service.search("colosseo", 5);
+        CompletableFuture<List<LocationDto>> second = service.search("pantheon", 5);
+        CompletableFuture<List<LocationDto>> third = service.search("trevi", 5);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> await(third));
+        assertInstanceOf(LocationProviderUnavailableException.class, failure.getCause());
+        await(first);
+        await(second);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void rateLimitedResponsePausesTheQueueAndIsNotCached() {
+        status = 429;
+        assertThrows(ExecutionException.class, () -> await(service.search("colosseo", 5)));
+
+        status = 200;
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> await(service.search("colosseo", 5)));
+        assertInstanceOf(LocationProviderUnavailableException.class, failure.getCause());
+        assertEquals(1, calls.get(), "Retry-After must hold back further requests");
+    }
+
+    @Test
+    void shortQueriesAreRejected() {
+        assertThrows(BadRequestException.class, () -> service.search(" ab ", 5));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void cacheEvictsTheLeastRecentlyUsedEntry() {
+        GeocodingCache<String> cache = new GeocodingCache<>(2, 60_000, now::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    private void handle(HttpExchange exchange, String body) throws IOException {
+        calls.incrementAndGet();
+        arrivals.add(System.currentTimeMillis());
+        sleep(delayMs);
+        if (status == 429) {
+            exchange.getResponseHeaders().add("Retry-After", "30");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.storeapp.activity.settlement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH del settlement greedy: motore a heap su centesimi vs vecchia versione BigDecimal.
+ *
+ * Non viene eseguito da surefire. Per lanciarlo:
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main GreedySettlementBenchmark"
+ * </pre>
+ * oppure eseguendo {@link #main(String[])} dall'IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreedySettlementBenchmark {
+
+    @Param({"50", "500", "5000"})
+    int members;
+
+    long[] cents;
+    BigDecimal[] balances;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cents = GreedySettlementEngineTest.randomBalances(new Random(7), members, 50_000);
+        balances = GreedySettlementEngineTest.toBigDecimal(cents);
+    }
+
+    @Benchmark
+    public List<SettlementTransfer> heapEngine() {
+        return GreedySettlementEngine.settle(cents);
+    }
+
+    @Benchmark
+    public List<SettlementTransfer> legacySortEachIteration() {
+        return LegacyGreedySettlement.settle(balances);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GreedySettlementBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.storeapp.activity.settlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GreedySettlementEngineTest {
+
+    @Test
+    void simpleGroup() {
+        // A ha pagato 30€ per tre, B e C devono 10€ ciascuno
+        List<SettlementTransfer> transfers = GreedySettlementEngine.settle(new long[]{2000, -1000, -1000});
+
+        assertEquals(List.of(
+                new SettlementTransfer(1, 0, 1000),
+                new SettlementTransfer(2, 0, 1000)), transfers);
+    }
+
+    @Test
+    void ignoresRoundingResidues() {
+        assertTrue(GreedySettlementEngine.settle(new long[]{1, -1, 0}).isEmpty());
+        assertEquals(List.of(new SettlementTransfer(1, 0, 500)),
+                GreedySettlementEngine.settle(new long[]{501, -500, -1}));
+    }
+
+    @Test
+    void matchesLegacyImplementation() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            int n = 2 + random.nextInt(40);
+            // Importi piccoli per forzare molti pareggi e verificare anche l'ordine a parità di saldo
+            int range = round % 2 == 0 ? 20 : 100_000;
+            long[] cents = randomBalances(random, n, range);
+
+            assertEquals(LegacyGreedySettlement.settle(toBigDecimal(cents)),
+                    GreedySettlementEngine.settle(cents), "round " + round);
+        }
+    }
+
+    static long[] randomBalances(Random random, int n, int range) {
+        long[] cents = new long[n];
+        long sum = 0;
+        for (int i = 0; i < n - 1; i++) {
+            cents[i] = random.nextInt(2 * range + 1) - range;
+            sum += cents[i];
+        }
+        cents[n - 1] = -sum;
+        return cents;
+    }
+
+    static BigDecimal[] toBigDecimal(long[] cents) {
+        BigDecimal[] balances = new BigDecimal[cents.length];
+        for (int i = 0; i < cents.length; i++) {
+            balances[i] = BigDecimal.valueOf(cents[i], 2);
+        }
+        return balances;
+    }
+}
@@ -0,0 +1,59 @@
+package com.storeapp.activity.settlement;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Copia di riferimento del vecchio greedySettle (BigDecimal + sort ad ogni iterazione),
+ * usata per verificare l'equivalenza del nuovo motore e come baseline nel benchmark.
+ */
+final class LegacyGreedySettlement {
+
+    private static final BigDecimal THRESHOLD = new BigDecimal("0.01");
+
+    private record Node(int index, BigDecimal[] balance) {}
+
+    private LegacyGreedySettlement() {
+    }
+
+    static List<SettlementTransfer> settle(BigDecimal[] balances) {
+        List<Node> debtors = new ArrayList<>();
+        List<Node> creditors = new ArrayList<>();
+
+        for (int i = 0; i < balances.length; i++) {
+            BigDecimal bal = balances[i];
+            if (bal.compareTo(THRESHOLD.negate()) < 0) {
+                debtors.add(new Node(i, new BigDecimal[]{bal.abs()}));
+            } else if (bal.compareTo(THRESHOLD) > 0) {
+                creditors.add(new Node(i, new BigDecimal[]{bal}));
+            }
+        }
+
+        List<SettlementTransfer> transfers = new ArrayList<>();
+        Comparator<Node> desc = Comparator.comparing(n -> n.balance()[0].negate());
+
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            debtors.sort(desc);
+            creditors.sort(desc);
+
+            Node debtor = debtors.get(0);
+            Node creditor = creditors.get(0);
+
+            BigDecimal amount = debtor.balance()[0].min(creditor.balance()[0])
+                    .setScale(2, RoundingMode.HALF_UP);
+            transfers.add(new SettlementTransfer(debtor.index(), creditor.index(),
+                    amount.unscaledValue().longValueExact()));
+
+            debtor.balance()[0] = debtor.balance()[0].subtract(amount);
+            creditor.balance()[0] = creditor.balance()[0].subtract(amount);
+
+            if (debtor.balance()[0].compareTo(THRESHOLD) < 0) debtors.remove(0);
+            if (creditor.balance()[0].compareTo(THRESHOLD) < 0) creditors.remove(0);
+        }
+
+        return transfers;
+    }
+}
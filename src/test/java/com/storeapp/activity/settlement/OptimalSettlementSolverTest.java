@@ -0,0 +1,165 @@
+package com.storeapp.activity.settlement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimalSettlementSolverTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Test
+    void beatsGreedyWhenSubsetsCancelOut() {
+        // {+3,-3} e {+6,+4,-8,-2} si saldano separatamente: 4 transazioni, il greedy ne fa 5
+        long[] cents = {-800, 600, -200, 300, 400, -300};
+
+        List<SettlementTransfer> optimal = solve(cents);
+
+        assertEquals(5, GreedySettlementEngine.settle(cents).size());
+        assertEquals(4, optimal.size());
+        assertSettles(cents, optimal);
+    }
+
+    @Test
+    void smallGroupsMatchBruteForce() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            long[] cents = wholeEuros(random, 4 + random.nextInt(10), 8);
+            List<SettlementTransfer> optimal = solve(cents);
+
+            assertSettles(cents, optimal);
+            assertTrue(optimal.size() <= GreedySettlementEngine.settle(cents).size(), "round " + round);
+            assertEquals(bruteForceMinimum(cents), optimal.size(), "round " + round);
+        }
+    }
+
+    @Test
+    void branchAndBoundMatchesBitmask() {
+        Random random = new Random(17);
+        for (int round = 0; round < 120; round++) {
+            // Gli ultimi round superano BITMASK_MAX_MEMBERS: lì in produzione si usa solo il branch-and-bound
+            int n = round < 116 ? 4 + random.nextInt(14) : OptimalSettlementSolver.BITMASK_MAX_MEMBERS + 1 + random.nextInt(2);
+            long[] cents = wholeEuros(random, n, 8);
+            int[] members = IntStream.range(0, n).filter(i -> cents[i] != 0).toArray();
+
+            List<int[]> bitmask = OptimalSettlementSolver.bitmaskPartition(members, cents, noDeadline());
+            List<int[]> branchAndBound = new OptimalSettlementSolver.BranchAndBound(members, cents, noDeadline()).run();
+
+            assertZeroSumPartition(members, cents, branchAndBound);
+            assertEquals(bitmask.size(), branchAndBound.size(), "round " + round + ", " + n + " members");
+        }
+    }
+
+    @Test
+    void largeGroupsUseBranchAndBound() {
+        Random random = new Random(3);
+        long[] cents = wholeEuros(random, 30, 15);
+
+        List<SettlementTransfer> optimal = solve(cents);
+
+        assertSettles(cents, optimal);
+        assertTrue(optimal.size() <= GreedySettlementEngine.settle(cents).size());
+    }
+
+    @Test
+    void expiredDeadlineFallsBack() {
+        long[] cents = wholeEuros(new Random(5), 50, 1_000);
+
+        assertEquals(Optional.empty(), OptimalSettlementSolver.solve(cents, System.nanoTime() - 1));
+    }
+
+    @Test
+    void roundingResidueIsAbsorbedByTheLargestBalance() {
+        // 10,00 diviso in tre: il pagatore è in credito di 6,67, gli altri in debito di 3,33
+        long[] cents = {667, -333, -333};
+
+        assertTrue(OptimalSettlementSolver.isBalanced(cents));
+        List<SettlementTransfer> optimal = solve(cents);
+
+        assertEquals(2, optimal.size());
+        optimal.forEach(t -> assertEquals(333, t.amountCents()));
+    }
+
+    @Test
+    void unbalancedInputIsRejected() {
+        long[] cents = {500, -200, -200};
+
+        assertFalse(OptimalSettlementSolver.isBalanced(cents));
+        assertEquals(Optional.empty(), OptimalSettlementSolver.solve(cents, System.nanoTime() + NO_DEADLINE));
+    }
+
+    /** Saldi in euro interi: nessun residuo da ±1 centesimo, escluso dal solver */
+    private static long[] wholeEuros(Random random, int n, int range) {
+        long[] cents = GreedySettlementEngineTest.randomBalances(random, n, range);
+        for (int i = 0; i < n; i++) {
+            cents[i] *= 100;
+        }
+        return cents;
+    }
+
+    private static List<SettlementTransfer> solve(long[] cents) {
+        return OptimalSettlementSolver.solve(cents, System.nanoTime() + NO_DEADLINE).orElseThrow();
+    }
+
+    private static OptimalSettlementSolver.Deadline noDeadline() {
+        return new OptimalSettlementSolver.Deadline(System.nanoTime() + NO_DEADLINE);
+    }
+
+    /** Ogni membro in esattamente un sottoinsieme, ogni sottoinsieme a somma zero */
+    private static void assertZeroSumPartition(int[] members, long[] cents, List<int[]> groups) {
+        int[] covered = groups.stream().flatMapToInt(IntStream::of).sorted().toArray();
+        assertArrayEquals(members, covered);
+        for (int[] group : groups) {
+            assertEquals(0, IntStream.of(group).mapToLong(i -> cents[i]).sum());
+        }
+    }
+
+    private static void assertSettles(long[] cents, List<SettlementTransfer> transfers) {
+        long[] after = cents.clone();
+        for (SettlementTransfer t : transfers) {
+            assertTrue(t.amountCents() > 0);
+            after[t.from()] += t.amountCents();
+            after[t.to()] -= t.amountCents();
+        }
+        assertArrayEquals(new long[cents.length], after);
+    }
+
+    /** n - (massimo numero di sottoinsiemi a somma zero), per enumerazione delle partizioni */
+    private static int bruteForceMinimum(long[] cents) {
+        int[] active = IntStream.range(0, cents.length).filter(i -> cents[i] != 0).toArray();
+        return active.length - maxZeroGroups(active, cents, (1 << active.length) - 1);
+    }
+
+    private static int maxZeroGroups(int[] active, long[] cents, int mask) {
+        if (mask == 0) {
+            return 0;
+        }
+        int first = Integer.lowestOneBit(mask);
+        int rest = mask ^ first;
+        int best = -1;
+        // Sottoinsiemi che contengono il primo elemento
+        for (int sub = rest; ; sub = (sub - 1) & rest) {
+            int group = sub | first;
+            long sum = 0;
+            for (int bits = group; bits != 0; bits &= bits - 1) {
+                sum += cents[active[Integer.numberOfTrailingZeros(bits)]];
+            }
+            if (sum == 0) {
+                int others = maxZeroGroups(active, cents, mask ^ group);
+                if (others >= 0) {
+                    best = Math.max(best, 1 + others);
+                }
+            }
+            if (sub == 0) break;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,135 @@
+package com.storeapp.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.jwt.auth.principal.DefaultJWTParser;
+import io.smallrye.jwt.auth.principal.ParseException;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingJwtParserTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final Map<String, JsonWebToken> tokens = new HashMap<>();
+    private CachingJwtParser parser;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        parser = new CachingJwtParser();
+        parser.enabled = true;
+        parser.maxSize = 4;
+        parser.maxTtlSeconds = 900;
+        parser.registry = registry;
+        parser.delegate = new DefaultJWTParser() {
+            @Override
+            public JsonWebToken parse(String token) throws ParseException {
+                verifications.incrementAndGet();
+                JsonWebToken jwt = tokens.get(token);
+                if (jwt == null) {
+                    throw new ParseException("invalid token");
+                }
+                return jwt;
+            }
+        };
+        parser.init();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() throws Exception {
+        JsonWebToken jwt = token("a", "1", 3600);
+
+        assertSame(jwt, parser.parse("a"));
+        assertSame(jwt, parser.parse("a"));
+        assertSame(jwt, parser.parse("a"));
+
+        assertEquals(1, verifications.get());
+        assertEquals(2.0, registry.get("storeapp.jwt.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("storeapp.jwt.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void expiredAndInvalidTokensAreNotCached() {
+        token("expired", "1", -10);
+
+        assertThrows(ParseException.class, () -> parser.parse("unknown"));
+        assertThrows(ParseException.class, () -> parser.parse("unknown"));
+        assertEquals(2, verifications.get());
+
+        assertDoesNotCache("expired");
+    }
+
+    @Test
+    void evictionDropsTokensClosestToExpiry() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            token("t" + i, "1", i * 600);
+            parser.parse("t" + i);
+        }
+        token("t5", "1", 3600);
+        parser.parse("t5");
+        assertEquals(5, verifications.get());
+
+        parser.parse("t4");
+        parser.parse("t5");
+        assertEquals(5, verifications.get());
+
+        parser.parse("t1");
+        assertEquals(6, verifications.get());
+    }
+
+    @Test
+    void sizeIsBounded() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            token("t" + i, "1", 3600);
+            parser.parse("t" + i);
+        }
+        assertTrue(parser.size() <= 4);
+    }
+
+    private void assertDoesNotCache(String token) {
+        try {
+            parser.parse(token);
+        } catch (ParseException e) {
+            throw new AssertionError(e);
+        }
+        assertEquals(0, parser.size());
+    }
+
+    private JsonWebToken token(String raw, String subject, long expiresInSeconds) {
+        long exp = System.currentTimeMillis() / 1000 + expiresInSeconds;
+        JsonWebToken jwt = new JsonWebToken() {
+            @Override
+            public String getName() {
+                return subject;
+            }
+
+            @Override
+            public Set<String> getClaimNames() {
+                return Set.of("sub", "exp");
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getClaim(String claimName) {
+                return switch (claimName) {
+                    case "sub" -> (T) subject;
+                    case "exp" -> (T) Long.valueOf(exp);
+                    default -> null;
+                };
+            }
+        };
+        tokens.put(raw, jwt);
+        return jwt;
+    }
+}
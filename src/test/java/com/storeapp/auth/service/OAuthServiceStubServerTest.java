@@ -0,0 +1,143 @@
+package com.storeapp.auth.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeapp.auth.dto.GoogleUserInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pipeline HTTP del callback OAuth contro un server OAuth locale (senza database).
+ */
+class OAuthServiceStubServerTest {
+
+    private static final String CLIENT_ID = "test-client";
+
+    private HttpServer server;
+    private OAuthService service;
+    private final AtomicInteger userinfoCalls = new AtomicInteger();
+    private volatile String tokenResponse;
+    private volatile int tokenStatus = 200;
+    private volatile long tokenDelayMs;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token", exchange -> {
+            sleep(tokenDelayMs);
+            respond(exchange, tokenStatus, tokenResponse);
+        });
+        server.createContext("/userinfo", exchange -> {
+            userinfoCalls.incrementAndGet();
+            respond(exchange, 200, "{\"sub\":\"u-2\",\"email\":\"userinfo@example.com\",\"name\":\"From Userinfo\"}");
+        });
+        server.start();
+
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        service = new OAuthService();
+        service.googleClientId = CLIENT_ID;
+        service.googleClientSecret = "secret";
+        service.googleRedirectUri = "http://localhost/callback";
+        service.googleTokenUri = base + "/token";
+        service.googleUserinfoUri = base + "/userinfo";
+        service.connectTimeoutMs = 1000;
+        service.requestTimeoutMs = 500;
+        service.objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void idTokenClaimsSkipTheUserinfoCall() throws Exception {
+        tokenResponse = tokens(idToken("{\"iss\":\"https://accounts.google.com\",\"aud\":\"" + CLIENT_ID + "\","
+                + "\"exp\":" + (Instant.now().getEpochSecond() + 600) + ","
+                + "\"sub\":\"u-1\",\"email\":\"idtoken@example.com\",\"name\":\"From Id Token\"}"));
+
+        GoogleUserInfo userInfo = fetch();
+
+        assertEquals("u-1", userInfo.getSub());
+        assertEquals("idtoken@example.com", userInfo.getEmail());
+        assertEquals(0, userinfoCalls.get());
+    }
+
+    @Test
+    void incompleteOrForeignIdTokenFallsBackToUserinfo() throws Exception {
+        tokenResponse = tokens(idToken("{\"iss\":\"https://accounts.google.com\",\"aud\":\"another-client\","
+                + "\"exp\":" + (Instant.now().getEpochSecond() + 600) + ","
+                + "\"sub\":\"u-1\",\"email\":\"idtoken@example.com\"}"));
+
+        GoogleUserInfo userInfo = fetch();
+
+        assertEquals("userinfo@example.com", userInfo.getEmail());
+        assertEquals(1, userinfoCalls.get());
+    }
+
+    @Test
+    void tokenEndpointErrorFailsThePipeline() {
+        tokenStatus = 400;
+        tokenResponse = "{\"error\":\"invalid_grant\"}";
+
+        assertThrows(ExecutionException.class, this::fetch);
+    }
+
+    @Test
+    void slowTokenEndpointTimesOut() {
+        tokenDelayMs = 2_000;
+        tokenResponse = tokens(null);
+
+        assertThrows(ExecutionException.class, this::fetch);
+    }
+
+    private GoogleUserInfo fetch() throws Exception {
+        return service.exchangeCodeForTokens("code")
+                .thenCompose(service::resolveUserInfo)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private static String tokens(String idToken) {
+        return "{\"access_token\":\"access\",\"token_type\":\"Bearer\",\"expires_in\":3600"
+                + (idToken != null ? ",\"id_token\":\"" + idToken + "\"" : "") + "}";
+    }
+
+    private static String idToken(String claimsJson) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(claimsJson.getBytes(StandardCharsets.UTF_8))
+                + ".signature";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
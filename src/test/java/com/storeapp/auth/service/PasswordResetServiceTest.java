@@ -0,0 +1,100 @@
+package com.storeapp.auth.service;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+import com.storeapp.mail.entity.MailStatus;
+import com.storeapp.mail.service.MailOutboxDispatcher;
+import com.storeapp.support.TestData;
+import com.storeapp.user.entity.User;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.MockMailbox;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Il token di reset non deve mai finire nel database in chiaro:
+ * né nell'outbox (in coda o dopo l'invio) né in users, dove resta solo l'hash.
+ */
+@QuarkusTest
+class PasswordResetServiceTest {
+
+    private static final Pattern RESET_LINK = Pattern.compile("/reset-password\\?token=([A-Za-z0-9_-]+)");
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    PasswordResetService passwordResetService;
+
+    @Inject
+    MailOutboxDispatcher dispatcher;
+
+    @Inject
+    MockMailbox mailbox;
+
+    private User user;
+
+    @AfterEach
+    void cleanUp() {
+        mailbox.clear();
+        if (user != null) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                MailOutboxMessage.delete("recipient", user.getEmail());
+                em.createNativeQuery("DELETE FROM users WHERE id = :id").setParameter("id", user.getId()).executeUpdate();
+            });
+        }
+    }
+
+    @Test
+    void resetTokenIsNeverStoredInPlaintext() {
+        user = QuarkusTransaction.requiringNew().call(() -> TestData.user(em, "reset"));
+
+        passwordResetService.requestPasswordReset(user.getEmail());
+
+        MailOutboxMessage queued = outboxMessage();
+        assertNull(queued.body, "the queued message must not contain the reset link");
+        assertEquals(PasswordResetService.TEMPLATE, queued.template);
+        assertEquals(user.getId(), queued.referenceId);
+
+        dispatcher.dispatchBatch();
+
+        List<Mail> sent = mailbox.getMailsSentTo(user.getEmail());
+        assertEquals(1, sent.size());
+        Matcher link = RESET_LINK.matcher(sent.get(0).getText());
+        assertTrue(link.find(), "the sent mail contains the reset link");
+        String token = link.group(1);
+
+        MailOutboxMessage delivered = outboxMessage();
+        assertEquals(MailStatus.SENT, delivered.status);
+        assertNull(delivered.body);
+        assertEquals(0L, QuarkusTransaction.requiringNew().call(() -> ((Number) em.createNativeQuery(
+                "SELECT COUNT(*) FROM mail_outbox WHERE body LIKE :token OR subject LIKE :token OR last_error LIKE :token")
+                .setParameter("token", "%" + token + "%")
+                .getSingleResult()).longValue()), "no outbox column may contain the token");
+        String storedHash = QuarkusTransaction.requiringNew().call(() ->
+                em.find(User.class, user.getId()).getPasswordResetTokenHash());
+        assertNotEquals(token, storedHash);
+
+        // Il link inviato funziona
+        passwordResetService.resetPassword(token, "N3wPassword!");
+        assertNull(QuarkusTransaction.requiringNew().call(() ->
+                em.find(User.class, user.getId()).getPasswordResetTokenHash()));
+    }
+
+    private MailOutboxMessage outboxMessage() {
+        return QuarkusTransaction.requiringNew().call(() ->
+                MailOutboxMessage.<MailOutboxMessage>find("recipient", user.getEmail()).firstResult());
+    }
+}
@@ -0,0 +1,53 @@
+package com.storeapp.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordServiceTest {
+
+    private PasswordService service;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        service = new PasswordService();
+        service.bcryptCost = 5;
+        service.poolSize = 2;
+        service.queueSize = 8;
+        service.timeoutMs = 10_000;
+        service.registry = registry;
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void hashesOnThePoolAndRecordsLatency() {
+        String hash = service.hashPassword("secret");
+
+        assertTrue(service.verifyPassword("secret", hash));
+        assertFalse(service.verifyPassword("wrong", hash));
+        assertFalse(service.verifyPassword("secret", "not-a-bcrypt-hash"));
+        assertEquals(1, registry.get("storeapp.password.hash.duration").tag("operation", "hash").timer().count());
+        assertEquals(3, registry.get("storeapp.password.hash.duration").tag("operation", "verify").timer().count());
+    }
+
+    @Test
+    void rehashOnlyWhenCostDiffers() {
+        assertFalse(service.needsRehash(service.hashPassword("secret")));
+        assertTrue(service.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(4))));
+        assertFalse(service.needsRehash(null));
+        assertFalse(service.needsRehash("plain"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.storeapp.auth.service;
+
+import com.storeapp.auth.exception.InvalidCredentialsException;
+import com.storeapp.support.TestData;
+import com.storeapp.user.entity.User;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+class RefreshTokenServiceTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    RefreshTokenService refreshTokenService;
+
+    @Test
+    @TestTransaction
+    void rotationIssuesANewTokenAndConsumesTheOldOne() {
+        User user = TestData.user(em, "refresh");
+        String first = refreshTokenService.issue(user.getId(), user.getEmail());
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertEquals(user.getId(), rotation.userId());
+        assertNotEquals(first, rotation.refreshToken());
+        refreshTokenService.rotate(rotation.refreshToken());
+    }
+
+    @Test
+    @TestTransaction
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        User user = TestData.user(em, "refresh");
+        String first = refreshTokenService.issue(user.getId(), user.getEmail());
+        String second = refreshTokenService.rotate(first).refreshToken();
+
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.rotate(first));
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.rotate(second));
+    }
+
+    @Test
+    @TestTransaction
+    void revokeAllForUserInvalidatesEveryFamily() {
+        User user = TestData.user(em, "refresh");
+        String web = refreshTokenService.issue(user.getId(), user.getEmail());
+        String mobile = refreshTokenService.issue(user.getId(), user.getEmail());
+
+        refreshTokenService.revokeAllForUser(user.getId());
+
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.rotate(web));
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.rotate(mobile));
+    }
+
+    @Test
+    void garbageTokenIsRejected() {
+        assertThrows(InvalidCredentialsException.class, () -> refreshTokenService.rotate("not-a-jwt"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.storeapp.group.service;
+
+import com.storeapp.group.dto.GroupChangeDto;
+import com.storeapp.group.dto.GroupChangeType;
+import com.storeapp.group.exception.GroupStreamLimitException;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GroupChangeBroadcasterTest {
+
+    private GroupChangeBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new GroupChangeBroadcaster();
+        broadcaster.maxConnectionsPerGroup = 2;
+        broadcaster.bufferSize = 4;
+        broadcaster.heartbeat = Duration.ofHours(1);
+    }
+
+    @Test
+    void changesReachOnlyTheSubscribersOfTheirGroup() {
+        AssertSubscriber<GroupChangeDto> group1 = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        AssertSubscriber<GroupChangeDto> group2 = broadcaster.subscribe(2L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        broadcaster.onChange(new GroupChangeDto(GroupChangeType.ACTIVITY_CREATED, 1L, 10L, 3L));
+
+        assertEquals(1, group1.getItems().size());
+        assertEquals(GroupChangeType.ACTIVITY_CREATED, group1.getItems().get(0).type);
+        assertEquals(3L, group1.getItems().get(0).version);
+        assertEquals(0, group2.getItems().size());
+    }
+
+    @Test
+    void connectionsPerGroupAreCappedAndReleasedOnCancel() {
+        AssertSubscriber<GroupChangeDto> first = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        broadcaster.subscribe(1L).subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        assertThrows(GroupStreamLimitException.class, () -> broadcaster.subscribe(1L));
+        assertEquals(2, broadcaster.connections(1L));
+
+        first.cancel();
+        assertEquals(1, broadcaster.connections(1L));
+        broadcaster.subscribe(1L).subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        assertEquals(2, broadcaster.connections(1L));
+    }
+
+    @Test
+    void streamsNeverSubscribedDoNotTakeASlot() {
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+        assertEquals(0, broadcaster.connections(1L));
+
+        broadcaster.subscribe(1L).subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        broadcaster.subscribe(1L).subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        assertEquals(2, broadcaster.connections(1L));
+    }
+
+    @Test
+    void membersChangedClosesTheGroupStreams() {
+        AssertSubscriber<GroupChangeDto> before = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        broadcaster.onChange(new GroupChangeDto(GroupChangeType.MEMBERS_CHANGED, 1L, 7L, 4L));
+
+        before.assertCompleted();
+        assertEquals(1, before.getItems().size());
+        assertEquals(GroupChangeType.MEMBERS_CHANGED, before.getItems().get(0).type);
+        assertEquals(0, broadcaster.connections(1L));
+
+        // Una nuova connessione riceve le modifiche successive
+        AssertSubscriber<GroupChangeDto> after = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        broadcaster.onChange(new GroupChangeDto(GroupChangeType.ACTIVITY_CREATED, 1L, 10L, 5L));
+
+        assertEquals(1, after.getItems().size());
+        assertEquals(1, broadcaster.connections(1L));
+    }
+
+    @Test
+    void groupDeletedClosesTheGroupStreams() {
+        AssertSubscriber<GroupChangeDto> subscriber = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        broadcaster.onChange(new GroupChangeDto(GroupChangeType.GROUP_DELETED, 1L, null, null));
+
+        subscriber.assertCompleted();
+        assertEquals(GroupChangeType.GROUP_DELETED, subscriber.getItems().get(0).type);
+        assertEquals(0, broadcaster.connections(1L));
+    }
+
+    @Test
+    void concurrentCommitsOnTheSameGroupAreDeliveredInFull() throws Exception {
+        broadcaster.bufferSize = 10_000;
+        AssertSubscriber<GroupChangeDto> subscriber = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        int threads = 8;
+        int changesPerThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = t * (long) changesPerThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 1; i <= changesPerThread; i++) {
+                        broadcaster.onChange(new GroupChangeDto(GroupChangeType.EXPENSE_ADDED, 1L, base + i, base + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> versions = subscriber.getItems().stream().map(change -> change.version).toList();
+        assertEquals(threads * changesPerThread, versions.size());
+        assertEquals(threads * changesPerThread, versions.stream().distinct().count());
+        subscriber.assertNotTerminated();
+    }
+
+    @Test
+    void slowSubscriberIsCompletedWhenItsBufferOverflows() {
+        AssertSubscriber<GroupChangeDto> slow = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(0));
+        AssertSubscriber<GroupChangeDto> fast = broadcaster.subscribe(1L)
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+
+        for (long version = 1; version <= 10; version++) {
+            broadcaster.onChange(new GroupChangeDto(GroupChangeType.EXPENSE_ADDED, 1L, version, version));
+        }
+
+        slow.assertCompleted();
+        assertEquals(10, fast.getItems().size());
+        assertEquals(1, broadcaster.connections(1L));
+    }
+}
@@ -0,0 +1,172 @@
+package com.storeapp.group.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH delle INSERT di una riga padre con N righe figlie, come le emette Hibernate
+ * prima e dopo V028:
+ * - identity: INSERT ... RETURNING id una riga alla volta (GenerationType.IDENTITY)
+ * - pooled: id da sequence INCREMENT BY 50 assegnati in memoria (un nextval ogni 50 righe),
+ *   INSERT in batch per tabella con reWriteBatchedInserts (order_inserts + statement-batch-size)
+ *
+ * rows = 50 corrisponde alla creazione di un gruppo con 50 membri (groups + group_members),
+ * rows = 30 all'inserimento dei partecipanti di un'attività.
+ * Usa tabelle temporanee su un PostgreSQL reale (default: il database di sviluppo di
+ * application.properties, sovrascrivibile con -Dbenchmark.jdbc.url/user/password);
+ * ogni invocazione viene annullata con un rollback.
+ *
+ * Non viene eseguito da surefire. Per lanciarlo:
+ * <pre>
+ * ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *   -Dexec.args="-cp %classpath org.openjdk.jmh.Main GroupCreationInsertBenchmark"
+ * </pre>
+ * oppure eseguendo {@link #main(String[])} dall'IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupCreationInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"30", "50"})
+    int rows;
+
+    Connection connection;
+    final PooledIds parentIds = new PooledIds("bench_parent_seq");
+    final PooledIds childIds = new PooledIds("bench_child_seq");
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/storeapp")
+                + "?reWriteBatchedInserts=true";
+        connection = DriverManager.getConnection(url,
+                System.getProperty("benchmark.jdbc.user", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres"));
+
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TEMP TABLE bench_parent_identity (id BIGSERIAL PRIMARY KEY, name TEXT NOT NULL)");
+            ddl.execute("CREATE TEMP TABLE bench_child_identity (id BIGSERIAL PRIMARY KEY, "
+                    + "parent_id BIGINT NOT NULL REFERENCES bench_parent_identity(id), user_id BIGINT NOT NULL, role TEXT NOT NULL)");
+            ddl.execute("CREATE TEMP SEQUENCE bench_parent_seq START WITH 50 INCREMENT BY 50");
+            ddl.execute("CREATE TEMP SEQUENCE bench_child_seq START WITH 50 INCREMENT BY 50");
+            ddl.execute("CREATE TEMP TABLE bench_parent_pooled (id BIGINT PRIMARY KEY, name TEXT NOT NULL)");
+            ddl.execute("CREATE TEMP TABLE bench_child_pooled (id BIGINT PRIMARY KEY, "
+                    + "parent_id BIGINT NOT NULL REFERENCES bench_parent_pooled(id), user_id BIGINT NOT NULL, role TEXT NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long identity() throws SQLException {
+        long parentId;
+        try (PreparedStatement insertParent = connection.prepareStatement(
+                "INSERT INTO bench_parent_identity (name) VALUES (?) RETURNING id")) {
+            insertParent.setString(1, "Group");
+            try (ResultSet rs = insertParent.executeQuery()) {
+                rs.next();
+                parentId = rs.getLong(1);
+            }
+        }
+        try (PreparedStatement insertChild = connection.prepareStatement(
+                "INSERT INTO bench_child_identity (parent_id, user_id, role) VALUES (?, ?, ?) RETURNING id")) {
+            for (int i = 0; i < rows; i++) {
+                insertChild.setLong(1, parentId);
+                insertChild.setLong(2, i);
+                insertChild.setString(3, "MEMBER");
+                try (ResultSet rs = insertChild.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+        connection.rollback();
+        return parentId;
+    }
+
+    @Benchmark
+    public long pooled() throws SQLException {
+        long parentId = parentIds.next();
+        try (PreparedStatement insertParent = connection.prepareStatement(
+                "INSERT INTO bench_parent_pooled (name, id) VALUES (?, ?)")) {
+            insertParent.setString(1, "Group");
+            insertParent.setLong(2, parentId);
+            insertParent.addBatch();
+            insertParent.executeBatch();
+        }
+        try (PreparedStatement insertChild = connection.prepareStatement(
+                "INSERT INTO bench_child_pooled (parent_id, user_id, role, id) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insertChild.setLong(1, parentId);
+                insertChild.setLong(2, i);
+                insertChild.setString(3, "MEMBER");
+                insertChild.setLong(4, childIds.next());
+                insertChild.addBatch();
+            }
+            insertChild.executeBatch();
+        }
+        connection.rollback();
+        return parentId;
+    }
+
+    /**
+     * Optimizer pooled di Hibernate: il valore della sequence è l'estremo superiore del blocco
+     */
+    final class PooledIds {
+        private final String sequence;
+        private long next;
+        private long hi = -1;
+
+        PooledIds(String sequence) {
+            this.sequence = sequence;
+        }
+
+        long next() throws SQLException {
+            if (next > hi) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT nextval('" + sequence + "')")) {
+                    rs.next();
+                    hi = rs.getLong(1);
+                }
+                next = hi - ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GroupCreationInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.storeapp.group.service;
+
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.service.ActivityService;
+import com.storeapp.support.TestData;
+import com.storeapp.user.entity.User;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.EntityTag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class GroupVersionServiceTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    GroupVersionService groupVersions;
+
+    @Inject
+    ActivityService activityService;
+
+    @Test
+    @TestTransaction
+    void tagIsStableUntilTheGroupChanges() {
+        TestData data = TestData.group(em, 3);
+        Event event = data.event("Dinner");
+        data.participants(event);
+        em.flush();
+
+        EntityTag before = tag(data);
+        assertEquals(before, tag(data), "reads must not change the version");
+
+        activityService.toggleActivityCompletion(event.id, data.ownerId());
+        EntityTag afterToggle = tag(data);
+        assertNotEquals(before, afterToggle);
+
+        activityService.reorderActivities(data.group.id, List.of(event.id), data.ownerId());
+        assertNotEquals(afterToggle, tag(data));
+    }
+
+    @Test
+    @TestTransaction
+    void tagIsPerUserAndHiddenFromNonMembers() {
+        TestData data = TestData.group(em, 2);
+        User outsider = TestData.user(em, "outsider");
+        em.flush();
+
+        Long otherMember = data.members.get(1).user.getId();
+        assertNotEquals(tag(data), groupVersions.currentTag(data.group.id, otherMember).orElseThrow());
+        assertTrue(groupVersions.currentTag(data.group.id, outsider.getId()).isEmpty());
+    }
+
+    private EntityTag tag(TestData data) {
+        return groupVersions.currentTag(data.group.id, data.ownerId()).orElseThrow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.storeapp.mail.service;
+
+import com.storeapp.mail.entity.MailOutboxMessage;
+import com.storeapp.mail.entity.MailStatus;
+import io.quarkus.mailer.Mail;
+import io.quarkus.mailer.MockMailbox;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class MailOutboxDispatcherTest {
+
+    @Inject
+    MailOutboxService outboxService;
+
+    @Inject
+    MailOutboxDispatcher dispatcher;
+
+    @Inject
+    MockMailbox mailbox;
+
+    @AfterEach
+    void cleanUp() {
+        mailbox.clear();
+        QuarkusTransaction.requiringNew().run(() -> MailOutboxMessage.delete("recipient LIKE ?1", "%@outbox.test"));
+    }
+
+    @Test
+    void enqueuedMailIsSentByTheDispatcher() {
+        String recipient = UUID.randomUUID() + "@outbox.test";
+        QuarkusTransaction.requiringNew().run(() -> outboxService.enqueue(recipient, "Subject", "Body"));
+
+        assertTrue(mailbox.getMailsSentTo(recipient).isEmpty(), "nothing is sent inside the request");
+        dispatcher.dispatchBatch();
+
+        List<Mail> sent = mailbox.getMailsSentTo(recipient);
+        assertEquals(1, sent.size());
+        assertEquals("Subject", sent.get(0).getSubject());
+        MailOutboxMessage stored = QuarkusTransaction.requiringNew().call(() ->
+                MailOutboxMessage.<MailOutboxMessage>find("recipient", recipient).firstResult());
+        assertEquals(MailStatus.SENT, stored.status);
+        assertEquals(1, stored.attempts);
+        assertNotNull(stored.sentAt);
+    }
+
+    @Test
+    void rolledBackTransactionSendsNothing() {
+        String recipient = UUID.randomUUID() + "@outbox.test";
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                outboxService.enqueue(recipient, "Subject", "Body");
+                throw new IllegalStateException("rollback");
+            });
+        } catch (IllegalStateException expected) {
+            // la transazione del chiamante è annullata
+        }
+
+        dispatcher.dispatchBatch();
+
+        assertTrue(mailbox.getMailsSentTo(recipient).isEmpty());
+    }
+
+    @Test
+    void failedSendIsRescheduledWithBackoff() {
+        String recipient = UUID.randomUUID() + "@outbox.test";
+        QuarkusTransaction.requiringNew().run(() -> outboxService.enqueue(recipient, "Subject", "Body"));
+        MailOutboxMessage claimed = outboxService.claimBatch(50).stream()
+                .filter(message -> message.recipient.equals(recipient))
+                .findFirst().orElseThrow();
+
+        outboxService.recordResults(Map.of(claimed.id, new RuntimeException("SMTP down")));
+
+        MailOutboxMessage stored = QuarkusTransaction.requiringNew().call(() ->
+                MailOutboxMessage.<MailOutboxMessage>findById(claimed.id));
+        assertEquals(MailStatus.PENDING, stored.status);
+        assertEquals("SMTP down", stored.lastError);
+        assertTrue(stored.nextAttemptAt.isAfter(java.time.LocalDateTime.now().plusSeconds(20)));
+    }
+
+    @Test
+    void backoffDoublesUpToOneHour() {
+        assertEquals(Duration.ofSeconds(30), MailOutboxService.backoff(1));
+        assertEquals(Duration.ofMinutes(1), MailOutboxService.backoff(2));
+        assertEquals(Duration.ofMinutes(4), MailOutboxService.backoff(4));
+        assertEquals(Duration.ofHours(1), MailOutboxService.backoff(30));
+    }
+}
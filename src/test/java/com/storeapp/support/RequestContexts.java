@@ -0,0 +1,26 @@
+package com.storeapp.support;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Esegue codice su thread creati dal test (executor) con un request context attivo:
+ * i service autorizzano tramite GroupAccessService, che è @RequestScoped.
+ */
+public final class RequestContexts {
+
+    private RequestContexts() {
+    }
+
+    public static <T> T call(Callable<T> task) throws Exception {
+        ManagedContext context = Arc.container().requestContext();
+        context.activate();
+        try {
+            return task.call();
+        } finally {
+            context.terminate();
+        }
+    }
+}
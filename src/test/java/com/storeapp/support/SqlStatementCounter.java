@@ -0,0 +1,23 @@
+package com.storeapp.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Conta gli statement JDBC preparati da Hibernate durante un'operazione.
+ * Richiede %test.quarkus.hibernate-orm.statistics=true.
+ */
+public final class SqlStatementCounter {
+
+    private final Statistics statistics;
+
+    public SqlStatementCounter(SessionFactory sessionFactory) {
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    public long count(Runnable operation) {
+        statistics.clear();
+        operation.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,136 @@
+package com.storeapp.support;
+
+import com.storeapp.activity.entity.Activity;
+import com.storeapp.activity.entity.ActivityExpense;
+import com.storeapp.activity.entity.ActivityExpenseSplit;
+import com.storeapp.activity.entity.ActivityParticipant;
+import com.storeapp.activity.entity.Event;
+import com.storeapp.activity.entity.ParticipantStatus;
+import com.storeapp.group.entity.Group;
+import com.storeapp.group.entity.GroupMember;
+import com.storeapp.group.entity.GroupRole;
+import com.storeapp.user.entity.User;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dati di test persistiti direttamente con l'EntityManager.
+ * Da usare dentro una transazione di test (@TestTransaction), che viene annullata a fine test.
+ */
+public final class TestData {
+
+    private final EntityManager em;
+
+    public final Group group;
+    public final List<GroupMember> members = new ArrayList<>();
+
+    private TestData(EntityManager em, Group group) {
+        this.em = em;
+        this.group = group;
+    }
+
+    /**
+     * Crea un gruppo con {@code memberCount} membri; il primo è l'admin che lo ha creato.
+     */
+    public static TestData group(EntityManager em, int memberCount) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            users.add(user(em, "member" + i));
+        }
+
+        Group group = new Group();
+        group.name = "Test group";
+        group.vacationStartDate = LocalDate.now();
+        group.vacationEndDate = LocalDate.now().plusDays(7);
+        group.createdBy = users.get(0);
+        em.persist(group);
+
+        TestData data = new TestData(em, group);
+        for (int i = 0; i < users.size(); i++) {
+            GroupMember member = new GroupMember();
+            member.group = group;
+            member.user = users.get(i);
+            member.role = i == 0 ? GroupRole.ADMIN : GroupRole.MEMBER;
+            em.persist(member);
+            group.members.add(member);
+            data.members.add(member);
+        }
+        return data;
+    }
+
+    public static User user(EntityManager em, String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "-" + UUID.randomUUID() + "@test.storeapp.local");
+        em.persist(user);
+        return user;
+    }
+
+    public Long ownerId() {
+        return members.get(0).user.getId();
+    }
+
+    public Event event(String name) {
+        Event event = new Event();
+        event.group = group;
+        event.name = name;
+        event.startDate = group.vacationStartDate;
+        event.endDate = group.vacationStartDate;
+        event.startTime = LocalTime.of(10, 0);
+        event.endTime = LocalTime.of(12, 0);
+        event.createdBy = members.get(0).user;
+        em.persist(event);
+        return event;
+    }
+
+    /**
+     * Iscrive tutti i membri all'attività, alternando gli status CONFIRMED/MAYBE/DECLINED.
+     */
+    public void participants(Activity activity) {
+        ParticipantStatus[] statuses = ParticipantStatus.values();
+        for (int i = 0; i < members.size(); i++) {
+            ActivityParticipant participant = new ActivityParticipant();
+            participant.activity = activity;
+            participant.groupMember = members.get(i);
+            participant.status = statuses[i % statuses.length];
+            em.persist(participant);
+            activity.participants.add(participant);
+        }
+    }
+
+    /**
+     * Spesa pagata dal primo membro e divisa in parti uguali tra tutti i membri.
+     */
+    public ActivityExpense expense(Activity activity, BigDecimal share) {
+        ActivityExpense expense = new ActivityExpense();
+        expense.activity = activity;
+        expense.description = "Expense";
+        expense.amount = share.multiply(BigDecimal.valueOf(members.size()));
+        expense.paidBy = members.get(0);
+        em.persist(expense);
+
+        for (GroupMember member : members) {
+            ActivityExpenseSplit split = new ActivityExpenseSplit();
+            split.expense = expense;
+            split.groupMember = member;
+            split.amount = share;
+            split.isPayer = member == expense.paidBy;
+            split.paidAmount = split.isPayer ? expense.amount : BigDecimal.ZERO;
+            em.persist(split);
+            expense.splits.add(split);
+        }
+        return expense;
+    }
+
+    public void expenses(Activity activity, int count) {
+        for (int i = 0; i < count; i++) {
+            expense(activity, BigDecimal.TEN);
+        }
+    }
+}
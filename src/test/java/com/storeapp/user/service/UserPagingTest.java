@@ -0,0 +1,71 @@
+package com.storeapp.user.service;
+
+import com.storeapp.support.TestData;
+import com.storeapp.user.dto.UserSearchPage;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class UserPagingTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    UserBusinessService userBusinessService;
+
+    @Test
+    @TestTransaction
+    void pagesAndStreamReturnTheSameUsersInIdOrder() {
+        for (int i = 0; i < 12; i++) {
+            TestData.user(em, "paging" + i);
+        }
+        em.flush();
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserSearchPage page = userBusinessService.findPage(cursor, 5);
+            assertTrue(page.items.size() <= 5);
+            page.items.forEach(user -> paged.add(user.id));
+            cursor = page.nextCursor;
+        } while (cursor != null);
+
+        List<Long> streamed = new ArrayList<>();
+        userBusinessService.streamAll(user -> streamed.add(user.id));
+
+        assertEquals(streamed, paged);
+        assertEquals(paged.stream().sorted().toList(), paged);
+    }
+
+    @Test
+    @TestTransaction
+    void pageSizeIsCapped() {
+        for (int i = 0; i <= UserBusinessService.MAX_PAGE_LIMIT; i++) {
+            TestData.user(em, "capped" + i);
+        }
+        em.flush();
+
+        UserSearchPage page = userBusinessService.findPage(null, 10_000);
+
+        assertEquals(UserBusinessService.MAX_PAGE_LIMIT, page.items.size());
+        assertNotNull(page.nextCursor);
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(BadRequestException.class, () -> userBusinessService.findPage("abc", null));
+    }
+}
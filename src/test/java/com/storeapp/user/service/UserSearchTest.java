@@ -0,0 +1,121 @@
+package com.storeapp.user.service;
+
+import com.storeapp.support.TestData;
+import com.storeapp.user.dto.UserResponse;
+import com.storeapp.user.dto.UserSearchPage;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class UserSearchTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    UserBusinessService userBusinessService;
+
+    @Test
+    @TestTransaction
+    void prefixMatchesRankBeforeContainsMatches() {
+        String token = token();
+        TestData.user(em, "x" + token + "-contains");
+        TestData.user(em, token + "-prefix");
+        em.flush();
+
+        List<UserResponse> items = userBusinessService.search(token.toUpperCase(), null, null, null).items;
+
+        assertEquals(2, items.size());
+        assertEquals(token + "-prefix", items.get(0).name);
+    }
+
+    @Test
+    @TestTransaction
+    void cursorWalksAllPagesWithoutDuplicates() {
+        String token = token();
+        for (int i = 0; i < 7; i++) {
+            TestData.user(em, (i % 2 == 0 ? "" : "x") + token + "-" + i);
+        }
+        em.flush();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UserSearchPage page = userBusinessService.search(token, null, cursor, 3);
+            page.items.forEach(user -> seen.add(user.id));
+            cursor = page.nextCursor;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        assertEquals(7, seen.stream().distinct().count());
+    }
+
+    @Test
+    @TestTransaction
+    void excludesGroupMembers() {
+        String token = token();
+        TestData data = TestData.group(em, 2);
+        data.members.get(1).user.setName(token + "-member");
+        TestData.user(em, token + "-outsider");
+        em.flush();
+
+        UserSearchPage page = userBusinessService.search(token, data.group.id, null, null);
+
+        assertEquals(1, page.items.size());
+        assertEquals(token + "-outsider", page.items.get(0).name);
+        assertNull(page.nextCursor);
+    }
+
+    @Test
+    @TestTransaction
+    void blankQueryPagesByIdExcludingGroupMembers() {
+        TestData data = TestData.group(em, 3);
+        for (int i = 0; i < 4; i++) {
+            TestData.user(em, token());
+        }
+        em.flush();
+        List<Long> memberIds = data.members.stream().map(member -> member.user.getId()).toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserSearchPage page = userBusinessService.search("  ", data.group.id, cursor, 2);
+            page.items.forEach(user -> seen.add(user.id));
+            cursor = page.nextCursor;
+        } while (cursor != null);
+
+        assertEquals(seen.stream().sorted().toList(), seen);
+        assertEquals(seen.size(), seen.stream().distinct().count());
+        assertTrue(seen.stream().noneMatch(memberIds::contains));
+    }
+
+    @Test
+    void likeWildcardsAreMatchedLiterally() {
+        assertTrue(userBusinessService.search("%_%" + token(), null, null, null).items.isEmpty());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(BadRequestException.class, () -> userBusinessService.search("a", null, "not-a-cursor", null));
+    }
+
+    private static String token() {
+        return "search" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+}